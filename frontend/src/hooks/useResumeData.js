@@ -1,10 +1,6 @@
 import { useState, useEffect, useCallback, useRef } from 'react';
 import { 
-  fetchPersonalInfo, 
-  fetchEducationInfo, 
-  fetchProjectInfo, 
-  fetchSkillInfo,
-  fetchWorkInternshipInfo,
+  fetchResumeData,
   saveAllDataToCache
 } from '../utils/api';
 
@@ -71,19 +67,14 @@ export const useResumeData = (username, version) => {
         }
       };
 
-      const [
+      // 一次请求获取全部模块
+      const {
         personalInfo,
         education,
         projects,
         workinternship,
         skills
-      ] = await Promise.all([
-        retryFetch(() => fetchPersonalInfo(username, version)),
-        retryFetch(() => fetchEducationInfo(username, version)),
-        retryFetch(() => fetchProjectInfo(username, version)),
-        retryFetch(() => fetchWorkInternshipInfo(username, version)),
-        retryFetch(() => fetchSkillInfo(username, version))
-      ]);
+      } = await retryFetch(() => fetchResumeData(username, version));
 
       setResumeData({
         personalInfo,
@@ -134,19 +125,13 @@ export const useResumeData = (username, version) => {
       try {
         setIsRefreshing(true);
 
-        const [
+        const {
           personalInfo,
           education,
           projects,
           workinternship,
           skills
-        ] = await Promise.all([
-          fetchPersonalInfo(username, version),
-          fetchEducationInfo(username, version),
-          fetchProjectInfo(username, version),
-          fetchWorkInternshipInfo(username, version),
-          fetchSkillInfo(username, version)
-        ]);
+        } = await fetchResumeData(username, version);
 
         setResumeData(prevData => {
           const newData = {
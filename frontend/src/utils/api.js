@@ -165,6 +165,85 @@ export const fetchWorkInternshipInfo = async (username, version) => {
   }
 };
 
+// 简历各模块均未获取到时的结果
+const emptyResumeData = () => ({
+  personalInfo: null,
+  education: null,
+  projects: null,
+  workinternship: null,
+  skills: null
+});
+
+// 单个模块转换失败时只丢弃该模块
+const transformSection = (name, value, transform) => {
+  if (!value) {
+    return null;
+  }
+  try {
+    return transform(value);
+  } catch (error) {
+    console.error(`Error transforming ${name} data:`, error);
+    return null;
+  }
+};
+
+// 一次请求获取简历全部模块，结构与各模块单独获取后的结果一致；始终返回包含各模块的对象，获取不到的模块为 null
+// 404 视为没有数据；合并接口出错时（502 除外，由调用方重试）退回各模块单独获取，每个模块各自容错
+export const fetchResumeData = async (username, version) => {
+  if (!isLoggedIn()) {
+    console.log('用户未登录，跳过简历数据获取');
+    return emptyResumeData();
+  }
+  const sections = 'personalInfo,education,projects,skills,workinternship';
+  let response;
+  try {
+    response = await fetch(`${API_BASE_URL}/resume/${username}/${version}?sections=${sections}`, {
+      headers: getAuthHeaders(),
+    });
+  } catch (error) {
+    console.error('Error fetching resume data, falling back to per-section requests:', error);
+    return fetchResumeDataBySection(username, version);
+  }
+  if (response.status === 404) {
+    console.log('No resume data found for user:', username, 'version:', version);
+    return emptyResumeData();
+  }
+  if (response.status === 502) {
+    throw new Error(`Failed to fetch resume data: ${response.status}`);
+  }
+  if (!response.ok) {
+    console.error(`Failed to fetch resume data: ${response.status}, falling back to per-section requests`);
+    return fetchResumeDataBySection(username, version);
+  }
+  const text = await response.text();
+  if (!text) {
+    console.log('Empty response for resume data');
+    return emptyResumeData();
+  }
+  const data = JSON.parse(text) || {};
+  return {
+    personalInfo: transformSection('personalInfo', data.personalInfo, transformPersonalInfoData),
+    education: transformSection('education', data.education, transformEducationData),
+    projects: transformSection('projects', data.projects, transformProjectData),
+    workinternship: data.workinternship && data.workinternship.workInternshipData
+      ? data.workinternship.workInternshipData
+      : null,
+    skills: transformSection('skills', data.skills, transformSkillData)
+  };
+};
+
+// 各模块单独获取，某个模块失败或不存在时该模块为 null，不影响其他模块
+const fetchResumeDataBySection = async (username, version) => {
+  const [personalInfo, education, projects, workinternship, skills] = await Promise.all([
+    fetchPersonalInfo(username, version),
+    fetchEducationInfo(username, version),
+    fetchProjectInfo(username, version),
+    fetchWorkInternshipInfo(username, version),
+    fetchSkillInfo(username, version)
+  ]);
+  return { personalInfo, education, projects, workinternship, skills };
+};
+
 // 批量保存所有数据到Redis缓存
 export const saveAllDataToCache = async (resumeData, username, version) => {
   if (!isLoggedIn()) {
@@ -0,0 +1,57 @@
+package com.example.flexresume.benchmark;
+
+import com.example.flexresume.config.ResumeValueCodec;
+import org.openjdk.jmh.annotations.*;
+import org.springframework.data.redis.serializer.GenericJackson2JsonRedisSerializer;
+import org.springframework.data.redis.serializer.RedisSerializer;
+
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Redis 值编解码开销：原 JSON 序列化器与 Smile、Smile + LZ4 的对比
+ */
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+@State(Scope.Benchmark)
+public class CodecBenchmark {
+
+    @Param({"personalInfo", "projects", "education", "skills"})
+    public String payload;
+
+    @Param({"json", "smile", "smile-lz4"})
+    public String codec;
+
+    private RedisSerializer<Object> serializer;
+    private Object value;
+    private byte[] encoded;
+
+    @Setup
+    public void setup() {
+        serializer = switch (codec) {
+            case "json" -> new GenericJackson2JsonRedisSerializer();
+            case "smile" -> new ResumeValueCodec(true, Integer.MAX_VALUE);
+            default -> new ResumeValueCodec(true, 4096);
+        };
+        value = switch (payload) {
+            case "personalInfo" -> ResumePayloads.personalInfo("user", 1, 150_000);
+            case "projects" -> ResumePayloads.cards("project", 5, 20_000);
+            case "education" -> ResumePayloads.education("user", 1, 3, 10_000);
+            default -> ResumePayloads.skill("user", 1);
+        };
+        encoded = serializer.serialize(value);
+        System.out.println(payload + " / " + codec + " 编码后大小: " + encoded.length + " 字节");
+    }
+
+    @Benchmark
+    public byte[] encode() {
+        return serializer.serialize(value);
+    }
+
+    @Benchmark
+    public Object decode() {
+        return serializer.deserialize(encoded);
+    }
+}
@@ -0,0 +1,636 @@
+package com.example.flexresume.benchmark;
+
+import com.example.flexresume.model.ProjectDocument;
+import com.example.flexresume.model.WorkInternshipDocument;
+import com.fasterxml.jackson.databind.JsonNode;
+import com.fasterxml.jackson.databind.ObjectMapper;
+
+import java.io.FileOutputStream;
+import java.io.IOException;
+import java.io.PrintStream;
+import java.net.URI;
+import java.net.http.HttpClient;
+import java.net.http.HttpRequest;
+import java.net.http.HttpResponse;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.HashMap;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.ThreadLocalRandom;
+import java.util.function.Function;
+
+/**
+ * 模拟编辑和访问流量的压测，结果超过阈值时以非 0 退出码结束（构建失败）
+ * 不指定 load.url 时在本机启动 Redis、内存 MongoDB 和应用本身（见 {@link LocalServices}），应用日志写入 target/load-test-app.log：
+ *   mvn -Pbenchmark test-compile exec:exec@load-test
+ * 指定 load.url 时压测运行中的服务，例如分别以 VIRTUAL_THREADS=false、VIRTUAL_THREADS=true 启动，比较两种线程模式：
+ *   mvn -Pbenchmark test-compile exec:exec@load-test -Dload.url=http://localhost:8081
+ * 写回积压从管理端口读取，load.management-url 默认为 load.url 的主机加默认管理端口 8082
+ *
+ * 编辑者（load.editors 个线程）先注册账号并创建全部模块，之后循环执行脚本：
+ *   登录 → 自动保存 load.autosaves 次（个人信息、教育、项目补丁、技能、工作与实习轮流，每次间隔 load.think-ms）→ 发布
+ * 访问者（load.viewers 个线程）匿名访问随机编辑者的已发布简历，带上次的 ETag，间隔 load.view-think-ms
+ * 其他参数：load.version（默认 1）、load.seconds（测量时长，默认 30）、load.warmup-seconds（预热时长，默认 5）、
+ * load.sample-seconds（输出时间线的间隔，默认 5）、load.drain-seconds（测量结束后等待写回积压清空的最长时间，默认 30）
+ *
+ * 测量期间按间隔输出吞吐量、p99 和写回积压（/actuator/metrics/writeback.dirty.backlog），结束时输出各步骤的延迟分位数，
+ * 并检查阈值：load.max-p99-ms（每个步骤的 p99）、load.max-login-p99-ms（登录的 p99，密码哈希本身较慢）、
+ * load.max-publish-p99-ms（发布的 p99，包括等待写回和组装快照）、load.max-error-rate（错误比例）、load.min-throughput（总吞吐，0 不检查）、
+ * load.max-backlog（测量期间写回积压的最大值，小于 0 不检查）、写回积压在 load.drain-seconds 内清空
+ */
+public class LoadTest {
+
+    private static final ObjectMapper MAPPER = new ObjectMapper();
+    private static final String PASSWORD = "load-test-password";
+    private static final String LOGIN = "POST /api/auth/login";
+    private static final String PUBLISH = "POST /api/publish";
+    private static final String BACKLOG_METRIC = "/actuator/metrics/writeback.dirty.backlog";
+
+    // 应用日志重定向到文件后，压测结果仍输出到控制台
+    private static final PrintStream console = System.out;
+
+    /**
+     * 自动保存的步骤，按顺序轮流执行；项目模块与前端一样只上传修改过的卡片
+     */
+    private static final List<Autosave> AUTOSAVES = List.of(
+            new Autosave("POST /api/personal-info", "POST", editor -> "/api/personal-info", "application/json",
+                    editor -> editor.bodies.get("personalInfo")),
+            new Autosave("POST /api/education-info", "POST", editor -> "/api/education-info", "application/json",
+                    editor -> editor.bodies.get("education")),
+            new Autosave("PATCH /api/project-info", "PATCH",
+                    editor -> "/api/project-info?username=" + editor.userId + "&version=" + editor.version,
+                    "application/merge-patch+json",
+                    editor -> "{\"project0\":{\"name\":\"项目 " + ThreadLocalRandom.current().nextInt(1000) + "\"}}"),
+            new Autosave("POST /api/skill", "POST", editor -> "/api/skill", "application/json",
+                    editor -> editor.bodies.get("skills")),
+            new Autosave("POST /api/workinternship-info", "POST", editor -> "/api/workinternship-info", "application/json",
+                    editor -> editor.bodies.get("workinternship")));
+
+    public static void main(String[] args) throws Exception {
+        String url = System.getProperty("load.url", "");
+        String managementUrl = System.getProperty("load.management-url", "");
+        int version = Integer.getInteger("load.version", 1);
+        int editorCount = Integer.getInteger("load.editors", 10);
+        int viewerCount = Integer.getInteger("load.viewers", 20);
+        int autosaves = Integer.getInteger("load.autosaves", 20);
+        long thinkMs = Long.getLong("load.think-ms", 500);
+        long viewThinkMs = Long.getLong("load.view-think-ms", 200);
+        int seconds = Integer.getInteger("load.seconds", 30);
+        int warmupSeconds = Integer.getInteger("load.warmup-seconds", 5);
+        int sampleSeconds = Integer.getInteger("load.sample-seconds", 5);
+        int drainSeconds = Integer.getInteger("load.drain-seconds", 30);
+        Thresholds thresholds = new Thresholds(
+                Double.parseDouble(System.getProperty("load.max-p99-ms", "1000")),
+                Double.parseDouble(System.getProperty("load.max-login-p99-ms", "5000")),
+                Double.parseDouble(System.getProperty("load.max-publish-p99-ms", "3000")),
+                Double.parseDouble(System.getProperty("load.max-error-rate", "0.01")),
+                Double.parseDouble(System.getProperty("load.min-throughput", "0")),
+                Long.getLong("load.max-backlog", -1));
+
+        LocalServices local = null;
+        String baseUrl = url;
+        if (url.isEmpty()) {
+            Path log = Path.of("target", "load-test-app.log");
+            Files.createDirectories(log.getParent());
+            console.println("在本机启动 Redis、MongoDB 和应用，应用日志见 " + log);
+            PrintStream appLog = new PrintStream(new FileOutputStream(log.toFile()), true, StandardCharsets.UTF_8);
+            System.setOut(appLog);
+            System.setErr(appLog);
+            local = LocalServices.start();
+            baseUrl = local.baseUrl();
+            managementUrl = local.managementUrl();
+        } else if (managementUrl.isEmpty()) {
+            URI uri = URI.create(url);
+            managementUrl = uri.getScheme() + "://" + uri.getHost() + ":8082";
+        }
+
+        int exitCode = 1;
+        try {
+            HttpClient client = HttpClient.newBuilder()
+                    .connectTimeout(Duration.ofSeconds(5))
+                    .executor(Executors.newFixedThreadPool(4))
+                    .build();
+            Target target = new Target(client, baseUrl, managementUrl);
+
+            console.println("注册 " + editorCount + " 个编辑者并创建简历...");
+            String runId = Long.toString(System.currentTimeMillis(), 36);
+            List<Editor> editors = new ArrayList<>();
+            for (int i = 0; i < editorCount; i++) {
+                editors.add(target.createEditor("load-" + runId + "-" + i + "@example.com", version));
+            }
+            LoadScript script = new LoadScript(target, editors, autosaves, thinkMs, viewThinkMs);
+
+            console.println("预热 " + warmupSeconds + " 秒后测量 " + seconds + " 秒，编辑者 " + editorCount
+                    + "，访问者 " + viewerCount + "...");
+            Timeline timeline = new Timeline(target, sampleSeconds);
+            Map<String, Recorder> results = script.run(editorCount, viewerCount, warmupSeconds, seconds, timeline);
+            Long drained = target.waitForDrain(drainSeconds);
+
+            report(results, seconds);
+            exitCode = check(results, seconds, timeline.maxBacklog(), drained, drainSeconds, thresholds) ? 0 : 1;
+        } catch (Exception e) {
+            console.println("压测失败: " + e);
+            e.printStackTrace(console);
+        } finally {
+            if (local != null) {
+                local.close();
+            }
+        }
+        System.exit(exitCode);
+    }
+
+    private static void report(Map<String, Recorder> results, int seconds) {
+        Recorder total = new Recorder();
+        console.printf("%-32s %10s %10s %8s %10s %10s %10s %10s%n",
+                "步骤", "请求数", "吞吐/秒", "错误", "p50(ms)", "p90(ms)", "p99(ms)", "max(ms)");
+        results.forEach((name, recorder) -> {
+            print(name, recorder, seconds);
+            total.merge(recorder);
+        });
+        print("合计", total, seconds);
+    }
+
+    private static void print(String name, Recorder recorder, int seconds) {
+        long[] sorted = recorder.sorted();
+        console.printf("%-32s %10d %10.1f %8d %10.2f %10.2f %10.2f %10.2f%n",
+                name, sorted.length, (double) sorted.length / seconds, recorder.errors,
+                percentile(sorted, 0.50), percentile(sorted, 0.90), percentile(sorted, 0.99),
+                sorted.length == 0 ? 0 : sorted[sorted.length - 1] / 1_000_000.0);
+    }
+
+    /**
+     * 检查阈值，输出每一项的结果
+     * @param drained 写回积压清空用的秒数，未清空时为 null
+     * @return 全部通过
+     */
+    private static boolean check(Map<String, Recorder> results, int seconds, long maxBacklog, Long drained,
+                                 int drainSeconds, Thresholds thresholds) {
+        List<String> failures = new ArrayList<>();
+        Recorder total = new Recorder();
+        results.forEach((name, recorder) -> {
+            total.merge(recorder);
+            double p99 = percentile(recorder.sorted(), 0.99);
+            double limit = thresholds.maxP99Ms(name);
+            if (p99 > limit) {
+                failures.add(name + " p99 " + String.format("%.2f", p99) + "ms 超过 " + limit + "ms");
+            }
+        });
+        double errorRate = total.count == 0 ? 1 : (double) total.errors / total.count;
+        if (errorRate > thresholds.maxErrorRate()) {
+            failures.add("错误比例 " + String.format("%.4f", errorRate) + " 超过 " + thresholds.maxErrorRate());
+        }
+        double throughput = (double) total.count / seconds;
+        if (thresholds.minThroughput() > 0 && throughput < thresholds.minThroughput()) {
+            failures.add("吞吐 " + String.format("%.1f", throughput) + "/秒 低于 " + thresholds.minThroughput() + "/秒");
+        }
+        if (thresholds.maxBacklog() >= 0 && maxBacklog > thresholds.maxBacklog()) {
+            failures.add("写回积压最大 " + maxBacklog + " 超过 " + thresholds.maxBacklog());
+        }
+        if (drainSeconds > 0 && drained == null) {
+            failures.add("写回积压未在 " + drainSeconds + " 秒内清空");
+        }
+
+        console.println("写回积压最大 " + (maxBacklog < 0 ? "-" : maxBacklog)
+                + "，测量结束后清空用时 " + (drained == null ? "-" : drained + " 秒"));
+        if (failures.isEmpty()) {
+            console.println("阈值检查通过");
+            return true;
+        }
+        failures.forEach(failure -> console.println("阈值检查失败: " + failure));
+        return false;
+    }
+
+    private static double percentile(long[] sorted, double quantile) {
+        if (sorted.length == 0) {
+            return 0;
+        }
+        int index = (int) Math.ceil(quantile * sorted.length) - 1;
+        return sorted[Math.max(0, index)] / 1_000_000.0;
+    }
+
+    private static void sleep(long millis) throws InterruptedException {
+        if (millis > 0) {
+            Thread.sleep(millis);
+        }
+    }
+
+    private record Thresholds(double maxP99Ms, double maxLoginP99Ms, double maxPublishP99Ms, double maxErrorRate,
+                              double minThroughput, long maxBacklog) {
+
+        double maxP99Ms(String step) {
+            return switch (step) {
+                case LOGIN -> maxLoginP99Ms;
+                case PUBLISH -> maxPublishP99Ms;
+                default -> maxP99Ms;
+            };
+        }
+    }
+
+    private record Autosave(String name, String method, Function<Editor, String> path, String contentType,
+                            Function<Editor, String> body) {
+    }
+
+    /**
+     * 编辑者账号和它的简历内容；token 由每次登录更新，只在本线程内使用
+     */
+    private static final class Editor {
+        final String email;
+        final int version;
+        final Map<String, String> bodies = new HashMap<>();
+        String userId;
+        String token;
+
+        Editor(String email, int version) {
+            this.email = email;
+            this.version = version;
+        }
+    }
+
+    /**
+     * 被压测的服务：发送请求并记录延迟
+     */
+    private static final class Target {
+        private final HttpClient client;
+        private final String baseUrl;
+        private final String managementUrl;
+
+        Target(HttpClient client, String baseUrl, String managementUrl) {
+            this.client = client;
+            this.baseUrl = baseUrl;
+            this.managementUrl = managementUrl;
+        }
+
+        HttpRequest.Builder request(String path, String token) {
+            HttpRequest.Builder builder = HttpRequest.newBuilder(URI.create(baseUrl + path)).timeout(Duration.ofSeconds(10));
+            if (token != null) {
+                builder.header("Authorization", "Bearer " + token);
+            }
+            return builder;
+        }
+
+        /**
+         * 发送请求并记录延迟，连接失败时返回 null
+         */
+        HttpResponse<String> send(HttpRequest request, String step, Stats stats) throws InterruptedException {
+            long start = System.nanoTime();
+            try {
+                HttpResponse<String> response = client.send(request, HttpResponse.BodyHandlers.ofString());
+                stats.record(step, start, System.nanoTime() - start, response.statusCode() < 400);
+                return response;
+            } catch (IOException e) {
+                stats.record(step, start, System.nanoTime() - start, false);
+                return null;
+            }
+        }
+
+        /**
+         * 登录并更新编辑者的 token，返回是否成功
+         */
+        boolean login(Editor editor, Stats stats) throws InterruptedException {
+            HttpResponse<String> response = send(request("/api/auth/login", null)
+                    .header("Content-Type", "application/json")
+                    .POST(HttpRequest.BodyPublishers.ofString(credentials(editor.email)))
+                    .build(), LOGIN, stats);
+            if (response == null || response.statusCode() != 200) {
+                return false;
+            }
+            try {
+                JsonNode body = MAPPER.readTree(response.body());
+                editor.userId = body.get("userId").asText();
+                editor.token = body.get("token").asText();
+                return true;
+            } catch (IOException e) {
+                return false;
+            }
+        }
+
+        /**
+         * 注册账号、登录，并保存全部模块（之后的项目补丁需要已有的卡片），不计入结果
+         * 注册和登录被限流（429）时稍后重试
+         */
+        Editor createEditor(String email, int version) throws Exception {
+            Editor editor = new Editor(email, version);
+            Stats ignored = new Stats(Long.MAX_VALUE, null);
+            for (int attempt = 0; ; attempt++) {
+                HttpResponse<String> registered = send(request("/api/auth/register", null)
+                        .header("Content-Type", "application/json")
+                        .POST(HttpRequest.BodyPublishers.ofString(credentials(email)))
+                        .build(), "register", ignored);
+                if (registered != null && registered.statusCode() != 429 && login(editor, ignored)) {
+                    break;
+                }
+                if (attempt == 10) {
+                    throw new IllegalStateException("无法注册或登录编辑者 " + email
+                            + (registered != null ? ": " + registered.statusCode() + " " + registered.body() : ""));
+                }
+                sleep(1000);
+            }
+
+            editor.bodies.put("personalInfo", MAPPER.writeValueAsString(
+                    ResumePayloads.personalInfo(editor.userId, version, 1024)));
+            editor.bodies.put("education", MAPPER.writeValueAsString(
+                    ResumePayloads.education(editor.userId, version, 2, 1024)));
+            editor.bodies.put("skills", MAPPER.writeValueAsString(ResumePayloads.skill(editor.userId, version)));
+            editor.bodies.put("workinternship", MAPPER.writeValueAsString(
+                    new WorkInternshipDocument(editor.userId, version, ResumePayloads.cards("work", 3, 1024))));
+            ProjectDocument project = new ProjectDocument(editor.userId, version, ResumePayloads.cards("project", 4, 1024));
+
+            List<HttpRequest> initial = new ArrayList<>();
+            initial.add(json("/api/project-info", editor.token, MAPPER.writeValueAsString(project)));
+            for (Autosave autosave : AUTOSAVES) {
+                if (autosave.method().equals("POST")) {
+                    initial.add(json(autosave.path().apply(editor), editor.token, autosave.body().apply(editor)));
+                }
+            }
+            for (HttpRequest request : initial) {
+                HttpResponse<String> response = send(request, "create", ignored);
+                if (response == null || response.statusCode() != 200) {
+                    throw new IllegalStateException("创建简历失败 " + request.uri()
+                            + (response != null ? ": " + response.statusCode() + " " + response.body() : ""));
+                }
+            }
+            return editor;
+        }
+
+        HttpRequest json(String path, String token, String body) {
+            return request(path, token)
+                    .header("Content-Type", "application/json")
+                    .POST(HttpRequest.BodyPublishers.ofString(body))
+                    .build();
+        }
+
+        /**
+         * 读取写回积压，指标不可用时返回 -1
+         */
+        long backlog() {
+            try {
+                HttpRequest request = HttpRequest.newBuilder(URI.create(managementUrl + BACKLOG_METRIC))
+                        .timeout(Duration.ofSeconds(10)).GET().build();
+                HttpResponse<String> response = client.send(request,
+                        HttpResponse.BodyHandlers.ofString());
+                if (response.statusCode() != 200) {
+                    return -1;
+                }
+                return MAPPER.readTree(response.body()).path("measurements").path(0).path("value").asLong(-1);
+            } catch (IOException e) {
+                return -1;
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+                return -1;
+            }
+        }
+
+        /**
+         * 等待写回积压清空
+         * @return 用时（秒），超时或指标不可用时为 null
+         */
+        Long waitForDrain(int seconds) throws InterruptedException {
+            long start = System.nanoTime();
+            long deadline = start + Duration.ofSeconds(seconds).toNanos();
+            while (System.nanoTime() < deadline) {
+                if (backlog() == 0) {
+                    return Duration.ofNanos(System.nanoTime() - start).toSeconds();
+                }
+                Thread.sleep(1000);
+            }
+            return null;
+        }
+
+        private static String credentials(String email) {
+            return "{\"email\":\"" + email + "\",\"password\":\"" + PASSWORD + "\"}";
+        }
+    }
+
+    /**
+     * 编辑者和访问者的脚本
+     */
+    private static final class LoadScript {
+        private final Target target;
+        private final List<Editor> editors;
+        private final int autosaves;
+        private final long thinkMs;
+        private final long viewThinkMs;
+
+        LoadScript(Target target, List<Editor> editors, int autosaves, long thinkMs, long viewThinkMs) {
+            this.target = target;
+            this.editors = editors;
+            this.autosaves = autosaves;
+            this.thinkMs = thinkMs;
+            this.viewThinkMs = viewThinkMs;
+        }
+
+        /**
+         * 每个编辑者、访问者一个线程，循环执行脚本直到时间结束，返回按步骤合并的测量结果
+         * 预热和测量连续进行，预热期间开始的请求不计入结果；编辑者在预热期间随机错开开始时间，避免同时登录
+         */
+        Map<String, Recorder> run(int editorCount, int viewerCount, int warmupSeconds, int seconds, Timeline timeline)
+                throws Exception {
+            long measureFrom = System.nanoTime() + Duration.ofSeconds(warmupSeconds).toNanos();
+            long deadline = measureFrom + Duration.ofSeconds(seconds).toNanos();
+            ExecutorService workers = Executors.newFixedThreadPool(editorCount + viewerCount);
+            List<Future<Stats>> futures = new ArrayList<>();
+            for (int i = 0; i < editorCount; i++) {
+                Editor editor = editors.get(i);
+                futures.add(workers.submit(() -> {
+                    Stats stats = new Stats(measureFrom, timeline);
+                    sleep(ThreadLocalRandom.current().nextLong(warmupSeconds * 1000L + 1));
+                    while (System.nanoTime() < deadline) {
+                        editorSession(editor, deadline, stats);
+                    }
+                    return stats;
+                }));
+            }
+            for (int i = 0; i < viewerCount; i++) {
+                futures.add(workers.submit(() -> {
+                    Stats stats = new Stats(measureFrom, timeline);
+                    Map<String, String> etags = new HashMap<>();
+                    while (System.nanoTime() < deadline) {
+                        view(etags, stats);
+                    }
+                    return stats;
+                }));
+            }
+            sleep(Duration.ofNanos(measureFrom - System.nanoTime()).toMillis());
+            timeline.follow(deadline);
+            Map<String, Recorder> merged = new LinkedHashMap<>();
+            for (Future<Stats> future : futures) {
+                future.get().steps.forEach((name, recorder) ->
+                        merged.computeIfAbsent(name, n -> new Recorder()).merge(recorder));
+            }
+            workers.shutdown();
+            return merged;
+        }
+
+        /**
+         * 登录 → 自动保存若干次 → 发布
+         */
+        private void editorSession(Editor editor, long deadline, Stats stats) throws InterruptedException {
+            if (!target.login(editor, stats)) {
+                // 与服务返回的 Retry-After 一致，稍后重新登录
+                sleep(1000);
+                return;
+            }
+            for (int i = 0; i < autosaves; i++) {
+                if (System.nanoTime() >= deadline) {
+                    return;
+                }
+                Autosave autosave = AUTOSAVES.get(i % AUTOSAVES.size());
+                HttpRequest request = target.request(autosave.path().apply(editor), editor.token)
+                        .header("Content-Type", autosave.contentType())
+                        .method(autosave.method(), HttpRequest.BodyPublishers.ofString(autosave.body().apply(editor)))
+                        .build();
+                target.send(request, autosave.name(), stats);
+                sleep(thinkMs);
+            }
+            if (System.nanoTime() < deadline) {
+                target.send(target.json("/api/publish", editor.token,
+                        "{\"userId\":\"" + editor.userId + "\",\"version\":" + editor.version + ",\"snapshot\":{}}"),
+                        PUBLISH, stats);
+            }
+        }
+
+        /**
+         * 匿名访问随机一个编辑者的已发布简历，与浏览器一样带上次的 ETag 重新验证
+         */
+        private void view(Map<String, String> etags, Stats stats) throws InterruptedException {
+            String userId = editors.get(ThreadLocalRandom.current().nextInt(editors.size())).userId;
+            HttpRequest.Builder request = target.request("/api/publish?userId=" + userId, null)
+                    .header("Accept-Encoding", "gzip");
+            String etag = etags.get(userId);
+            if (etag != null) {
+                request.header("If-None-Match", etag);
+            }
+            HttpResponse<String> response = target.send(request.GET().build(), "GET /api/publish", stats);
+            if (response != null) {
+                response.headers().firstValue("ETag").ifPresent(value -> etags.put(userId, value));
+            }
+            sleep(viewThinkMs);
+        }
+    }
+
+    /**
+     * 单个线程的记录：按步骤的延迟（结束后合并），同时计入共享的时间线
+     */
+    private static final class Stats {
+        final Map<String, Recorder> steps = new LinkedHashMap<>();
+        private final long measureFrom;
+        private final Timeline timeline;
+
+        /**
+         * @param measureFrom 只记录此时（System.nanoTime）之后开始的请求
+         */
+        Stats(long measureFrom, Timeline timeline) {
+            this.measureFrom = measureFrom;
+            this.timeline = timeline;
+        }
+
+        void record(String step, long start, long nanos, boolean ok) {
+            if (start < measureFrom) {
+                return;
+            }
+            steps.computeIfAbsent(step, name -> new Recorder()).record(nanos, ok);
+            if (timeline != null) {
+                timeline.record(nanos, ok);
+            }
+        }
+    }
+
+    /**
+     * 测量期间按间隔输出吞吐量、延迟和写回积压
+     */
+    private static final class Timeline {
+        private final Target target;
+        private final int sampleSeconds;
+        private Recorder interval = new Recorder();
+        private long maxBacklog = -1;
+
+        Timeline(Target target, int sampleSeconds) {
+            this.target = target;
+            this.sampleSeconds = sampleSeconds;
+        }
+
+        synchronized void record(long nanos, boolean ok) {
+            interval.record(nanos, ok);
+        }
+
+        private synchronized Recorder swap() {
+            Recorder current = interval;
+            interval = new Recorder();
+            return current;
+        }
+
+        long maxBacklog() {
+            return maxBacklog;
+        }
+
+        /**
+         * 在调用线程上按间隔采样，直到时间结束
+         */
+        void follow(long deadline) throws InterruptedException {
+            console.printf("%8s %10s %8s %10s %10s%n", "时间(s)", "吞吐/秒", "错误", "p99(ms)", "写回积压");
+            long start = System.nanoTime();
+            long next = start;
+            long last = start;
+            while (true) {
+                next += Duration.ofSeconds(sampleSeconds).toNanos();
+                long end = Math.min(next, deadline);
+                long wait = end - System.nanoTime();
+                if (wait > 0) {
+                    Thread.sleep(Duration.ofNanos(wait).toMillis());
+                }
+                Recorder sample = swap();
+                long backlog = target.backlog();
+                maxBacklog = Math.max(maxBacklog, backlog);
+                long now = System.nanoTime();
+                console.printf("%8.0f %10.1f %8d %10.2f %10s%n", (now - start) / 1e9,
+                        sample.count / Math.max(0.001, (now - last) / 1e9), sample.errors,
+                        percentile(sample.sorted(), 0.99), backlog < 0 ? "-" : Long.toString(backlog));
+                last = now;
+                if (end >= deadline) {
+                    return;
+                }
+            }
+        }
+    }
+
+    /**
+     * 单线程记录延迟（纳秒），结束后合并
+     */
+    private static class Recorder {
+        private long[] latencies = new long[1024];
+        private int count;
+        private long errors;
+
+        void record(long nanos, boolean ok) {
+            if (count == latencies.length) {
+                latencies = Arrays.copyOf(latencies, count * 2);
+            }
+            latencies[count++] = nanos;
+            if (!ok) {
+                errors++;
+            }
+        }
+
+        void merge(Recorder other) {
+            for (int i = 0; i < other.count; i++) {
+                record(other.latencies[i], true);
+            }
+            errors += other.errors;
+        }
+
+        long[] sorted() {
+            long[] copy = Arrays.copyOf(latencies, count);
+            Arrays.sort(copy);
+            return copy;
+        }
+    }
+}
@@ -0,0 +1,103 @@
+package com.example.flexresume.benchmark;
+
+import com.example.flexresume.FlexResumeApplication;
+import de.bwaldvogel.mongo.MongoServer;
+import de.bwaldvogel.mongo.backend.memory.MemoryBackend;
+import org.springframework.boot.builder.SpringApplicationBuilder;
+import org.springframework.boot.web.context.WebServerApplicationContext;
+import org.springframework.context.ConfigurableApplicationContext;
+import redis.embedded.RedisServer;
+
+import java.io.IOException;
+import java.net.InetSocketAddress;
+import java.net.ServerSocket;
+import java.util.LinkedHashMap;
+import java.util.Map;
+
+/**
+ * 压测用的本机服务：embedded-redis 内置的 redis-server、mongo-java-server 的内存 MongoDB，以及在随机端口（应用端口和管理端口）上启动的应用本身
+ * 写回和积压采样的间隔调小，压测时长内就能观察到写回积压的变化；MongoDB 替身不支持 explain，关闭启动时的查询计划检查
+ */
+final class LocalServices implements AutoCloseable {
+
+    private final RedisServer redis;
+    private final MongoServer mongo;
+    private final ConfigurableApplicationContext application;
+
+    private LocalServices(RedisServer redis, MongoServer mongo, ConfigurableApplicationContext application) {
+        this.redis = redis;
+        this.mongo = mongo;
+        this.application = application;
+    }
+
+    static LocalServices start() throws IOException {
+        int redisPort = freePort();
+        RedisServer redis = RedisServer.newRedisServer()
+                .bind("127.0.0.1")
+                .port(redisPort)
+                .setting("maxmemory 256mb")
+                .setting("save \"\"")
+                .setting("appendonly no")
+                .build();
+        redis.start();
+
+        MongoServer mongo = new MongoServer(new MemoryBackend());
+        InetSocketAddress mongoAddress = mongo.bind();
+
+        Map<String, Object> properties = new LinkedHashMap<>();
+        properties.put("server.port", 0);
+        properties.put("management.server.port", 0);
+        properties.put("spring.data.mongodb.uri",
+                "mongodb://" + mongoAddress.getHostString() + ":" + mongoAddress.getPort() + "/resume_builder");
+        properties.put("spring.data.redis.host", "127.0.0.1");
+        properties.put("spring.data.redis.port", redisPort);
+        properties.put("mongo.indexes.explain-check", "off");
+        properties.put("writeback.interval-ms", 1000);
+        properties.put("writeback.min-dirty-age-ms", 1000);
+        properties.put("metrics.dirty-backlog.sample-interval-ms", 1000);
+
+        // 以命令行参数传入，优先于 application.properties
+        String[] args = properties.entrySet().stream()
+                .map(property -> "--" + property.getKey() + "=" + property.getValue())
+                .toArray(String[]::new);
+        try {
+            ConfigurableApplicationContext application = new SpringApplicationBuilder(FlexResumeApplication.class)
+                    .run(args);
+            return new LocalServices(redis, mongo, application);
+        } catch (RuntimeException e) {
+            mongo.shutdownNow();
+            redis.stop();
+            throw e;
+        }
+    }
+
+    String baseUrl() {
+        return "http://localhost:" + ((WebServerApplicationContext) application).getWebServer().getPort();
+    }
+
+    /**
+     * actuator 所在的管理端口
+     */
+    String managementUrl() {
+        return "http://localhost:" + application.getEnvironment().getProperty("local.management.port");
+    }
+
+    /**
+     * 停止应用（停机写回全部脏数据）后再停止 Redis 和 MongoDB
+     */
+    @Override
+    public void close() throws IOException {
+        try {
+            application.close();
+        } finally {
+            mongo.shutdownNow();
+            redis.stop();
+        }
+    }
+
+    private static int freePort() throws IOException {
+        try (ServerSocket socket = new ServerSocket(0)) {
+            return socket.getLocalPort();
+        }
+    }
+}
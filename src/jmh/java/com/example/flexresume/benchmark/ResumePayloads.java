@@ -0,0 +1,123 @@
+package com.example.flexresume.benchmark;
+
+import com.example.flexresume.model.EducationDocument;
+import com.example.flexresume.model.PersonalInfo;
+import com.example.flexresume.model.Skill;
+
+import java.util.ArrayList;
+import java.util.Base64;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Random;
+
+/**
+ * 基准测试用的简历数据，结构与前端实际保存的数据一致：
+ * 多张卡片的项目/工作经历 Map、data URL 形式的图片、带 HTML 的技能内容
+ */
+public final class ResumePayloads {
+
+    private static final Random RANDOM = new Random(42);
+
+    private ResumePayloads() {
+    }
+
+    /**
+     * 生成 data URL 图片，内容为随机字节（接近 JPEG 不可压缩的特点）
+     */
+    public static String dataUrlImage(int bytes) {
+        byte[] data = new byte[bytes];
+        RANDOM.nextBytes(data);
+        return "data:image/jpeg;base64," + Base64.getEncoder().encodeToString(data);
+    }
+
+    public static String htmlParagraphs(int count) {
+        StringBuilder html = new StringBuilder();
+        for (int i = 0; i < count; i++) {
+            html.append("<p><strong>要点 ").append(i).append("</strong>：负责核心模块的设计与实现，")
+                    .append("使用 <em>Spring Boot</em>、<em>Redis</em> 和 <em>MongoDB</em> 构建高并发服务，")
+                    .append("接口平均延迟降低 40%。</p><ul><li>编写单元测试与集成测试</li><li>参与代码评审</li></ul>");
+        }
+        return html.toString();
+    }
+
+    public static PersonalInfo personalInfo(String username, int version, int photoBytes) {
+        PersonalInfo info = new PersonalInfo();
+        info.setUsername(username);
+        info.setVersion(version);
+        List<PersonalInfo.Field> fields = new ArrayList<>();
+        String[][] values = {
+                {"名字", "张三"}, {"邮箱", "zhangsan@example.com"}, {"电话", "13800000000"},
+                {"城市", "北京"}, {"GitHub", "https://github.com/zhangsan"}, {"求职意向", "后端开发工程师"}
+        };
+        for (String[] value : values) {
+            PersonalInfo.Field field = new PersonalInfo.Field();
+            field.setLabel(value[0]);
+            field.setValue(value[1]);
+            fields.add(field);
+        }
+        info.setFields(fields);
+        info.setProfilePhoto(dataUrlImage(photoBytes));
+        return info;
+    }
+
+    /**
+     * 项目或工作经历的卡片 Map，键为 project0、project1……
+     */
+    public static Map<String, Object> cards(String prefix, int cards, int imageBytes) {
+        Map<String, Object> data = new LinkedHashMap<>();
+        for (int i = 0; i < cards; i++) {
+            Map<String, Object> card = new LinkedHashMap<>();
+            card.put("name", prefix + " 名称 " + i);
+            card.put("role", "后端负责人");
+            card.put("startDate", "2023-0" + (i % 9 + 1));
+            card.put("endDate", "2024-0" + (i % 9 + 1));
+            card.put("description", htmlParagraphs(6));
+            card.put("logo", dataUrlImage(imageBytes));
+            data.put(prefix + i, card);
+        }
+        return data;
+    }
+
+    public static EducationDocument education(String username, int version, int schools, int logoBytes) {
+        EducationDocument doc = new EducationDocument();
+        doc.setUsername(username);
+        doc.setVersion(version);
+        Map<String, EducationDocument.EducationItem> education = new LinkedHashMap<>();
+        for (int i = 0; i < schools; i++) {
+            EducationDocument.EducationItem item = new EducationDocument.EducationItem();
+            item.setSchool("某某大学 " + i);
+            item.setDegree("学士");
+            item.setLocation("上海");
+            item.setFieldOfStudy("计算机科学与技术");
+            item.setStartDate("2018-09");
+            item.setGraduationYear("2022");
+            item.setGpa("3.8/4.0");
+            item.setLogo(dataUrlImage(logoBytes));
+            List<EducationDocument.Course> courses = new ArrayList<>();
+            for (int c = 0; c < 8; c++) {
+                EducationDocument.Course course = new EducationDocument.Course();
+                course.setName("课程 " + c);
+                courses.add(course);
+            }
+            item.setCourses(courses);
+            List<EducationDocument.Award> awards = new ArrayList<>();
+            EducationDocument.Award award = new EducationDocument.Award();
+            award.setTime("2021");
+            award.setName("国家奖学金");
+            awards.add(award);
+            item.setAwards(awards);
+            education.put("education" + i, item);
+        }
+        doc.setEducation(education);
+        return doc;
+    }
+
+    public static Skill skill(String username, int version) {
+        Skill skill = new Skill();
+        skill.setUsername(username);
+        skill.setVersion(version);
+        skill.setContent(htmlParagraphs(20));
+        return skill;
+    }
+}
@@ -0,0 +1,110 @@
+package com.example.flexresume.benchmark;
+
+import com.example.flexresume.config.SectionStoreConfig;
+import com.example.flexresume.repository.*;
+import com.example.flexresume.service.CacheService;
+import com.example.flexresume.service.SectionStores;
+import com.fasterxml.jackson.databind.ObjectMapper;
+
+import java.lang.reflect.Field;
+import java.lang.reflect.Proxy;
+import java.util.List;
+import java.util.Map;
+import java.util.Optional;
+
+/**
+ * 基准测试用的替身：给字段注入的组件赋值，以及用内存数据代替 MongoDB 仓库
+ */
+public final class Stubs {
+
+    private Stubs() {
+    }
+
+    /**
+     * 给 @Autowired / @Value 字段赋值，沿父类查找字段
+     */
+    public static void inject(Object target, String fieldName, Object value) {
+        Class<?> type = target.getClass();
+        while (type != null) {
+            try {
+                Field field = type.getDeclaredField(fieldName);
+                field.setAccessible(true);
+                field.set(target, value);
+                return;
+            } catch (NoSuchFieldException e) {
+                type = type.getSuperclass();
+            } catch (IllegalAccessException e) {
+                throw new IllegalStateException(e);
+            }
+        }
+        throw new IllegalArgumentException("字段不存在: " + fieldName);
+    }
+
+    public static Object read(Object target, String fieldName) {
+        Class<?> type = target.getClass();
+        while (type != null) {
+            try {
+                Field field = type.getDeclaredField(fieldName);
+                field.setAccessible(true);
+                return field.get(target);
+            } catch (NoSuchFieldException e) {
+                type = type.getSuperclass();
+            } catch (IllegalAccessException e) {
+                throw new IllegalStateException(e);
+            }
+        }
+        throw new IllegalArgumentException("字段不存在: " + fieldName);
+    }
+
+    /**
+     * 内存仓库：findByUsernameAndVersion 返回固定文档，其他方法不支持
+     */
+    @SuppressWarnings("unchecked")
+    public static <R> R repository(Class<R> repositoryType, Object document) {
+        return (R) Proxy.newProxyInstance(repositoryType.getClassLoader(), new Class<?>[]{repositoryType},
+                (proxy, method, args) -> {
+                    if (method.getName().equals("findByUsernameAndVersion")) {
+                        return Optional.ofNullable(document);
+                    }
+                    switch (method.getName()) {
+                        case "hashCode":
+                            return System.identityHashCode(proxy);
+                        case "equals":
+                            return proxy == args[0];
+                        case "toString":
+                            return "Stub" + repositoryType.getSimpleName();
+                        default:
+                            break;
+                    }
+                    throw new UnsupportedOperationException(method.getName());
+                });
+    }
+
+    /**
+     * 按 SectionStoreConfig 注册全部简历模块，数据库由内存仓库代替
+     * @param documents 模块名到 findByUsernameAndVersion 返回的文档，未提供的模块返回空
+     */
+    public static SectionStores sectionStores(CacheService cacheService, ObjectMapper objectMapper,
+                                              Map<String, Object> documents) {
+        SectionStoreConfig config = new SectionStoreConfig();
+        inject(config, "expireMinutes", 10);
+        SectionStores sectionStores = new SectionStores();
+        inject(sectionStores, "stores", List.of(
+                config.personalInfoStore(cacheService, objectMapper,
+                        repository(PersonalInfoRepository.class, documents.get("personalInfo"))),
+                config.educationStore(cacheService, objectMapper,
+                        repository(EducationRepository.class, documents.get("education"))),
+                config.projectStore(cacheService, objectMapper,
+                        repository(ProjectRepository.class, documents.get("projects"))),
+                config.skillStore(cacheService, objectMapper,
+                        repository(SkillRepository.class, documents.get("skills"))),
+                config.workInternshipStore(cacheService, objectMapper,
+                        repository(WorkInternshipRepository.class, documents.get("workinternship"))),
+                config.internshipStore(cacheService, objectMapper,
+                        repository(InternshipRepository.class, documents.get("internship"))),
+                config.workExperienceStore(cacheService, objectMapper,
+                        repository(WorkExperienceRepository.class, documents.get("workexperience")))));
+        sectionStores.init();
+        return sectionStores;
+    }
+}
@@ -0,0 +1,83 @@
+package com.example.flexresume.controller;
+
+import com.example.flexresume.benchmark.ResumePayloads;
+import com.example.flexresume.benchmark.Stubs;
+import com.example.flexresume.model.ProjectDocument;
+import com.example.flexresume.model.WorkInternshipDocument;
+import com.example.flexresume.service.CacheService;
+import com.example.flexresume.service.ResumeReadService;
+import org.openjdk.jmh.annotations.*;
+import org.springframework.http.converter.json.Jackson2ObjectMapperBuilder;
+import org.springframework.scheduling.concurrent.ThreadPoolTaskExecutor;
+
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * 发布时组装快照的开销：全部命中缓存，或全部回源（内存仓库代替 MongoDB）
+ */
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+@State(Scope.Benchmark)
+public class SnapshotBenchmark {
+
+    @Param({"true", "false"})
+    public boolean cacheHit;
+
+    private PublishController publishController;
+    private ThreadPoolTaskExecutor executor;
+
+    @Setup
+    public void setup() {
+        Map<String, Object> documents = new HashMap<>();
+        documents.put("personalInfo", ResumePayloads.personalInfo("user", 1, 150_000));
+        documents.put("education", ResumePayloads.education("user", 1, 3, 10_000));
+        documents.put("projects", new ProjectDocument("user", 1, ResumePayloads.cards("project", 5, 20_000)));
+        documents.put("skills", ResumePayloads.skill("user", 1));
+        documents.put("workinternship", new WorkInternshipDocument("user", 1, ResumePayloads.cards("work", 3, 20_000)));
+
+        // 内存缓存：命中时按key返回文档，未命中时全部返回 null
+        CacheService cacheService = new CacheService() {
+            @Override
+            public List<Object> getMultiFromCache(List<String> keys) {
+                List<Object> values = new ArrayList<>();
+                for (String key : keys) {
+                    values.add(cacheHit ? documents.get(key.split(":")[0]) : null);
+                }
+                return values;
+            }
+        };
+
+        executor = new ThreadPoolTaskExecutor();
+        executor.setCorePoolSize(2);
+        executor.setMaxPoolSize(4);
+        executor.setQueueCapacity(100);
+        executor.initialize();
+
+        ResumeReadService resumeReadService = new ResumeReadService();
+        Stubs.inject(resumeReadService, "cacheService", cacheService);
+        Stubs.inject(resumeReadService, "taskExecutor", executor);
+        Stubs.inject(resumeReadService, "sectionStores",
+                Stubs.sectionStores(cacheService, Jackson2ObjectMapperBuilder.json().build(), documents));
+
+        publishController = new PublishController();
+        Stubs.inject(publishController, "resumeReadService", resumeReadService);
+        Stubs.inject(publishController, "snapshotTimeoutMs", 3000L);
+    }
+
+    @TearDown
+    public void tearDown() {
+        executor.shutdown();
+    }
+
+    @Benchmark
+    public Map<String, Object> buildLatestSnapshot() {
+        return publishController.buildLatestSnapshot("user", 1, new HashMap<>());
+    }
+}
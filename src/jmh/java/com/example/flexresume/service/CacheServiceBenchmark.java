@@ -0,0 +1,73 @@
+package com.example.flexresume.service;
+
+import com.example.flexresume.benchmark.ResumePayloads;
+import com.example.flexresume.benchmark.Stubs;
+import com.github.benmanes.caffeine.cache.Cache;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.openjdk.jmh.annotations.*;
+import org.springframework.data.redis.connection.lettuce.LettuceConnectionFactory;
+import org.springframework.http.converter.json.Jackson2ObjectMapperBuilder;
+
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * CacheService 一级缓存的读取与写入开销（L1 命中时不访问 Redis）
+ * 写入包含按序列化大小计算权重的成本
+ */
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+@State(Scope.Benchmark)
+public class CacheServiceBenchmark {
+
+    private CacheService cacheService;
+    private Cache<String, Object> localCache;
+    private List<String> sectionKeys;
+    private Object personalInfo;
+
+    @Setup
+    @SuppressWarnings("unchecked")
+    public void setup() {
+        cacheService = new CacheService();
+        Stubs.inject(cacheService, "objectMapper", Jackson2ObjectMapperBuilder.json().build());
+        Stubs.inject(cacheService, "connectionFactory", new LettuceConnectionFactory());
+        Stubs.inject(cacheService, "meterRegistry", new SimpleMeterRegistry());
+        Stubs.inject(cacheService, "l1MaxBytes", 64L * 1024 * 1024);
+        Stubs.inject(cacheService, "l1TtlSeconds", 3600L);
+        cacheService.init();
+        localCache = (Cache<String, Object>) Stubs.read(cacheService, "localCache");
+
+        personalInfo = ResumePayloads.personalInfo("user", 1, 150_000);
+        localCache.put(cacheService.buildKey("personalInfo", "user", 1), personalInfo);
+        localCache.put(cacheService.buildKey("education", "user", 1), ResumePayloads.education("user", 1, 3, 10_000));
+        localCache.put(cacheService.buildKey("projects", "user", 1), ResumePayloads.cards("project", 5, 20_000));
+        localCache.put(cacheService.buildKey("skills", "user", 1), ResumePayloads.skill("user", 1));
+        localCache.put(cacheService.buildKey("workinternship", "user", 1), ResumePayloads.cards("work", 3, 20_000));
+        sectionKeys = ResumeReadService.SECTIONS.stream()
+                .map(type -> cacheService.buildKey(type, "user", 1))
+                .toList();
+    }
+
+    @Benchmark
+    public Object l1Hit() {
+        return cacheService.getFromCache(sectionKeys.get(0));
+    }
+
+    @Benchmark
+    public List<Object> l1MultiHit() {
+        return cacheService.getMultiFromCache(sectionKeys);
+    }
+
+    @Benchmark
+    public void l1Put() {
+        localCache.put("personalInfo:bench:1", personalInfo);
+    }
+
+    @Benchmark
+    public String buildKey() {
+        return cacheService.buildKey("personalInfo", "user", 1);
+    }
+}
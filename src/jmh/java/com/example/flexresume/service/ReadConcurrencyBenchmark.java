@@ -0,0 +1,138 @@
+package com.example.flexresume.service;
+
+import com.example.flexresume.benchmark.Stubs;
+import com.github.benmanes.caffeine.cache.Caffeine;
+import org.openjdk.jmh.annotations.*;
+import org.springframework.data.redis.connection.ReactiveRedisConnectionFactory;
+import org.springframework.data.redis.core.HashOperations;
+import org.springframework.data.redis.core.ReactiveHashOperations;
+import org.springframework.data.redis.core.ReactiveRedisTemplate;
+import org.springframework.data.redis.core.RedisTemplate;
+import org.springframework.data.redis.serializer.RedisSerializationContext;
+import org.springframework.data.redis.serializer.RedisSerializer;
+import org.springframework.data.redis.serializer.StringRedisSerializer;
+import org.springframework.http.converter.json.Jackson2ObjectMapperBuilder;
+import reactor.core.publisher.Flux;
+import reactor.core.publisher.Mono;
+
+import java.lang.reflect.Proxy;
+import java.nio.charset.StandardCharsets;
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * 已发布简历读取随并发连接数增加的扩展性：阻塞读取（PublishedResumeCache.get）与非阻塞读取（getReactive）
+ * 每次调用同时发起 connections 个请求并等待全部完成；Redis 以固定延迟（redisLatencyMs）的替身代替，本地缓存关闭，
+ * 阻塞读取在 REQUEST_THREADS 个请求线程上执行（2 核主机上的小线程池），非阻塞读取等待期间不占用线程
+ * 阻塞读取的耗时约为 connections / REQUEST_THREADS 倍的 Redis 延迟，非阻塞读取基本保持为一次延迟
+ */
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MILLISECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(1)
+@State(Scope.Benchmark)
+public class ReadConcurrencyBenchmark {
+
+    private static final int REQUEST_THREADS = 8;
+
+    @Param({"8", "64", "256", "1024"})
+    public int connections;
+
+    @Param({"2"})
+    public long redisLatencyMs;
+
+    private PublishedResumeCache publishedResumeCache;
+    private ExecutorService requestThreads;
+    // 每个请求读取不同的用户，避免命中本地缓存
+    private final AtomicLong users = new AtomicLong();
+
+    @Setup
+    public void setup() {
+        List<byte[]> stored = Arrays.asList("{\"version\":1}".getBytes(StandardCharsets.UTF_8), new byte[]{31, -117},
+                "\"etag\"".getBytes(StandardCharsets.UTF_8));
+
+        // 阻塞替身：调用线程休眠 Redis 延迟
+        RedisTemplate<String, byte[]> bytesRedisTemplate = new RedisTemplate<>() {
+            @Override
+            @SuppressWarnings("unchecked")
+            public <HK, HV> HashOperations<String, HK, HV> opsForHash() {
+                return (HashOperations<String, HK, HV>) Proxy.newProxyInstance(getClass().getClassLoader(),
+                        new Class<?>[]{HashOperations.class}, (proxy, method, args) -> {
+                            Thread.sleep(redisLatencyMs);
+                            return stored;
+                        });
+            }
+        };
+
+        // 非阻塞替身：延迟后在定时线程上返回，不占用调用线程
+        ReactiveRedisConnectionFactory unusedFactory = (ReactiveRedisConnectionFactory) Proxy.newProxyInstance(
+                getClass().getClassLoader(), new Class<?>[]{ReactiveRedisConnectionFactory.class},
+                (proxy, method, args) -> {
+                    throw new UnsupportedOperationException(method.getName());
+                });
+        ReactiveRedisTemplate<String, byte[]> reactiveBytesRedisTemplate = new ReactiveRedisTemplate<>(unusedFactory,
+                RedisSerializationContext.<String, byte[]>newSerializationContext(new StringRedisSerializer())
+                        .value(RedisSerializer.byteArray())
+                        .hashValue(RedisSerializer.byteArray())
+                        .build()) {
+            @Override
+            @SuppressWarnings("unchecked")
+            public <HK, HV> ReactiveHashOperations<String, HK, HV> opsForHash() {
+                return (ReactiveHashOperations<String, HK, HV>) Proxy.newProxyInstance(getClass().getClassLoader(),
+                        new Class<?>[]{ReactiveHashOperations.class},
+                        (proxy, method, args) -> Mono.delay(Duration.ofMillis(redisLatencyMs)).thenReturn(stored));
+            }
+        };
+
+        publishedResumeCache = new PublishedResumeCache();
+        Stubs.inject(publishedResumeCache, "cacheService", new CacheService());
+        Stubs.inject(publishedResumeCache, "bytesRedisTemplate", bytesRedisTemplate);
+        Stubs.inject(publishedResumeCache, "reactiveBytesRedisTemplate", reactiveBytesRedisTemplate);
+        Stubs.inject(publishedResumeCache, "objectMapper", Jackson2ObjectMapperBuilder.json().build());
+        Stubs.inject(publishedResumeCache, "l1MaxBytes", 1L);
+        Stubs.inject(publishedResumeCache, "l1TtlSeconds", 60L);
+        publishedResumeCache.init();
+        // 关闭本地缓存，每个请求都访问 Redis
+        Stubs.inject(publishedResumeCache, "localCache", Caffeine.newBuilder()
+                .maximumSize(0)
+                .executor(Runnable::run)
+                .build());
+
+        requestThreads = Executors.newFixedThreadPool(REQUEST_THREADS);
+    }
+
+    @TearDown
+    public void tearDown() {
+        requestThreads.shutdown();
+    }
+
+    @Benchmark
+    public int blocking() throws Exception {
+        List<Future<PublishedResumeCache.PublishedResume>> responses = new ArrayList<>(connections);
+        for (int i = 0; i < connections; i++) {
+            responses.add(requestThreads.submit(() -> publishedResumeCache.get("user" + users.incrementAndGet())));
+        }
+        int total = 0;
+        for (Future<PublishedResumeCache.PublishedResume> response : responses) {
+            total += response.get().json().length;
+        }
+        return total;
+    }
+
+    @Benchmark
+    public int reactive() {
+        return Flux.range(0, connections)
+                .flatMap(i -> publishedResumeCache.getReactive("user" + users.incrementAndGet()), connections)
+                .map(published -> published.json().length)
+                .reduce(0, Integer::sum)
+                .block();
+    }
+}
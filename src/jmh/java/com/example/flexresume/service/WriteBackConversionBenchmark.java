@@ -0,0 +1,48 @@
+package com.example.flexresume.service;
+
+import com.example.flexresume.benchmark.ResumePayloads;
+import com.example.flexresume.benchmark.Stubs;
+import com.example.flexresume.model.ProjectDocument;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import org.openjdk.jmh.annotations.*;
+import org.springframework.http.converter.json.Jackson2ObjectMapperBuilder;
+
+import java.util.Map;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * 写回时把缓存数据转换为待写入文档的开销（SectionStore.toDocument）
+ */
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+@State(Scope.Benchmark)
+public class WriteBackConversionBenchmark {
+
+    @Param({"personalInfo", "education", "projects", "skills"})
+    public String type;
+
+    private WriteBackScheduler scheduler;
+    private Object cachedData;
+
+    @Setup
+    public void setup() {
+        scheduler = new WriteBackScheduler();
+        ObjectMapper objectMapper = Jackson2ObjectMapperBuilder.json().build();
+        Stubs.inject(scheduler, "objectMapper", objectMapper);
+        Stubs.inject(scheduler, "sectionStores", Stubs.sectionStores(null, objectMapper, Map.of()));
+        cachedData = switch (type) {
+            case "personalInfo" -> ResumePayloads.personalInfo("user", 1, 150_000);
+            case "education" -> ResumePayloads.education("user", 1, 3, 10_000);
+            case "projects" -> new ProjectDocument("user", 1, ResumePayloads.cards("project", 5, 20_000));
+            default -> ResumePayloads.skill("user", 1);
+        };
+    }
+
+    @Benchmark
+    public Object toDocument() {
+        return scheduler.toDocument(type, "user", 1, cachedData);
+    }
+}
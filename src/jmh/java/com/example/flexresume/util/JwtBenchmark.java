@@ -0,0 +1,65 @@
+package com.example.flexresume.util;
+
+import com.example.flexresume.benchmark.Stubs;
+import com.github.benmanes.caffeine.cache.Caffeine;
+import io.jsonwebtoken.Jwts;
+import org.openjdk.jmh.annotations.*;
+
+import java.util.concurrent.TimeUnit;
+
+/**
+ * 每个请求验证 JWT 的开销
+ * legacyValidateThenParse 为原来的做法：每次用字符串密钥重新构建解析器，先验证再解析一次取用户ID；
+ * verifyUncached 为关闭已验证 token 缓存时的 verify（预先构建的密钥和解析器，一次解析），verifyCached 为命中缓存
+ */
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+@State(Scope.Benchmark)
+public class JwtBenchmark {
+
+    private JwtUtil jwtUtil;
+    private JwtUtil uncachedJwtUtil;
+    private String secret;
+    private String token;
+
+    @Setup
+    public void setup() {
+        jwtUtil = new JwtUtil();
+        Stubs.inject(jwtUtil, "cacheMaxSize", 10_000L);
+        Stubs.inject(jwtUtil, "cacheTtlSeconds", 300L);
+        jwtUtil.init();
+        secret = (String) Stubs.read(jwtUtil, "SECRET");
+        token = jwtUtil.generateToken("bench-user");
+        jwtUtil.verify(token);
+
+        uncachedJwtUtil = new JwtUtil();
+        Stubs.inject(uncachedJwtUtil, "cacheMaxSize", 10_000L);
+        Stubs.inject(uncachedJwtUtil, "cacheTtlSeconds", 300L);
+        uncachedJwtUtil.init();
+        // 关闭已验证 token 缓存，每次都解析并验证签名
+        Stubs.inject(uncachedJwtUtil, "verifiedTokens", Caffeine.newBuilder()
+                .maximumSize(0)
+                .executor(Runnable::run)
+                .build());
+    }
+
+    @Benchmark
+    @SuppressWarnings("deprecation")
+    public String legacyValidateThenParse() {
+        Jwts.parser().setSigningKey(secret).parseClaimsJws(token);
+        return Jwts.parser().setSigningKey(secret).parseClaimsJws(token).getBody().getSubject();
+    }
+
+    @Benchmark
+    public String verifyUncached() {
+        return uncachedJwtUtil.verify(token);
+    }
+
+    @Benchmark
+    public String verifyCached() {
+        return jwtUtil.verify(token);
+    }
+}
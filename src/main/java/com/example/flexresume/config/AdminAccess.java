@@ -0,0 +1,33 @@
+package com.example.flexresume.config;
+
+import jakarta.servlet.http.HttpServletRequest;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Component;
+
+import java.util.List;
+
+/**
+ * 管理员校验：登录用户的 id 在 admin.user-ids 中才可访问全量导出、集合列表和缓存统计
+ * 未配置管理员时所有请求都被拒绝
+ */
+@Component
+public class AdminAccess {
+
+    @Value("${admin.user-ids:}")
+    private List<String> adminUserIds;
+
+    /**
+     * @return 允许访问时为 0，未登录为 401，已登录但不是管理员为 403
+     */
+    public int deniedStatus(HttpServletRequest request) {
+        String authenticatedUserId = (String) request.getAttribute("userId");
+        if (authenticatedUserId == null) {
+            return 401;
+        }
+        return adminUserIds.contains(authenticatedUserId) ? 0 : 403;
+    }
+
+    public static String message(int status) {
+        return status == 401 ? "未授权访问" : "需要管理员权限";
+    }
+}
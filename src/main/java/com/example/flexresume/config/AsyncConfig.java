@@ -1,19 +1,29 @@
 package com.example.flexresume.config;
 
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnThreading;
+import org.springframework.boot.autoconfigure.thread.Threading;
 import org.springframework.context.annotation.Bean;
 import org.springframework.context.annotation.Configuration;
+import org.springframework.core.task.SimpleAsyncTaskExecutor;
 import org.springframework.scheduling.annotation.EnableAsync;
 import org.springframework.scheduling.annotation.EnableScheduling;
 import org.springframework.scheduling.concurrent.ThreadPoolTaskExecutor;
 
 import java.util.concurrent.Executor;
 
+/**
+ * 异步任务执行器
+ * spring.threads.virtual.enabled=true 且运行在 Java 21+ 时使用虚拟线程（Tomcat 请求线程和定时任务由 Spring Boot 一并切换），
+ * 否则使用固定大小的平台线程池
+ */
 @Configuration
 @EnableAsync
 @EnableScheduling
 public class AsyncConfig {
 
     @Bean(name = "taskExecutor")
+    @ConditionalOnThreading(Threading.PLATFORM)
     public Executor taskExecutor() {
         ThreadPoolTaskExecutor executor = new ThreadPoolTaskExecutor();
         // 适合2核4GB的配置
@@ -26,4 +36,17 @@ public class AsyncConfig {
         executor.initialize();
         return executor;
     }
-} 
\ No newline at end of file
+
+    /**
+     * 每个任务一个虚拟线程，不排队也不回落到调用方线程；并发上限防止任务无限堆积，
+     * 对 Redis、MongoDB 的并发另由 redis.max-concurrency 和 mongo.max-pool-size 限制
+     */
+    @Bean(name = "taskExecutor")
+    @ConditionalOnThreading(Threading.VIRTUAL)
+    public Executor virtualTaskExecutor(@Value("${async.virtual.max-concurrency:256}") int maxConcurrency) {
+        SimpleAsyncTaskExecutor executor = new SimpleAsyncTaskExecutor("Async-");
+        executor.setVirtualThreads(true);
+        executor.setConcurrencyLimit(maxConcurrency);
+        return executor;
+    }
+}
@@ -0,0 +1,119 @@
+package com.example.flexresume.config;
+
+import org.springframework.dao.DataAccessException;
+import org.springframework.data.redis.RedisConnectionFailureException;
+import org.springframework.data.redis.connection.RedisClusterConnection;
+import org.springframework.data.redis.connection.RedisConnection;
+import org.springframework.data.redis.connection.RedisConnectionFactory;
+import org.springframework.data.redis.connection.RedisSentinelConnection;
+import org.springframework.util.ClassUtils;
+
+import java.lang.reflect.InvocationTargetException;
+import java.lang.reflect.Proxy;
+import java.util.concurrent.Semaphore;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicBoolean;
+
+/**
+ * 限制同时使用中的 Redis 连接数
+ * 虚拟线程模式下请求线程数量不受线程池限制，由这里限制同时访问 Redis 的操作数，
+ * 超出时等待，等待超时抛出 RedisConnectionFailureException。
+ * 模板每次操作获取一个连接并在结束时关闭，关闭时归还许可
+ */
+public class ConcurrencyLimitedRedisConnectionFactory implements RedisConnectionFactory {
+
+    private final RedisConnectionFactory delegate;
+    private final Semaphore permits;
+    private final int maxConcurrency;
+    private final long acquireTimeoutMs;
+
+    public ConcurrencyLimitedRedisConnectionFactory(RedisConnectionFactory delegate, int maxConcurrency, long acquireTimeoutMs) {
+        this.delegate = delegate;
+        this.permits = new Semaphore(maxConcurrency, true);
+        this.maxConcurrency = maxConcurrency;
+        this.acquireTimeoutMs = acquireTimeoutMs;
+    }
+
+    @Override
+    public RedisConnection getConnection() {
+        acquire();
+        try {
+            return releaseOnClose(delegate.getConnection(), RedisConnection.class);
+        } catch (RuntimeException e) {
+            permits.release();
+            throw e;
+        }
+    }
+
+    @Override
+    public RedisClusterConnection getClusterConnection() {
+        acquire();
+        try {
+            return releaseOnClose(delegate.getClusterConnection(), RedisClusterConnection.class);
+        } catch (RuntimeException e) {
+            permits.release();
+            throw e;
+        }
+    }
+
+    @Override
+    public boolean getConvertPipelineAndTxResults() {
+        return delegate.getConvertPipelineAndTxResults();
+    }
+
+    @Override
+    public RedisSentinelConnection getSentinelConnection() {
+        return delegate.getSentinelConnection();
+    }
+
+    @Override
+    public DataAccessException translateExceptionIfPossible(RuntimeException ex) {
+        return delegate.translateExceptionIfPossible(ex);
+    }
+
+    /**
+     * 当前使用中的连接数
+     */
+    public int getActiveCount() {
+        return maxConcurrency - permits.availablePermits();
+    }
+
+    private void acquire() {
+        try {
+            if (!permits.tryAcquire(acquireTimeoutMs, TimeUnit.MILLISECONDS)) {
+                throw new RedisConnectionFailureException("Redis 并发访问已达上限 " + maxConcurrency
+                        + "，等待 " + acquireTimeoutMs + "ms 后仍无可用许可");
+            }
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            throw new RedisConnectionFailureException("等待 Redis 并发许可时被中断", e);
+        }
+    }
+
+    /**
+     * 包装连接，第一次 close 时归还许可
+     */
+    @SuppressWarnings("unchecked")
+    private <C extends RedisConnection> C releaseOnClose(C connection, Class<C> type) {
+        AtomicBoolean released = new AtomicBoolean();
+        Class<?>[] interfaces = ClassUtils.getAllInterfacesForClass(connection.getClass(), type.getClassLoader());
+        return (C) Proxy.newProxyInstance(type.getClassLoader(), interfaces, (proxy, method, args) -> {
+            if (method.getName().equals("close") && method.getParameterCount() == 0) {
+                try {
+                    return method.invoke(connection);
+                } catch (InvocationTargetException e) {
+                    throw e.getTargetException();
+                } finally {
+                    if (released.compareAndSet(false, true)) {
+                        permits.release();
+                    }
+                }
+            }
+            try {
+                return method.invoke(connection, args);
+            } catch (InvocationTargetException e) {
+                throw e.getTargetException();
+            }
+        });
+    }
+}
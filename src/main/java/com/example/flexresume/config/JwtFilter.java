@@ -18,8 +18,9 @@ public class JwtFilter implements Filter {
         String auth = req.getHeader("Authorization");
         if (auth != null && auth.startsWith("Bearer ")) {
             String token = auth.substring(7);
-            if (jwtUtil.validateToken(token)) {
-                String userId = jwtUtil.getUserIdFromToken(token);
+            // 一次验证同时取出用户ID，最近验证过的 token 不再重复验证签名
+            String userId = jwtUtil.verify(token);
+            if (userId != null) {
                 req.setAttribute("userId", userId);
             }
         }
@@ -0,0 +1,25 @@
+package com.example.flexresume.config;
+
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.autoconfigure.mongo.MongoClientSettingsBuilderCustomizer;
+import org.springframework.context.annotation.Bean;
+import org.springframework.context.annotation.Configuration;
+
+import java.util.concurrent.TimeUnit;
+
+@Configuration
+public class MongoConfig {
+
+    /**
+     * 限制 MongoDB 连接池大小：连接用尽时请求在池中等待，超时抛出 MongoTimeoutException，
+     * 虚拟线程模式下以此限制同时访问数据库的操作数
+     */
+    @Bean
+    public MongoClientSettingsBuilderCustomizer connectionPoolLimits(
+            @Value("${mongo.max-pool-size:50}") int maxPoolSize,
+            @Value("${mongo.max-wait-ms:2000}") long maxWaitMs) {
+        return builder -> builder.applyToConnectionPoolSettings(pool -> pool
+                .maxSize(maxPoolSize)
+                .maxWaitTime(maxWaitMs, TimeUnit.MILLISECONDS));
+    }
+}
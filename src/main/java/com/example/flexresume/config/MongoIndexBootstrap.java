@@ -0,0 +1,445 @@
+package com.example.flexresume.config;
+
+import com.mongodb.MongoCommandException;
+import com.mongodb.client.MongoClient;
+import com.mongodb.connection.ClusterDescription;
+import com.mongodb.connection.ServerDescription;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.Timer;
+import org.bson.Document;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.SpringApplication;
+import org.springframework.context.ApplicationContext;
+import org.springframework.context.SmartLifecycle;
+import org.springframework.dao.DataAccessException;
+import org.springframework.dao.DuplicateKeyException;
+import org.springframework.data.mapping.PropertyPath;
+import org.springframework.data.mongodb.core.MongoTemplate;
+import org.springframework.data.mongodb.core.index.IndexDefinition;
+import org.springframework.data.mongodb.core.index.IndexResolver;
+import org.springframework.data.mongodb.core.mapping.MongoMappingContext;
+import org.springframework.data.mongodb.core.mapping.MongoPersistentEntity;
+import org.springframework.data.mongodb.core.mapping.MongoPersistentProperty;
+import org.springframework.data.repository.core.RepositoryInformation;
+import org.springframework.data.repository.query.parser.Part;
+import org.springframework.data.repository.query.parser.PartTree;
+import org.springframework.data.repository.support.Repositories;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Component;
+
+import java.lang.reflect.Method;
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.Iterator;
+import java.util.List;
+import java.util.Map;
+import java.util.Objects;
+import java.util.Set;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * 启动时创建简历各集合的索引，并检查仓库查询的执行计划
+ * 索引来自实体类上的 @CompoundIndex / @Indexed（spring.data.mongodb.auto-index-creation 默认关闭，注解本身不会建索引），
+ * 已存在的索引不会重建；每个索引的创建耗时输出到日志和 mongo.index.build 指标
+ * 已有相同字段的索引但选项不同（例如因重复数据退化为普通索引的唯一索引）时只告警并跳过，不影响其余索引
+ * 之后对每个仓库的派生查询方法执行 explain，获胜计划为全表扫描（COLLSCAN）时按 mongo.indexes.explain-check 告警或阻止启动
+ * 数据库不可用时不阻止启动，由定时任务稍后重试；重试时检查结果为 fail 则停止应用，与启动时的行为一致
+ */
+@Component
+public class MongoIndexBootstrap implements SmartLifecycle {
+
+    // 低于写回启动恢复的阶段（Integer.MAX_VALUE - 4096）：恢复写回的 upsert 开始前索引已就绪
+    private static final int PHASE = Integer.MAX_VALUE - 8192;
+
+    private static final String COLLSCAN = "COLLSCAN";
+
+    // createIndexes 的 IndexOptionsConflict、IndexKeySpecsConflict：同名或同字段的索引已存在但定义不同
+    private static final Set<Integer> INDEX_CONFLICT_CODES = Set.of(85, 86);
+
+    @Autowired
+    private MongoTemplate mongoTemplate;
+
+    @Autowired
+    private MongoMappingContext mappingContext;
+
+    @Autowired
+    private MongoClient mongoClient;
+
+    @Autowired
+    private ApplicationContext applicationContext;
+
+    @Autowired
+    private MeterRegistry meterRegistry;
+
+    @Value("${mongo.indexes.bootstrap:true}")
+    private boolean enabled;
+
+    // warn：全表扫描时输出警告；fail：阻止启动；off：不检查
+    @Value("${mongo.indexes.explain-check:warn}")
+    private String explainCheck;
+
+    // 启动时等待可写节点的最长时间，超时视为数据库不可用
+    @Value("${mongo.indexes.connect-timeout-ms:5000}")
+    private long connectTimeoutMs;
+
+    private volatile boolean running;
+
+    // 索引创建和检查已完成，定时重试不再执行
+    private volatile boolean completed;
+
+    @Override
+    public void start() {
+        running = true;
+        if (!enabled) {
+            completed = true;
+            return;
+        }
+        if (!awaitWritableServer()) {
+            System.err.println("MongoDB 不可用，跳过启动时的索引创建，稍后重试");
+            return;
+        }
+        bootstrap(true);
+    }
+
+    /**
+     * 启动时数据库不可用或创建失败的，定时重试
+     */
+    @Scheduled(initialDelayString = "${mongo.indexes.retry-interval-ms:60000}",
+            fixedDelayString = "${mongo.indexes.retry-interval-ms:60000}")
+    public void retryBootstrap() {
+        if (completed || !running) {
+            return;
+        }
+        try {
+            bootstrap(false);
+        } catch (Exception e) {
+            System.err.println("索引创建重试失败: " + e.getMessage());
+        }
+    }
+
+    /**
+     * @param startup 启动时调用：检查结果为 fail 时抛出异常阻止启动；定时重试时则停止已启动的应用
+     */
+    private synchronized void bootstrap(boolean startup) {
+        if (completed) {
+            return;
+        }
+        long start = System.currentTimeMillis();
+        try {
+            int created = ensureIndexes();
+            long elapsed = System.currentTimeMillis() - start;
+            Timer.builder("mongo.index.bootstrap")
+                    .description("启动时创建全部索引的耗时")
+                    .register(meterRegistry)
+                    .record(elapsed, TimeUnit.MILLISECONDS);
+            System.out.println("索引就绪：共 " + created + " 个，耗时 " + elapsed + "ms");
+        } catch (RuntimeException e) {
+            System.err.println("索引创建失败，耗时 " + (System.currentTimeMillis() - start) + "ms, 错误: " + e.getMessage());
+            return;
+        }
+        completed = true;
+        if ("off".equalsIgnoreCase(explainCheck)) {
+            return;
+        }
+        String collectionScans = checkQueryPlans();
+        if (collectionScans == null) {
+            return;
+        }
+        String message = "以下查询为全表扫描（COLLSCAN）: " + collectionScans;
+        if (!"fail".equalsIgnoreCase(explainCheck)) {
+            System.err.println("警告: " + message);
+        } else if (startup) {
+            throw new IllegalStateException(message);
+        } else {
+            System.err.println("错误: " + message + "，mongo.indexes.explain-check=fail，停止应用");
+            // 在单独的线程上关闭，避免在定时任务线程内等待调度器自身停止
+            new Thread(() -> System.exit(SpringApplication.exit(applicationContext, () -> 1)),
+                    "index-check-exit").start();
+        }
+    }
+
+    /**
+     * 等待集群出现可写节点；全部节点连接失败或超时时返回 false
+     */
+    private boolean awaitWritableServer() {
+        long deadline = System.currentTimeMillis() + connectTimeoutMs;
+        while (true) {
+            ClusterDescription cluster = mongoClient.getClusterDescription();
+            if (cluster.hasWritableServer()) {
+                return true;
+            }
+            List<ServerDescription> servers = cluster.getServerDescriptions();
+            boolean allFailed = !servers.isEmpty() && servers.stream().allMatch(server -> server.getException() != null);
+            if (allFailed || System.currentTimeMillis() >= deadline) {
+                return false;
+            }
+            try {
+                Thread.sleep(100);
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+                return false;
+            }
+        }
+    }
+
+    /**
+     * 按实体类上的注解创建索引，单个索引冲突时跳过并继续其余索引和集合
+     * @return 就绪的索引数量
+     */
+    private int ensureIndexes() {
+        IndexResolver resolver = IndexResolver.create(mappingContext);
+        int count = 0;
+        for (MongoPersistentEntity<?> entity : documentEntities()) {
+            List<Document> existing = existingIndexes(entity.getCollection());
+            for (IndexDefinition index : resolver.resolveIndexFor(entity.getTypeInformation())) {
+                if (ensureIndex(entity, index, existing)) {
+                    count++;
+                }
+            }
+        }
+        return count;
+    }
+
+    private List<Document> existingIndexes(String collection) {
+        List<Document> indexes = new ArrayList<>();
+        if (mongoTemplate.collectionExists(collection)) {
+            mongoTemplate.getCollection(collection).listIndexes().into(indexes);
+        }
+        return indexes;
+    }
+
+    /**
+     * @return 索引已就绪；已有相同字段但选项不同的索引或定义冲突时返回 false
+     */
+    private boolean ensureIndex(MongoPersistentEntity<?> entity, IndexDefinition index, List<Document> existing) {
+        String collection = entity.getCollection();
+        Document keys = index.getIndexKeys();
+        Document sameKeys = existing.stream()
+                .filter(candidate -> sameKeyPattern(candidate.get("key", Document.class), keys))
+                .findFirst()
+                .orElse(null);
+        if (sameKeys != null && isUnique(sameKeys) != isUnique(index.getIndexOptions())) {
+            // 例如之前因重复数据退化为普通索引的唯一索引：查询仍可走该索引，重复数据清理并删除该索引后下次启动重建
+            System.err.println("警告: 集合 " + collection + " 已有索引 " + sameKeys.getString("name") + " " +
+                    keys.toJson() + "，unique 与定义不一致，跳过");
+            return false;
+        }
+        long start = System.nanoTime();
+        try {
+            createIndex(entity, index);
+        } catch (DataAccessException e) {
+            if (!isIndexConflict(e)) {
+                throw e;
+            }
+            System.err.println("警告: 集合 " + collection + " 索引 " + keys.toJson() + " 与已有索引冲突，跳过: " +
+                    e.getMostSpecificCause().getMessage());
+            return false;
+        }
+        long elapsed = System.nanoTime() - start;
+        Timer.builder("mongo.index.build")
+                .description("创建单个索引的耗时（索引已存在时接近 0）")
+                .tag("collection", collection)
+                .register(meterRegistry)
+                .record(elapsed, TimeUnit.NANOSECONDS);
+        System.out.println("集合 " + collection + " 索引 " + keys.toJson() +
+                " 就绪，耗时 " + TimeUnit.NANOSECONDS.toMillis(elapsed) + "ms");
+        return true;
+    }
+
+    private void createIndex(MongoPersistentEntity<?> entity, IndexDefinition index) {
+        try {
+            mongoTemplate.indexOps(entity.getType()).ensureIndex(index);
+        } catch (DuplicateKeyException e) {
+            // 已有重复数据时唯一索引无法创建，先建普通索引保证查询走索引，重复数据需人工清理
+            System.err.println("警告: 集合 " + entity.getCollection() + " 存在重复数据，无法创建唯一索引 " +
+                    index.getIndexKeys().toJson() + "，改为创建普通索引");
+            mongoTemplate.indexOps(entity.getType()).ensureIndex(nonUnique(index));
+        }
+    }
+
+    /**
+     * 字段及顺序相同（复合索引的字段顺序有意义），方向值按数值比较（旧索引可能存为 1.0）
+     */
+    private static boolean sameKeyPattern(Document existing, Document keys) {
+        if (existing == null || existing.size() != keys.size()) {
+            return false;
+        }
+        Iterator<Map.Entry<String, Object>> left = existing.entrySet().iterator();
+        for (Map.Entry<String, Object> right : keys.entrySet()) {
+            Map.Entry<String, Object> entry = left.next();
+            if (!entry.getKey().equals(right.getKey()) || !sameDirection(entry.getValue(), right.getValue())) {
+                return false;
+            }
+        }
+        return true;
+    }
+
+    private static boolean sameDirection(Object left, Object right) {
+        if (left instanceof Number a && right instanceof Number b) {
+            return a.doubleValue() == b.doubleValue();
+        }
+        return Objects.equals(left, right);
+    }
+
+    private static boolean isUnique(Document options) {
+        return Boolean.TRUE.equals(options.get("unique"));
+    }
+
+    private static boolean isIndexConflict(DataAccessException e) {
+        for (Throwable cause = e; cause != null; cause = cause.getCause()) {
+            if (cause instanceof MongoCommandException command && INDEX_CONFLICT_CODES.contains(command.getErrorCode())) {
+                return true;
+            }
+        }
+        return false;
+    }
+
+    private static IndexDefinition nonUnique(IndexDefinition index) {
+        Document options = new Document(index.getIndexOptions());
+        options.remove("unique");
+        return new IndexDefinition() {
+            @Override
+            public Document getIndexKeys() {
+                return index.getIndexKeys();
+            }
+
+            @Override
+            public Document getIndexOptions() {
+                return options;
+            }
+        };
+    }
+
+    private List<MongoPersistentEntity<?>> documentEntities() {
+        List<MongoPersistentEntity<?>> entities = new ArrayList<>();
+        for (MongoPersistentEntity<?> entity : mappingContext.getPersistentEntities()) {
+            if (entity.isAnnotationPresent(org.springframework.data.mongodb.core.mapping.Document.class)) {
+                entities.add(entity);
+            }
+        }
+        return entities;
+    }
+
+    /**
+     * 对各仓库的派生查询（如 findByUsernameAndVersion）以示例参数执行 explain，
+     * 获胜计划中出现 COLLSCAN 说明该查询没有可用索引
+     * @return 全表扫描的查询，全部使用索引时为 null
+     */
+    private String checkQueryPlans() {
+        Repositories repositories = new Repositories(applicationContext);
+        List<String> collectionScans = new ArrayList<>();
+        for (Class<?> domainType : repositories) {
+            MongoPersistentEntity<?> entity = mappingContext.getPersistentEntity(domainType);
+            if (entity == null) {
+                continue;
+            }
+            RepositoryInformation information = repositories.getRequiredRepositoryInformation(domainType);
+            for (Method method : information.getQueryMethods()) {
+                Document filter = sampleFilter(method, entity);
+                if (filter == null) {
+                    continue;
+                }
+                try {
+                    if (isCollectionScan(explain(entity.getCollection(), filter))) {
+                        collectionScans.add(information.getRepositoryInterface().getSimpleName() + "." +
+                                method.getName() + " " + filter.toJson());
+                    }
+                } catch (RuntimeException e) {
+                    System.err.println("查询计划检查失败: " + method.getName() + ", 错误: " + e.getMessage());
+                }
+            }
+        }
+        if (collectionScans.isEmpty()) {
+            System.out.println("查询计划检查通过：仓库查询均使用索引");
+            return null;
+        }
+        return collectionScans.toString();
+    }
+
+    /**
+     * 由方法名解析出的查询条件，参数以示例值代替；非派生查询或含等值以外的条件时返回 null
+     */
+    private Document sampleFilter(Method method, MongoPersistentEntity<?> entity) {
+        PartTree tree;
+        try {
+            tree = new PartTree(method.getName(), entity.getType());
+        } catch (RuntimeException e) {
+            return null;
+        }
+        Document filter = new Document();
+        for (PartTree.OrPart orPart : tree) {
+            for (Part part : orPart) {
+                if (part.getType() != Part.Type.SIMPLE_PROPERTY) {
+                    return null;
+                }
+                filter.put(fieldName(part.getProperty(), entity), sampleValue(part.getProperty().getLeafType()));
+            }
+            // 只检查第一组 Or 条件
+            break;
+        }
+        return filter.isEmpty() ? null : filter;
+    }
+
+    private static String fieldName(PropertyPath path, MongoPersistentEntity<?> entity) {
+        MongoPersistentProperty property = entity.getPersistentProperty(path.getSegment());
+        String name = property != null ? property.getFieldName() : path.getSegment();
+        return path.hasNext() ? name + "." + path.next().toDotPath() : name;
+    }
+
+    private static Object sampleValue(Class<?> type) {
+        if (type == int.class || type == Integer.class || type == long.class || type == Long.class) {
+            return 1;
+        }
+        return "explain";
+    }
+
+    private Document explain(String collection, Document filter) {
+        Document command = new Document("explain", new Document("find", collection).append("filter", filter))
+                .append("verbosity", "queryPlanner");
+        return mongoTemplate.getDb().runCommand(command);
+    }
+
+    private static boolean isCollectionScan(Document explainResult) {
+        Object queryPlanner = explainResult.get("queryPlanner");
+        return queryPlanner instanceof Document planner && containsStage(planner.get("winningPlan"), COLLSCAN);
+    }
+
+    /**
+     * 递归查找执行计划中的阶段（inputStage、inputStages，以及新版本的 queryPlan 嵌套）
+     */
+    private static boolean containsStage(Object plan, String stage) {
+        if (plan instanceof Map<?, ?> node) {
+            if (stage.equals(node.get("stage"))) {
+                return true;
+            }
+            for (Object child : node.values()) {
+                if (containsStage(child, stage)) {
+                    return true;
+                }
+            }
+        } else if (plan instanceof Collection<?> children) {
+            for (Object child : children) {
+                if (containsStage(child, stage)) {
+                    return true;
+                }
+            }
+        }
+        return false;
+    }
+
+    @Override
+    public void stop() {
+        running = false;
+    }
+
+    @Override
+    public boolean isRunning() {
+        return running;
+    }
+
+    @Override
+    public int getPhase() {
+        return PHASE;
+    }
+}
@@ -1,13 +1,20 @@
 package com.example.flexresume.config;
 
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.binder.MeterBinder;
+import org.springframework.beans.factory.annotation.Value;
 import org.springframework.cache.annotation.EnableCaching;
 import org.springframework.context.annotation.Bean;
 import org.springframework.context.annotation.Configuration;
 import org.springframework.data.redis.cache.RedisCacheConfiguration;
 import org.springframework.data.redis.cache.RedisCacheManager;
+import org.springframework.data.redis.connection.ReactiveRedisConnectionFactory;
 import org.springframework.data.redis.connection.RedisConnectionFactory;
+import org.springframework.data.redis.core.ReactiveRedisTemplate;
 import org.springframework.data.redis.core.RedisTemplate;
-import org.springframework.data.redis.serializer.GenericJackson2JsonRedisSerializer;
+import org.springframework.data.redis.core.StringRedisTemplate;
+import org.springframework.data.redis.serializer.RedisSerializationContext;
+import org.springframework.data.redis.serializer.RedisSerializer;
 import org.springframework.data.redis.serializer.StringRedisSerializer;
 
 import java.time.Duration;
@@ -18,32 +25,116 @@ import java.util.Map;
 @EnableCaching
 public class RedisConfig {
 
+    /**
+     * Redis 值编解码器：cache.codec=smile 时使用二进制编码，json 时写入文本 JSON，两种模式都能读取旧数据
+     */
     @Bean
-    public RedisTemplate<String, Object> redisTemplate(RedisConnectionFactory connectionFactory) {
+    public ResumeValueCodec resumeValueCodec(
+            @Value("${cache.codec:smile}") String codec,
+            @Value("${cache.codec.compress-threshold-bytes:4096}") int compressThreshold) {
+        return new ResumeValueCodec("smile".equalsIgnoreCase(codec), compressThreshold);
+    }
+
+    // 同时访问 Redis 的操作数上限，以及超出时的最长等待时间
+    @Value("${redis.max-concurrency:64}")
+    private int redisMaxConcurrency;
+
+    @Value("${redis.acquire-timeout-ms:2000}")
+    private long redisAcquireTimeoutMs;
+
+    private ConcurrencyLimitedRedisConnectionFactory limitedConnectionFactory;
+
+    /**
+     * 各模板共用的限流连接工厂；不注册为 Bean，订阅容器等长期占用连接的组件仍使用原始连接工厂
+     */
+    private synchronized ConcurrencyLimitedRedisConnectionFactory limited(RedisConnectionFactory connectionFactory) {
+        if (limitedConnectionFactory == null) {
+            limitedConnectionFactory = new ConcurrencyLimitedRedisConnectionFactory(
+                    connectionFactory, redisMaxConcurrency, redisAcquireTimeoutMs);
+        }
+        return limitedConnectionFactory;
+    }
+
+    @Bean
+    public RedisTemplate<String, Object> redisTemplate(RedisConnectionFactory connectionFactory, ResumeValueCodec resumeValueCodec) {
         RedisTemplate<String, Object> template = new RedisTemplate<>();
-        template.setConnectionFactory(connectionFactory);
+        template.setConnectionFactory(limited(connectionFactory));
         
         // 使用String序列化器作为key序列化器
         template.setKeySerializer(new StringRedisSerializer());
         template.setHashKeySerializer(new StringRedisSerializer());
         
-        // 使用JSON序列化器作为value序列化器
-        template.setValueSerializer(new GenericJackson2JsonRedisSerializer());
-        template.setHashValueSerializer(new GenericJackson2JsonRedisSerializer());
+        // 使用可切换的编解码器作为value序列化器
+        template.setValueSerializer(resumeValueCodec);
+        template.setHashValueSerializer(resumeValueCodec);
         
         template.afterPropertiesSet();
         return template;
     }
 
+    /**
+     * 原始字节模板：存放已序列化、已压缩的发布简历，读取时不经过 JSON 反序列化
+     */
+    @Bean
+    public RedisTemplate<String, byte[]> bytesRedisTemplate(RedisConnectionFactory connectionFactory) {
+        RedisTemplate<String, byte[]> template = new RedisTemplate<>();
+        template.setConnectionFactory(limited(connectionFactory));
+        template.setKeySerializer(new StringRedisSerializer());
+        template.setHashKeySerializer(new StringRedisSerializer());
+        template.setValueSerializer(RedisSerializer.byteArray());
+        template.setHashValueSerializer(RedisSerializer.byteArray());
+        template.afterPropertiesSet();
+        return template;
+    }
+
+    /**
+     * 非阻塞读取路径使用的响应式模板，与 redisTemplate 使用相同的编解码器
+     * Lettuce 的响应式命令复用共享连接，不占用调用线程，因此不经过 redis.max-concurrency 限流
+     */
+    @Bean
+    public ReactiveRedisTemplate<String, Object> reactiveRedisTemplate(ReactiveRedisConnectionFactory connectionFactory,
+                                                                       ResumeValueCodec resumeValueCodec) {
+        return new ReactiveRedisTemplate<>(connectionFactory, RedisSerializationContext
+                .<String, Object>newSerializationContext(new StringRedisSerializer())
+                .value(resumeValueCodec)
+                .hashValue(resumeValueCodec)
+                .build());
+    }
+
+    /**
+     * 发布简历字节的响应式模板，对应 bytesRedisTemplate
+     */
+    @Bean
+    public ReactiveRedisTemplate<String, byte[]> reactiveBytesRedisTemplate(ReactiveRedisConnectionFactory connectionFactory) {
+        return new ReactiveRedisTemplate<>(connectionFactory, RedisSerializationContext
+                .<String, byte[]>newSerializationContext(new StringRedisSerializer())
+                .value(RedisSerializer.byteArray())
+                .hashValue(RedisSerializer.byteArray())
+                .build());
+    }
+
+    @Bean
+    public MeterBinder redisConcurrencyMetrics(RedisConnectionFactory connectionFactory) {
+        return registry -> Gauge.builder("redis.connections.active", limited(connectionFactory),
+                        ConcurrencyLimitedRedisConnectionFactory::getActiveCount)
+                .description("使用中的 Redis 连接数（受 redis.max-concurrency 限制）")
+                .register(registry);
+    }
+
+    @Bean
+    public StringRedisTemplate stringRedisTemplate(RedisConnectionFactory connectionFactory) {
+        return new StringRedisTemplate(limited(connectionFactory));
+    }
+
     @Bean
-    public RedisCacheManager cacheManager(RedisConnectionFactory connectionFactory) {
+    public RedisCacheManager cacheManager(RedisConnectionFactory connectionFactory, ResumeValueCodec resumeValueCodec) {
         // 默认缓存配置 - 5分钟过期
         RedisCacheConfiguration defaultConfig = RedisCacheConfiguration.defaultCacheConfig()
                 .entryTtl(Duration.ofMinutes(5))
                 .serializeKeysWith(org.springframework.data.redis.serializer.RedisSerializationContext.SerializationPair
                         .fromSerializer(new StringRedisSerializer()))
                 .serializeValuesWith(org.springframework.data.redis.serializer.RedisSerializationContext.SerializationPair
-                        .fromSerializer(new GenericJackson2JsonRedisSerializer()));
+                        .fromSerializer(resumeValueCodec));
 
         // 针对不同类型数据的缓存策略
         Map<String, RedisCacheConfiguration> cacheConfigurations = new HashMap<>();
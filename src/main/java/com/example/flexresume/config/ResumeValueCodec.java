@@ -0,0 +1,172 @@
+package com.example.flexresume.config;
+
+import com.example.flexresume.model.*;
+import com.fasterxml.jackson.databind.DeserializationFeature;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.fasterxml.jackson.dataformat.smile.SmileFactory;
+import net.jpountz.lz4.LZ4Compressor;
+import net.jpountz.lz4.LZ4Factory;
+import net.jpountz.lz4.LZ4FastDecompressor;
+import org.springframework.data.redis.serializer.GenericJackson2JsonRedisSerializer;
+import org.springframework.data.redis.serializer.RedisSerializer;
+import org.springframework.data.redis.serializer.SerializationException;
+
+import java.nio.ByteBuffer;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * Redis 值编解码器
+ * 已注册的类型使用 Smile（二进制 JSON）编码，用类型编号代替类名，超过阈值时再用 LZ4 压缩；
+ * 未注册的类型以及旧版本写入的文本 JSON 仍由 GenericJackson2JsonRedisSerializer 处理。
+ *
+ * 二进制格式：[格式版本 1 字节][标志 1 字节][类型编号 2 字节][LZ4 时为原始长度 4 字节][数据]
+ * 格式版本字节不可能是 JSON 文本的首字节，据此区分新旧数据
+ */
+public class ResumeValueCodec implements RedisSerializer<Object> {
+
+    private static final byte FORMAT_V1 = 0x01;
+    private static final byte FLAG_LZ4 = 0x01;
+
+    // 类型编号一经使用不可修改或复用，新增类型只能追加
+    private static final Map<Short, Class<?>> TYPES = new HashMap<>();
+    private static final Map<Class<?>, Short> TYPE_IDS = new HashMap<>();
+
+    static {
+        register(1, PersonalInfo.class);
+        register(2, EducationDocument.class);
+        register(3, ProjectDocument.class);
+        register(4, WorkInternshipDocument.class);
+        register(5, Skill.class);
+        register(6, PublishRecord.class);
+        register(7, LinkedHashMap.class);
+        register(8, ArrayList.class);
+        register(9, String.class);
+        register(10, InternshipDocument.class);
+        register(11, WorkExperienceDocument.class);
+    }
+
+    private static void register(int id, Class<?> type) {
+        TYPES.put((short) id, type);
+        TYPE_IDS.put(type, (short) id);
+    }
+
+    private final ObjectMapper smileMapper = new ObjectMapper(new SmileFactory())
+            .disable(DeserializationFeature.FAIL_ON_UNKNOWN_PROPERTIES);
+    private final GenericJackson2JsonRedisSerializer legacySerializer = new GenericJackson2JsonRedisSerializer();
+    private final LZ4Compressor compressor = LZ4Factory.fastestInstance().fastCompressor();
+    private final LZ4FastDecompressor decompressor = LZ4Factory.fastestInstance().fastDecompressor();
+
+    // 为 false 时写入仍使用文本 JSON，便于回滚
+    private final boolean binary;
+
+    // 编码后超过该字节数才压缩
+    private final int compressThreshold;
+
+    public ResumeValueCodec(boolean binary, int compressThreshold) {
+        this.binary = binary;
+        this.compressThreshold = compressThreshold;
+    }
+
+    @Override
+    public byte[] serialize(Object value) throws SerializationException {
+        if (value == null) {
+            return new byte[0];
+        }
+        Short typeId = binary ? typeIdOf(value) : null;
+        if (typeId == null) {
+            return legacySerializer.serialize(value);
+        }
+        try {
+            byte[] payload = smileMapper.writeValueAsBytes(value);
+            if (payload.length >= compressThreshold) {
+                byte[] compressed = new byte[compressor.maxCompressedLength(payload.length)];
+                int compressedLength = compressor.compress(payload, 0, payload.length, compressed, 0, compressed.length);
+                if (compressedLength + 4 < payload.length) {
+                    return ByteBuffer.allocate(8 + compressedLength)
+                            .put(FORMAT_V1).put(FLAG_LZ4).putShort(typeId)
+                            .putInt(payload.length)
+                            .put(compressed, 0, compressedLength)
+                            .array();
+                }
+            }
+            return ByteBuffer.allocate(4 + payload.length)
+                    .put(FORMAT_V1).put((byte) 0).putShort(typeId)
+                    .put(payload)
+                    .array();
+        } catch (Exception e) {
+            throw new SerializationException("缓存数据编码失败: " + value.getClass().getName(), e);
+        }
+    }
+
+    @Override
+    public Object deserialize(byte[] bytes) throws SerializationException {
+        if (bytes == null || bytes.length == 0) {
+            return null;
+        }
+        if (bytes[0] != FORMAT_V1) {
+            return legacySerializer.deserialize(bytes);
+        }
+        ByteBuffer buffer = ByteBuffer.wrap(bytes);
+        buffer.get();
+        byte flags = buffer.get();
+        short typeId = buffer.getShort();
+        Class<?> type = TYPES.get(typeId);
+        if (type == null) {
+            throw new SerializationException("未知的缓存数据类型编号: " + typeId);
+        }
+        try {
+            if ((flags & FLAG_LZ4) != 0) {
+                int originalLength = buffer.getInt();
+                byte[] payload = decompressor.decompress(bytes, buffer.position(), originalLength);
+                return smileMapper.readValue(payload, type);
+            }
+            return smileMapper.readValue(bytes, buffer.position(), bytes.length - buffer.position(), type);
+        } catch (Exception e) {
+            throw new SerializationException("缓存数据解码失败: " + type.getName(), e);
+        }
+    }
+
+    /**
+     * 已注册的文档类型按自身编号编码
+     * Map 和 List 只有在整棵树都是普通 JSON 值（null、字符串、布尔、数字、Map、List）时才按 LinkedHashMap、ArrayList 编码，
+     * 读取时得到的类型与 JSON 反序列化的默认类型一致：具体的 Map/List 实现类不保留，数字按大小读为 Integer、Long 或 Double，
+     * Map 的键读为字符串（与文本 JSON 相同）；含其他对象时交给 GenericJackson2JsonRedisSerializer，
+     * 由其类型信息保留这些对象的类型，避免读回后静默变成 Map
+     */
+    private Short typeIdOf(Object value) {
+        if (value instanceof Map || value instanceof List) {
+            if (!isPlainJson(value)) {
+                return null;
+            }
+            return TYPE_IDS.get(value instanceof Map ? LinkedHashMap.class : ArrayList.class);
+        }
+        return TYPE_IDS.get(value.getClass());
+    }
+
+    private static boolean isPlainJson(Object value) {
+        if (value == null || value instanceof String || value instanceof Boolean || value instanceof Number) {
+            return true;
+        }
+        if (value instanceof Map<?, ?> map) {
+            for (Object element : map.values()) {
+                if (!isPlainJson(element)) {
+                    return false;
+                }
+            }
+            return true;
+        }
+        if (value instanceof List<?> list) {
+            for (Object element : list) {
+                if (!isPlainJson(element)) {
+                    return false;
+                }
+            }
+            return true;
+        }
+        return false;
+    }
+}
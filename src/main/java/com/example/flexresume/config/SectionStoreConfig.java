@@ -0,0 +1,120 @@
+package com.example.flexresume.config;
+
+import com.example.flexresume.model.*;
+import com.example.flexresume.repository.*;
+import com.example.flexresume.service.CacheService;
+import com.example.flexresume.service.SectionStore;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.context.annotation.Bean;
+import org.springframework.context.annotation.Configuration;
+import org.springframework.dao.IncorrectResultSizeDataAccessException;
+
+import java.util.HashMap;
+import java.util.List;
+import java.util.Optional;
+
+/**
+ * 简历各模块的注册：模块名（缓存key的类型部分）、文档类型、数据库查询和空文档
+ * 以卡片 Map 为主体的模块注册合并补丁字段后即支持 PATCH
+ */
+@Configuration
+public class SectionStoreConfig {
+
+    // 模块缓存的存活时间（分钟），需长于最短变脏时长与过期优先窗口之和（见 writeback.*）
+    @Value("${section.cache.ttl-minutes:10}")
+    private int expireMinutes;
+
+    @Bean
+    public SectionStore<PersonalInfo> personalInfoStore(CacheService cacheService, ObjectMapper objectMapper,
+                                                        PersonalInfoRepository repository) {
+        return new SectionStore<>("personalInfo", PersonalInfo.class, cacheService, objectMapper, expireMinutes,
+                (username, version) -> findPersonalInfo(repository, username, version),
+                (username, version) -> {
+                    PersonalInfo empty = new PersonalInfo();
+                    empty.setUsername(username);
+                    empty.setVersion(version);
+                    return empty;
+                },
+                null);
+    }
+
+    @Bean
+    public SectionStore<EducationDocument> educationStore(CacheService cacheService, ObjectMapper objectMapper,
+                                                          EducationRepository repository) {
+        return new SectionStore<>("education", EducationDocument.class, cacheService, objectMapper, expireMinutes,
+                repository::findByUsernameAndVersion,
+                (username, version) -> {
+                    EducationDocument empty = new EducationDocument();
+                    empty.setUsername(username);
+                    empty.setVersion(version);
+                    empty.setEducation(new HashMap<>()); // 空的教育经历Map
+                    return empty;
+                },
+                null).withMergePatch("education");
+    }
+
+    @Bean
+    public SectionStore<ProjectDocument> projectStore(CacheService cacheService, ObjectMapper objectMapper,
+                                                      ProjectRepository repository) {
+        return new SectionStore<>("projects", ProjectDocument.class, cacheService, objectMapper, expireMinutes,
+                repository::findByUsernameAndVersion,
+                (username, version) -> new ProjectDocument(username, version, new HashMap<>()),
+                ProjectDocument::setProjectData).withMergePatch("projectData");
+    }
+
+    @Bean
+    public SectionStore<Skill> skillStore(CacheService cacheService, ObjectMapper objectMapper,
+                                          SkillRepository repository) {
+        return new SectionStore<>("skills", Skill.class, cacheService, objectMapper, expireMinutes,
+                repository::findByUsernameAndVersion,
+                (username, version) -> {
+                    Skill empty = new Skill();
+                    empty.setUsername(username);
+                    empty.setVersion(version);
+                    empty.setContent(""); // 空的技能内容
+                    return empty;
+                },
+                null);
+    }
+
+    @Bean
+    public SectionStore<WorkInternshipDocument> workInternshipStore(CacheService cacheService, ObjectMapper objectMapper,
+                                                                    WorkInternshipRepository repository) {
+        return new SectionStore<>("workinternship", WorkInternshipDocument.class, cacheService, objectMapper, expireMinutes,
+                repository::findByUsernameAndVersion,
+                (username, version) -> new WorkInternshipDocument(username, version, new HashMap<>()),
+                WorkInternshipDocument::setWorkInternshipData).withMergePatch("workInternshipData");
+    }
+
+    @Bean
+    public SectionStore<InternshipDocument> internshipStore(CacheService cacheService, ObjectMapper objectMapper,
+                                                            InternshipRepository repository) {
+        return new SectionStore<>("internship", InternshipDocument.class, cacheService, objectMapper, expireMinutes,
+                repository::findByUsernameAndVersion,
+                (username, version) -> new InternshipDocument(username, version, new HashMap<>()),
+                InternshipDocument::setInternshipData);
+    }
+
+    @Bean
+    public SectionStore<WorkExperienceDocument> workExperienceStore(CacheService cacheService, ObjectMapper objectMapper,
+                                                                    WorkExperienceRepository repository) {
+        return new SectionStore<>("workexperience", WorkExperienceDocument.class, cacheService, objectMapper, expireMinutes,
+                repository::findByUsernameAndVersion,
+                (username, version) -> new WorkExperienceDocument(username, version, new HashMap<>()),
+                WorkExperienceDocument::setWorkExperienceData);
+    }
+
+    /**
+     * 个人信息历史上存在重复记录，查询到多条时使用第一条
+     */
+    private Optional<PersonalInfo> findPersonalInfo(PersonalInfoRepository repository, String username, int version) {
+        try {
+            return repository.findByUsernameAndVersion(username, version);
+        } catch (IncorrectResultSizeDataAccessException e) {
+            System.err.println("Found duplicate records for username: " + username + ", version: " + version + ". Using the first one.");
+            List<PersonalInfo> personalInfoList = repository.findAllByUsernameAndVersion(username, version);
+            return personalInfoList.stream().findFirst();
+        }
+    }
+}
@@ -0,0 +1,85 @@
+package com.example.flexresume.controller;
+
+import com.example.flexresume.config.AdminAccess;
+import com.example.flexresume.model.PublishRecord;
+import com.example.flexresume.service.CacheService;
+import com.example.flexresume.service.DocumentExporter;
+import com.example.flexresume.service.SectionStore;
+import com.example.flexresume.service.SectionStores;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.data.mongodb.core.query.Query;
+import org.springframework.http.ResponseEntity;
+import org.springframework.web.bind.annotation.*;
+import jakarta.servlet.http.HttpServletRequest;
+import jakarta.servlet.http.HttpServletResponse;
+
+import java.io.IOException;
+import java.util.List;
+
+@RestController
+@RequestMapping("/api/admin")
+public class AdminController {
+
+    @Autowired
+    private CacheService cacheService;
+
+    @Autowired
+    private SectionStores sectionStores;
+
+    @Autowired
+    private DocumentExporter documentExporter;
+
+    @Autowired
+    private AdminAccess adminAccess;
+
+    // 查看一级缓存（进程内）的命中、未命中和淘汰统计，仅限管理员
+    @GetMapping("/cache-stats")
+    public ResponseEntity<?> getCacheStats(HttpServletRequest request) {
+        int denied = adminAccess.deniedStatus(request);
+        if (denied != 0) {
+            return ResponseEntity.status(denied).body(AdminAccess.message(denied));
+        }
+        return ResponseEntity.ok(cacheService.getLocalCacheStats());
+    }
+
+    /**
+     * 以 NDJSON 流式导出简历模块（personalInfo、education、projects 等）或发布记录（publish）的整个集合，仅限管理员
+     * 每行一个文档，边读取数据库游标边写出；after 为上次导出的最后一个 id，用于中断后续传
+     */
+    @GetMapping(value = "/export/{type}", produces = DocumentExporter.NDJSON)
+    public void export(@PathVariable String type,
+                       @RequestParam(required = false) String after,
+                       @RequestParam(required = false) List<String> fields,
+                       HttpServletRequest request,
+                       HttpServletResponse response) throws IOException {
+        int denied = adminAccess.deniedStatus(request);
+        if (denied != 0) {
+            response.sendError(denied, AdminAccess.message(denied));
+            return;
+        }
+        Class<?> documentClass = exportClass(type);
+        if (documentClass == null) {
+            response.sendError(404, "未知的集合: " + type);
+            return;
+        }
+        Query query;
+        try {
+            query = documentExporter.query(documentClass, after, fields);
+        } catch (IllegalArgumentException e) {
+            response.sendError(400, e.getMessage());
+            return;
+        }
+        response.setContentType(DocumentExporter.NDJSON);
+        response.setCharacterEncoding("UTF-8");
+        long count = documentExporter.stream(documentClass, query, response.getOutputStream());
+        System.out.println("导出 " + type + " 完成，共 " + count + " 个文档");
+    }
+
+    private Class<?> exportClass(String type) {
+        if ("publish".equals(type)) {
+            return PublishRecord.class;
+        }
+        SectionStore<?> store = sectionStores.get(type);
+        return store != null ? store.getDocumentClass() : null;
+    }
+}
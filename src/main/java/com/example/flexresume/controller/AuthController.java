@@ -1,56 +1,80 @@
 package com.example.flexresume.controller;
 
 import com.example.flexresume.model.User;
-import com.example.flexresume.repository.UserRepository;
+import com.example.flexresume.service.AuthService;
 import com.example.flexresume.util.JwtUtil;
 import lombok.Data;
 import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Qualifier;
 import org.springframework.http.ResponseEntity;
-import org.springframework.security.crypto.bcrypt.BCryptPasswordEncoder;
 import org.springframework.web.bind.annotation.*;
 import java.util.HashMap;
 import java.util.Map;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.Executor;
+import java.util.concurrent.RejectedExecutionException;
 
 @RestController
 @RequestMapping("/api/auth")
 public class AuthController {
     @Autowired
-    private UserRepository userRepository;
+    private AuthService authService;
     @Autowired
     private JwtUtil jwtUtil;
-    private final BCryptPasswordEncoder passwordEncoder = new BCryptPasswordEncoder();
+    @Autowired
+    @Qualifier("taskExecutor")
+    private Executor taskExecutor;
 
+    // 密码哈希在专用线程池上异步执行，请求线程不等待；线程池排队已满时返回 429
     @PostMapping("/register")
-    public ResponseEntity<?> register(@RequestBody RegisterRequest req) {
-        if (userRepository.findByEmail(req.getEmail()) != null) {
+    public CompletableFuture<ResponseEntity<?>> register(@RequestBody RegisterRequest req) {
+        if (authService.findByEmail(req.getEmail()) != null) {
             // 返回 JSON
             Map<String, Object> result = new HashMap<>();
             result.put("error", "用户已存在");
-            return ResponseEntity.badRequest().body(result);
+            return CompletableFuture.completedFuture(ResponseEntity.badRequest().body(result));
+        }
+        try {
+            // 保存用户在异步任务线程上执行，哈希线程只做计算
+            return authService.encodePassword(req.getPassword()).thenApplyAsync(hash -> {
+                User user = new User();
+                user.setEmail(req.getEmail());
+                user.setPassword(hash);
+                user.setVersion(1);
+                authService.saveUser(user);
+                Map<String, Object> result = new HashMap<>();
+                result.put("message", "注册成功");
+                return ResponseEntity.ok(result);
+            }, taskExecutor);
+        } catch (RejectedExecutionException e) {
+            return CompletableFuture.completedFuture(tooManyRequests());
         }
-        String hash = passwordEncoder.encode(req.getPassword());
-        User user = new User();
-        user.setEmail(req.getEmail());
-        user.setPassword(hash);
-        user.setVersion(1);
-        userRepository.save(user);
-        Map<String, Object> result = new HashMap<>();
-        result.put("message", "注册成功");
-        return ResponseEntity.ok(result);
     }
 
     @PostMapping("/login")
-    public ResponseEntity<?> login(@RequestBody LoginRequest req) {
-        User user = userRepository.findByEmail(req.getEmail());
-        if (user == null) return ResponseEntity.status(401).body("用户不存在");
-        if (!passwordEncoder.matches(req.getPassword(), user.getPassword())) {
-            return ResponseEntity.status(401).body("密码错误");
+    public CompletableFuture<ResponseEntity<?>> login(@RequestBody LoginRequest req) {
+        User user = authService.findByEmail(req.getEmail());
+        if (user == null) return CompletableFuture.completedFuture(ResponseEntity.status(401).body("用户不存在"));
+        try {
+            return authService.matchesPassword(req.getPassword(), user.getPassword()).thenApply(matches -> {
+                if (!matches) {
+                    return ResponseEntity.status(401).body("密码错误");
+                }
+                String token = jwtUtil.generateToken(user.getId());
+                Map<String, Object> result = new HashMap<>();
+                result.put("token", token);
+                result.put("userId", user.getId());
+                return ResponseEntity.ok(result);
+            });
+        } catch (RejectedExecutionException e) {
+            return CompletableFuture.completedFuture(tooManyRequests());
         }
-        String token = jwtUtil.generateToken(user.getId());
+    }
+
+    private ResponseEntity<?> tooManyRequests() {
         Map<String, Object> result = new HashMap<>();
-        result.put("token", token);
-        result.put("userId", user.getId());
-        return ResponseEntity.ok(result);
+        result.put("error", "登录请求过多，请稍后重试");
+        return ResponseEntity.status(429).header("Retry-After", "1").body(result);
     }
 
     @Data
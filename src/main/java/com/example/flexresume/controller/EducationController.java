@@ -1,80 +1,48 @@
 package com.example.flexresume.controller;
 
 import com.example.flexresume.model.EducationDocument;
-import com.example.flexresume.repository.EducationRepository;
+import com.example.flexresume.service.SectionStore;
+import com.fasterxml.jackson.databind.JsonNode;
 import org.springframework.beans.factory.annotation.Autowired;
 import org.springframework.http.ResponseEntity;
 import org.springframework.web.bind.annotation.*;
 import jakarta.servlet.http.HttpServletRequest;
+import reactor.core.publisher.Mono;
 
 @RestController
 @RequestMapping("/api/education-info")
-public class EducationController {
+public class EducationController extends SectionControllerSupport<EducationDocument> {
 
     @Autowired
-    private EducationRepository educationRepository;
+    private SectionStore<EducationDocument> educationStore;
 
-    // 保存教育信息，添加用户身份验证
-    @PostMapping
-    public ResponseEntity<?> saveEducation(@RequestBody EducationDocument education, HttpServletRequest request) {
-        try {
-            // 获取JWT验证过的用户ID
-            String authenticatedUserId = (String) request.getAttribute("userId");
-            if (authenticatedUserId == null) {
-                return ResponseEntity.status(401).body("未授权访问");
-            }
-            
-            // 验证请求的用户名是否与当前登录用户一致
-            if (!authenticatedUserId.equals(education.getUsername())) {
-                return ResponseEntity.status(403).body("无权限访问其他用户的数据");
-            }
-
-            EducationDocument existingEducation = educationRepository.findByUsername(education.getUsername());
+    @Override
+    protected SectionStore<EducationDocument> store() {
+        return educationStore;
+    }
 
-            if (existingEducation != null) {
-                if (existingEducation.getVersion() == education.getVersion()) {
-                    existingEducation.setEducation(education.getEducation());
-                } else {
-                    existingEducation.setVersion(education.getVersion());
-                    existingEducation.setEducation(education.getEducation());
-                }
-                return ResponseEntity.ok(educationRepository.save(existingEducation));
-            }
-            return ResponseEntity.ok(educationRepository.save(education));
-        } catch (Exception e) {
-            System.err.println("教育信息保存错误: " + e.getMessage());
-            e.printStackTrace();
-            return ResponseEntity.status(500).body("保存教育信息时出错: " + e.getMessage());
-        }
+    // 保存教育信息，添加用户身份验证；只写入缓存，由写回调度器批量写入数据库
+    @PostMapping
+    public ResponseEntity<?> saveEducation(@RequestBody EducationDocument document, HttpServletRequest request) {
+        return save(document, request);
     }
 
     // 根据用户名和版本号获取教育信息，添加用户身份验证
     @GetMapping
-    public ResponseEntity<?> getEducationByUsernameAndVersion(
+    public Mono<ResponseEntity<?>> getEducationByUsernameAndVersion(
+            @RequestParam String username,
+            @RequestParam int version,
+            HttpServletRequest request) {
+        return load(username, version, request, true);
+    }
+
+    // 部分更新教育信息：请求体为以卡片 id 为 key 的 JSON 合并补丁（RFC 7386），null 表示删除
+    @PatchMapping(consumes = {"application/merge-patch+json", "application/json"})
+    public ResponseEntity<?> patchEducation(
             @RequestParam String username,
             @RequestParam int version,
+            @RequestBody JsonNode patch,
             HttpServletRequest request) {
-        
-        // 获取JWT验证过的用户ID
-        String authenticatedUserId = (String) request.getAttribute("userId");
-        if (authenticatedUserId == null) {
-            return ResponseEntity.status(401).body("未授权访问");
-        }
-        
-        // 验证请求的用户名是否与当前登录用户一致
-        if (!authenticatedUserId.equals(username)) {
-            return ResponseEntity.status(403).body("无权限访问其他用户的数据");
-        }
-        
-        EducationDocument education = educationRepository.findByUsernameAndVersion(username, version).orElse(null);
-        if (education == null) {
-            // 返回空的EducationDocument对象而不是404
-            EducationDocument emptyEducation = new EducationDocument();
-            emptyEducation.setUsername(username);
-            emptyEducation.setVersion(version);
-            emptyEducation.setEducation(new java.util.HashMap<>()); // 空的教育经历Map
-            return ResponseEntity.ok(emptyEducation);
-        }
-        return ResponseEntity.ok(education);
+        return patch(username, version, patch, request);
     }
-}
\ No newline at end of file
+}
@@ -0,0 +1,90 @@
+package com.example.flexresume.controller;
+
+import com.example.flexresume.service.ImageStore;
+import jakarta.servlet.http.HttpServletRequest;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.core.io.Resource;
+import org.springframework.http.CacheControl;
+import org.springframework.http.MediaType;
+import org.springframework.http.ResponseEntity;
+import org.springframework.web.bind.annotation.*;
+import org.springframework.web.multipart.MultipartFile;
+
+import java.io.IOException;
+import java.io.InputStream;
+import java.time.Duration;
+
+/**
+ * 简历图片的上传和读取
+ * 上传返回引用（/api/images/{hash}），简历模块中保存该引用；读取不需要登录（已发布简历中的图片），
+ * 内容按摘要寻址、不会改变，响应可被浏览器和 CDN 长期缓存，并支持 Range 请求
+ */
+@RestController
+@RequestMapping("/api/images")
+public class ImageController {
+
+    @Autowired
+    private ImageStore imageStore;
+
+    /**
+     * 以表单文件上传图片
+     */
+    @PostMapping(consumes = MediaType.MULTIPART_FORM_DATA_VALUE)
+    public ResponseEntity<?> upload(@RequestParam("file") MultipartFile file, HttpServletRequest request) {
+        if (request.getAttribute("userId") == null) {
+            return ResponseEntity.status(401).body("未授权访问");
+        }
+        try (InputStream input = file.getInputStream()) {
+            return store(input);
+        } catch (IOException e) {
+            return uploadFailed(e);
+        }
+    }
+
+    /**
+     * 以请求体（Content-Type: image/*）上传图片
+     */
+    @PostMapping(consumes = "image/*")
+    public ResponseEntity<?> uploadRaw(HttpServletRequest request) {
+        if (request.getAttribute("userId") == null) {
+            return ResponseEntity.status(401).body("未授权访问");
+        }
+        try (InputStream input = request.getInputStream()) {
+            return store(input);
+        } catch (IOException e) {
+            return uploadFailed(e);
+        }
+    }
+
+    /**
+     * 读取图片
+     * @param w 需要的宽度，返回不窄于该宽度的最小缩略图，不传或没有合适的缩略图时返回原图
+     */
+    @GetMapping("/{hash}")
+    public ResponseEntity<Resource> get(@PathVariable String hash, @RequestParam(required = false) Integer w) {
+        return imageStore.open(hash, w)
+                .map(image -> {
+                    ResponseEntity.BodyBuilder response = ResponseEntity.ok()
+                            .eTag(image.version())
+                            .cacheControl(CacheControl.maxAge(Duration.ofDays(365)).cachePublic().immutable());
+                    if (image.contentType() != null) {
+                        response.contentType(MediaType.parseMediaType(image.contentType()));
+                    }
+                    return response.body(image.resource());
+                })
+                .orElseGet(() -> ResponseEntity.notFound().build());
+    }
+
+    private ResponseEntity<?> store(InputStream input) throws IOException {
+        try {
+            return ResponseEntity.ok(imageStore.store(input));
+        } catch (IllegalArgumentException e) {
+            return ResponseEntity.badRequest().body(e.getMessage());
+        }
+    }
+
+    private ResponseEntity<?> uploadFailed(IOException e) {
+        System.err.println("图片上传错误: " + e.getMessage());
+        return ResponseEntity.status(500).body("图片上传失败: " + e.getMessage());
+    }
+}
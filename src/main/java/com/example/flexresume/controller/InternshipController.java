@@ -1,50 +1,37 @@
 package com.example.flexresume.controller;
 
 import com.example.flexresume.model.InternshipDocument;
-import com.example.flexresume.repository.InternshipRepository;
+import com.example.flexresume.service.SectionStore;
 import org.springframework.beans.factory.annotation.Autowired;
 import org.springframework.http.ResponseEntity;
 import org.springframework.web.bind.annotation.*;
+import jakarta.servlet.http.HttpServletRequest;
+import reactor.core.publisher.Mono;
 
 @RestController
 @RequestMapping("/api/internship-info")
-public class InternshipController {
+public class InternshipController extends SectionControllerSupport<InternshipDocument> {
 
     @Autowired
-    private InternshipRepository internshipRepository;
+    private SectionStore<InternshipDocument> internshipStore;
 
-    // 保存实习信息
-    @PostMapping
-    public InternshipDocument saveInternship(@RequestBody InternshipDocument internship) {
-        // 根据 username 查询是否已存在
-        InternshipDocument existingInternship = internshipRepository.findByUsername(internship.getUsername());
-
-        if (existingInternship != null) {
-            // 如果用户存在，检查版本是否已存在
-            if (existingInternship.getVersion() == internship.getVersion()) {
-                // 更新已存在版本的内容
-                existingInternship.setInternshipData(internship.getInternshipData());
-            } else {
-                // 如果是新版本，只需要更新版本号和相关信息
-                existingInternship.setVersion(internship.getVersion());
-                existingInternship.setInternshipData(internship.getInternshipData());
-            }
-            return internshipRepository.save(existingInternship);
-        }
+    @Override
+    protected SectionStore<InternshipDocument> store() {
+        return internshipStore;
+    }
 
-        // 如果用户不存在，插入新记录
-        return internshipRepository.save(internship);
+    // 保存实习信息，添加用户身份验证；只写入缓存，由写回调度器批量写入数据库
+    @PostMapping
+    public ResponseEntity<?> saveInternship(@RequestBody InternshipDocument document, HttpServletRequest request) {
+        return save(document, request);
     }
 
-    // 根据用户名和版本号获取实习信息
+    // 根据用户名和版本号获取实习信息，添加用户身份验证
     @GetMapping
-    public ResponseEntity<InternshipDocument> getInternshipByUsernameAndVersion(
+    public Mono<ResponseEntity<?>> getInternshipByUsernameAndVersion(
             @RequestParam String username,
-            @RequestParam int version) {
-        InternshipDocument internship = internshipRepository.findByUsernameAndVersion(username, version).orElse(null);
-        if (internship == null) {
-            return ResponseEntity.notFound().build();
-        }
-        return ResponseEntity.ok(internship);
+            @RequestParam int version,
+            HttpServletRequest request) {
+        return load(username, version, request, false);
     }
-} 
\ No newline at end of file
+}
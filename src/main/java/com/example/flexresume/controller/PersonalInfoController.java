@@ -1,102 +1,116 @@
 package com.example.flexresume.controller;
 
+import com.example.flexresume.config.AdminAccess;
 import com.example.flexresume.model.PersonalInfo;
-import com.example.flexresume.repository.PersonalInfoRepository;
-import com.example.flexresume.service.CacheService;
+import com.example.flexresume.service.DocumentExporter;
+import com.example.flexresume.service.SectionStore;
 import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.http.MediaType;
 import org.springframework.http.ResponseEntity;
 import org.springframework.web.bind.annotation.*;
 import jakarta.servlet.http.HttpServletRequest;
+import jakarta.servlet.http.HttpServletResponse;
+import org.springframework.data.mongodb.core.query.Query;
+import reactor.core.publisher.Mono;
+
+import java.io.IOException;
 import java.util.List;
 
 @RestController
 @RequestMapping("/api/personal-info")
-public class PersonalInfoController {
+public class PersonalInfoController extends SectionControllerSupport<PersonalInfo> {
+
+    @Autowired
+    private DocumentExporter documentExporter;
 
     @Autowired
-    private PersonalInfoRepository personalInfoRepository;
-    
+    private SectionStore<PersonalInfo> personalInfoStore;
+
     @Autowired
-    private CacheService cacheService;
+    private AdminAccess adminAccess;
+
+    @Value("${personal-info.legacy-list.enabled:true}")
+    private boolean legacyListEnabled;
+
+    @Override
+    protected SectionStore<PersonalInfo> store() {
+        return personalInfoStore;
+    }
 
+    // 保存个人信息：写入缓存后直接返回，数据库写入将异步进行
     @PostMapping
     public ResponseEntity<?> savePersonalInfo(@RequestBody PersonalInfo personalInfo, HttpServletRequest request) {
-        String authenticatedUserId = (String) request.getAttribute("userId");
-        if (authenticatedUserId == null) {
-            return ResponseEntity.status(401).body("未授权访问");
-        }
-        
-        if (!authenticatedUserId.equals(personalInfo.getUsername())) {
-            return ResponseEntity.status(403).body("无权限访问其他用户的数据");
-        }
-        
-        String cacheKey = cacheService.buildKey("personalInfo", personalInfo.getUsername(), personalInfo.getVersion());
-        cacheService.writeToCache(cacheKey, personalInfo, 10); // 缓存10分钟
-        
-        // 返回数据给前端，数据库写入将异步进行
-        return ResponseEntity.ok(personalInfo);
+        return save(personalInfo, request);
     }
 
-    // 获取所有个人信息
+    // 获取所有个人信息（仅限管理员）：保持原有的 JSON 数组格式，边读取数据库游标边写出，不再一次性加载整个集合
+    // personal-info.legacy-list.enabled=false 时返回 410，客户端改用 /page 分页或 NDJSON 流
     @GetMapping
-    public List<PersonalInfo> getAllPersonalInfo() {
-        return personalInfoRepository.findAll();
+    public void getAllPersonalInfo(HttpServletRequest request, HttpServletResponse response) throws IOException {
+        int denied = adminAccess.deniedStatus(request);
+        if (denied != 0) {
+            response.sendError(denied, AdminAccess.message(denied));
+            return;
+        }
+        if (!legacyListEnabled) {
+            response.sendError(410, "请改用 /api/personal-info/page 分页获取");
+            return;
+        }
+        response.setContentType(MediaType.APPLICATION_JSON_VALUE);
+        response.setCharacterEncoding("UTF-8");
+        documentExporter.streamArray(PersonalInfo.class, documentExporter.query(PersonalInfo.class, null, null),
+                response.getOutputStream());
     }
 
-    // 根据用户名和版本号获取个人信息 - 优先从缓存读取，添加用户身份验证
-    @GetMapping("/{username}/{version}")
-    public ResponseEntity<?> getPersonalInfoByUsernameAndVersion(
-            @PathVariable String username,
-            @PathVariable int version,
+    // 分页获取所有个人信息（仅限管理员）：按 id 游标翻页，返回 {items, nextCursor}，fields 为只返回的字段（逗号分隔）
+    @GetMapping("/page")
+    public ResponseEntity<?> getPersonalInfoPage(
+            @RequestParam(required = false) String after,
+            @RequestParam(defaultValue = "50") int limit,
+            @RequestParam(required = false) List<String> fields,
             HttpServletRequest request) {
-        
-        // 获取JWT验证过的用户ID
-        String authenticatedUserId = (String) request.getAttribute("userId");
-        if (authenticatedUserId == null) {
-            return ResponseEntity.status(401).body("未授权访问");
-        }
-        
-        // 验证请求的用户名是否与当前登录用户一致
-        if (!authenticatedUserId.equals(username)) {
-            return ResponseEntity.status(403).body("无权限访问其他用户的数据");
+        int denied = adminAccess.deniedStatus(request);
+        if (denied != 0) {
+            return ResponseEntity.status(denied).body(AdminAccess.message(denied));
         }
-        
-        // 先尝试从缓存获取
-        String cacheKey = cacheService.buildKey("personalInfo", username, version);
         try {
-            Object cachedData = cacheService.getFromCache(cacheKey);
-            if (cachedData != null) {
-                PersonalInfo personalInfo = (PersonalInfo) cachedData;
-                return ResponseEntity.ok(personalInfo);
-            }
-        } catch (Exception e) {
-            // 缓存反序列化失败，清理该缓存键
-            System.err.println("Cache deserialization failed for key: " + cacheKey + ", error: " + e.getMessage());
-            cacheService.evictCache(cacheKey);
+            return ResponseEntity.ok(documentExporter.page(PersonalInfo.class, after, limit, fields));
+        } catch (IllegalArgumentException e) {
+            return ResponseEntity.badRequest().body(e.getMessage());
         }
-        
-        PersonalInfo personalInfo = null;
-        try {
-            personalInfo = personalInfoRepository.findByUsernameAndVersion(username, version).orElse(null);
-        } catch (org.springframework.dao.IncorrectResultSizeDataAccessException e) {
-            System.err.println("Found duplicate records for username: " + username + ", version: " + version + ". Using the first one."); 
-            java.util.List<PersonalInfo> personalInfoList = personalInfoRepository.findAllByUsernameAndVersion(username, version);
-            if (!personalInfoList.isEmpty()) {
-                personalInfo = personalInfoList.get(0);
-            }
+    }
+
+    // 流式获取所有个人信息（Accept: application/x-ndjson，仅限管理员），每行一个文档，边读取数据库边写出；中断后可用 after 续传
+    @GetMapping(produces = DocumentExporter.NDJSON)
+    public void streamAllPersonalInfo(
+            @RequestParam(required = false) String after,
+            @RequestParam(required = false) List<String> fields,
+            HttpServletRequest request,
+            HttpServletResponse response) throws IOException {
+        int denied = adminAccess.deniedStatus(request);
+        if (denied != 0) {
+            response.sendError(denied, AdminAccess.message(denied));
+            return;
         }
-        
-        if (personalInfo == null) {
-            // 返回空的PersonalInfo对象而不是404
-            PersonalInfo emptyPersonalInfo = new PersonalInfo();
-            emptyPersonalInfo.setUsername(username);
-            emptyPersonalInfo.setVersion(version);
-            return ResponseEntity.ok(emptyPersonalInfo);
+        Query query;
+        try {
+            query = documentExporter.query(PersonalInfo.class, after, fields);
+        } catch (IllegalArgumentException e) {
+            response.sendError(400, e.getMessage());
+            return;
         }
-        
-        // 预热缓存
-        cacheService.warmUpCache(cacheKey, personalInfo, 10);
-        
-        return ResponseEntity.ok(personalInfo);
+        response.setContentType(DocumentExporter.NDJSON);
+        response.setCharacterEncoding("UTF-8");
+        documentExporter.stream(PersonalInfo.class, query, response.getOutputStream());
+    }
+
+    // 根据用户名和版本号获取个人信息 - 优先从缓存读取，添加用户身份验证
+    @GetMapping("/{username}/{version}")
+    public Mono<ResponseEntity<?>> getPersonalInfoByUsernameAndVersion(
+            @PathVariable String username,
+            @PathVariable int version,
+            HttpServletRequest request) {
+        return load(username, version, request, true);
     }
-}
\ No newline at end of file
+}
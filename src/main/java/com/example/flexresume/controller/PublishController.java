@@ -2,43 +2,68 @@ package com.example.flexresume.controller;
 
 import com.example.flexresume.model.*;
 import com.example.flexresume.repository.*;
-import com.example.flexresume.service.CacheService;
+import com.example.flexresume.service.PublishedResumeCache;
+import com.example.flexresume.service.ReactiveResumeReader;
+import com.example.flexresume.service.ResumeReadService;
 import com.example.flexresume.service.WriteBackScheduler;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.Timer;
 import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.http.CacheControl;
+import org.springframework.http.HttpHeaders;
+import org.springframework.http.HttpStatus;
+import org.springframework.http.MediaType;
+import org.springframework.http.ResponseEntity;
 import org.springframework.web.bind.annotation.*;
+import reactor.core.publisher.Mono;
 
 import java.util.Date;
 import java.util.HashMap;
+import java.util.Locale;
 import java.util.Map;
 import java.util.Optional;
+import java.util.concurrent.TimeUnit;
 
 @RestController
 @RequestMapping("/api/publish")
 public class PublishController {
     @Autowired private PublishRecordRepository publishRecordRepository;
     @Autowired private WriteBackScheduler writeBackScheduler;
-    @Autowired private PersonalInfoRepository personalInfoRepository;
-    @Autowired private EducationRepository educationRepository;
-    @Autowired private ProjectRepository projectRepository;
-    @Autowired private SkillRepository skillRepository;
-    @Autowired private WorkInternshipRepository workInternshipRepository;
-    @Autowired private CacheService cacheService;
+    @Autowired private ResumeReadService resumeReadService;
+    @Autowired private PublishedResumeCache publishedResumeCache;
+    @Autowired private ReactiveResumeReader reactiveResumeReader;
+    @Autowired private MeterRegistry meterRegistry;
+
+    // 发布前等待写回完成的最长时间
+    @Value("${publish.flush-timeout-ms:5000}")
+    private long flushTimeoutMs;
+
+    // 组装快照时等待数据库回源的最长时间
+    @Value("${publish.snapshot-timeout-ms:3000}")
+    private long snapshotTimeoutMs;
 
 
     @PostMapping
     public Map<String, Object> publish(@RequestBody PublishRequest req) {
         String username = req.getUserId();
         int version = req.getVersion();
-        
+        Timer.Sample total = Timer.start(meterRegistry);
+
+        Timer.Sample stage = Timer.start(meterRegistry);
         try {
-            writeBackScheduler.forceWriteBackUser(username, version);
-            Thread.sleep(500);
+            // 等待该用户的脏数据写回完成，而不是固定休眠
+            writeBackScheduler.forceWriteBackUser(username, version).get(flushTimeoutMs, TimeUnit.MILLISECONDS);
         } catch (Exception e) {
             System.err.println("发布前强制写回用户数据失败: " + e.getMessage());
         }
-        
+        stage.stop(publishTimer("flush"));
+
+        stage = Timer.start(meterRegistry);
         Map<String, Object> latestSnapshot = buildLatestSnapshot(username, version, req.getSnapshot());
-        
+        stage.stop(publishTimer("snapshot"));
+
+        stage = Timer.start(meterRegistry);
         // --- FIX: Handle Optional from findByUserId ---
         Optional<PublishRecord> existingOpt = publishRecordRepository.findByUserId(req.getUserId());
         Date now = new Date();
@@ -55,6 +80,15 @@ public class PublishController {
         }
         publishRecordRepository.save(record);
 
+        // 发布时生成响应字节，之后的访问直接返回
+        try {
+            publishedResumeCache.refresh(record);
+        } catch (Exception e) {
+            System.err.println("生成发布简历缓存失败: " + e.getMessage());
+        }
+        stage.stop(publishTimer("save"));
+        total.stop(publishTimer("total"));
+
         Map<String, Object> result = new HashMap<>();
         result.put("message", "发布成功");
         result.put("publishId", record.getId());
@@ -62,51 +96,130 @@ public class PublishController {
         return result;
     }
 
+    /**
+     * 发布各阶段耗时：flush 为等待写回，snapshot 为组装快照，save 为保存记录并生成响应缓存，total 为整个发布
+     */
+    private Timer publishTimer(String stage) {
+        return Timer.builder("publish.latency")
+                .description("发布各阶段的耗时")
+                .tag("stage", stage)
+                .register(meterRegistry);
+    }
+
+    /**
+     * 返回发布时已生成的 JSON 字节，客户端支持时返回 gzip 版本；If-None-Match 命中时返回 304
+     * 非阻塞读取：等待 Redis、MongoDB 时不占用请求线程
+     */
     @GetMapping
-    public Map<String, Object> getLatestPublish(@RequestParam String userId) {
-        // --- FIX: Handle Optional from findByUserId ---
-        Optional<PublishRecord> recordOpt = publishRecordRepository.findByUserId(userId);
-        Map<String, Object> result = new HashMap<>();
-        if (recordOpt.isPresent()) {
-            PublishRecord record = recordOpt.get();
-            result.put("version", record.getVersion());
-            result.put("publishTime", record.getPublishTime());
-            result.put("snapshot", record.getSnapshot());
+    public Mono<ResponseEntity<byte[]>> getLatestPublish(
+            @RequestParam String userId,
+            @RequestHeader(value = HttpHeaders.IF_NONE_MATCH, required = false) String ifNoneMatch,
+            @RequestHeader(value = HttpHeaders.ACCEPT_ENCODING, required = false) String acceptEncoding) {
+        return reactiveResumeReader.getPublished(userId)
+                .map(published -> publishedResponse(published, ifNoneMatch, acceptEncoding));
+    }
+
+    private ResponseEntity<byte[]> publishedResponse(PublishedResumeCache.PublishedResume published,
+                                                     String ifNoneMatch, String acceptEncoding) {
+        if (etagMatches(ifNoneMatch, published.etag())) {
+            return ResponseEntity.status(HttpStatus.NOT_MODIFIED)
+                    .eTag(published.etag())
+                    .cacheControl(CacheControl.noCache())
+                    .header(HttpHeaders.VARY, HttpHeaders.ACCEPT_ENCODING)
+                    .build();
         }
-        return result;
+
+        ResponseEntity.BodyBuilder builder = ResponseEntity.ok()
+                .eTag(published.etag())
+                .cacheControl(CacheControl.noCache())
+                .header(HttpHeaders.VARY, HttpHeaders.ACCEPT_ENCODING)
+                .contentType(MediaType.APPLICATION_JSON);
+        if (acceptsGzip(acceptEncoding)) {
+            return builder.header(HttpHeaders.CONTENT_ENCODING, "gzip").body(published.gzip());
+        }
+        return builder.body(published.json());
+    }
+
+    /**
+     * 按 Accept-Encoding 的 q 值判断客户端是否接受 gzip：单独列出 gzip（或 x-gzip）时以其 q 值为准，
+     * 否则以 * 的 q 值为准，q=0 表示拒绝；没有该请求头时返回未压缩版本
+     */
+    static boolean acceptsGzip(String acceptEncoding) {
+        if (acceptEncoding == null) {
+            return false;
+        }
+        Double gzipQuality = null;
+        Double anyQuality = null;
+        for (String part : acceptEncoding.split(",")) {
+            String[] params = part.split(";");
+            String coding = params[0].trim().toLowerCase(Locale.ROOT);
+            double quality = 1;
+            for (int i = 1; i < params.length; i++) {
+                String param = params[i].trim();
+                if (param.regionMatches(true, 0, "q=", 0, 2)) {
+                    try {
+                        quality = Double.parseDouble(param.substring(2).trim());
+                    } catch (NumberFormatException e) {
+                        quality = 0;
+                    }
+                }
+            }
+            if (coding.equals("gzip") || coding.equals("x-gzip")) {
+                gzipQuality = gzipQuality == null ? quality : Math.max(gzipQuality, quality);
+            } else if (coding.equals("*")) {
+                anyQuality = quality;
+            }
+        }
+        double quality = gzipQuality != null ? gzipQuality : anyQuality != null ? anyQuality : 0;
+        return quality > 0;
+    }
+
+    /**
+     * If-None-Match 可能包含多个 ETag，也可能被代理改为弱校验（W/ 前缀）
+     */
+    private boolean etagMatches(String ifNoneMatch, String etag) {
+        if (ifNoneMatch == null) {
+            return false;
+        }
+        for (String candidate : ifNoneMatch.split(",")) {
+            String value = candidate.trim();
+            if (value.startsWith("W/")) {
+                value = value.substring(2);
+            }
+            if (value.equals(etag) || value.equals("*")) {
+                return true;
+            }
+        }
+        return false;
     }
 
-    private Map<String, Object> buildLatestSnapshot(String username, int version, Map<String, Object> fallbackSnapshot) {
+    /**
+     * 组装最新快照：五个模块合并为一次批量缓存读取，未命中的模块并发回源数据库，总耗时受超时限制
+     * 包级可见，供基准测试使用
+     */
+    Map<String, Object> buildLatestSnapshot(String username, int version, Map<String, Object> fallbackSnapshot) {
+        long start = System.currentTimeMillis();
         Map<String, Object> latestSnapshot = new HashMap<>();
         try {
-            getDataFromCacheOrDb("personalInfo", username, version).ifPresent(data -> latestSnapshot.put("personalInfo", data));
-            getDataFromCacheOrDb("education", username, version).ifPresent(data -> latestSnapshot.put("education", data));
-            getDataFromCacheOrDb("projects", username, version).ifPresent(data -> latestSnapshot.put("projects", ((ProjectDocument)data).getProjectData()));
-            getDataFromCacheOrDb("skills", username, version).ifPresent(data -> latestSnapshot.put("skills", data));
-            getDataFromCacheOrDb("workinternship", username, version).ifPresent(data -> latestSnapshot.put("workinternship", ((WorkInternshipDocument)data).getWorkInternshipData()));
-            System.out.println("获取用户 " + username + " 版本 " + version + " 的最新快照数据完成。");
+            ResumeReadService.SectionResult result =
+                    resumeReadService.loadSections(username, version, ResumeReadService.SECTIONS, snapshotTimeoutMs);
+            result.sections().forEach((type, data) -> putSection(latestSnapshot, type, data));
+            System.out.println("获取用户 " + username + " 版本 " + version + " 的最新快照数据完成，缓存命中 "
+                    + result.cacheHits() + " 个模块，耗时 " + (System.currentTimeMillis() - start) + "ms");
         } catch (Exception e) {
-            System.err.println("获取最新数据失败，使用原始快照: " + e.getMessage());
+            System.err.println("获取最新数据失败，使用原始快照: " + e.getMessage() + "，耗时 "
+                    + (System.currentTimeMillis() - start) + "ms");
             return fallbackSnapshot;
         }
         return latestSnapshot;
     }
 
-    private Optional<Object> getDataFromCacheOrDb(String type, String username, int version) {
-        String cacheKey = cacheService.buildKey(type, username, version);
-        Object cachedData = cacheService.getFromCache(cacheKey);
-        if (cachedData != null) {
-            return Optional.of(cachedData);
+    private void putSection(Map<String, Object> snapshot, String type, Object data) {
+        switch (type) {
+            case "projects" -> snapshot.put(type, ((ProjectDocument) data).getProjectData());
+            case "workinternship" -> snapshot.put(type, ((WorkInternshipDocument) data).getWorkInternshipData());
+            default -> snapshot.put(type, data);
         }
-        
-        return switch (type) {
-            case "personalInfo" -> personalInfoRepository.findByUsernameAndVersion(username, version).map(Object.class::cast);
-            case "education" -> educationRepository.findByUsernameAndVersion(username, version).map(Object.class::cast);
-            case "projects" -> projectRepository.findByUsernameAndVersion(username, version).map(Object.class::cast);
-            case "skills" -> skillRepository.findByUsernameAndVersion(username, version).map(Object.class::cast);
-            case "workinternship" -> workInternshipRepository.findByUsernameAndVersion(username, version).map(Object.class::cast);
-            default -> Optional.empty();
-        };
     }
     
     // PublishRequest inner class remains the same
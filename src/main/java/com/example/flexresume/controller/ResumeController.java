@@ -0,0 +1,106 @@
+package com.example.flexresume.controller;
+
+import com.example.flexresume.repository.PublishRecordRepository;
+import com.example.flexresume.service.ResumeReadService;
+import com.example.flexresume.service.SectionStores;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Qualifier;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.http.ResponseEntity;
+import org.springframework.web.bind.annotation.*;
+import jakarta.servlet.http.HttpServletRequest;
+
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.Executor;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * 编辑器一次性加载简历全部模块，替代分别请求各模块接口
+ */
+@RestController
+@RequestMapping("/api/resume")
+public class ResumeController {
+
+    // 发布记录按用户存储，不区分版本
+    private static final String PUBLISH_SECTION = "publish";
+
+    @Autowired private ResumeReadService resumeReadService;
+    @Autowired private SectionStores sectionStores;
+    @Autowired private PublishRecordRepository publishRecordRepository;
+    @Autowired @Qualifier("taskExecutor") private Executor taskExecutor;
+
+    // 等待数据库回源的最长时间
+    @Value("${resume.read-timeout-ms:3000}")
+    private long readTimeoutMs;
+
+    /**
+     * 获取简历的全部（或部分）模块
+     * @param sections 逗号分隔的模块名，可选 personalInfo、education、projects、skills、workinternship、publish，不传则返回全部
+     * @return 模块名到数据的映射，每个模块的结构与其单独的接口一致
+     */
+    @GetMapping("/{username}/{version}")
+    public ResponseEntity<?> getResume(
+            @PathVariable String username,
+            @PathVariable int version,
+            @RequestParam(required = false) List<String> sections,
+            HttpServletRequest request) {
+
+        String authenticatedUserId = (String) request.getAttribute("userId");
+        if (authenticatedUserId == null) {
+            return ResponseEntity.status(401).body("未授权访问");
+        }
+        if (!authenticatedUserId.equals(username)) {
+            return ResponseEntity.status(403).body("无权限访问其他用户的数据");
+        }
+
+        List<String> types = new ArrayList<>();
+        boolean includePublish = sections == null || sections.contains(PUBLISH_SECTION);
+        for (String type : sections == null ? ResumeReadService.SECTIONS : sections) {
+            if (ResumeReadService.SECTIONS.contains(type)) {
+                if (!types.contains(type)) {
+                    types.add(type);
+                }
+            } else if (!PUBLISH_SECTION.equals(type)) {
+                return ResponseEntity.badRequest().body("未知的模块: " + type);
+            }
+        }
+
+        try {
+            // 发布记录与各模块并发读取
+            CompletableFuture<Map<String, Object>> publishFuture = includePublish
+                    ? CompletableFuture.supplyAsync(() -> getLatestPublish(username), taskExecutor)
+                    : null;
+            ResumeReadService.SectionResult result = resumeReadService.loadSections(username, version, types, readTimeoutMs);
+
+            Map<String, Object> body = new LinkedHashMap<>();
+            for (String type : types) {
+                Object data = result.sections().get(type);
+                // 模块不存在时返回空对象而不是 404，与各模块单独的接口保持一致
+                body.put(type, data != null ? data : sectionStores.get(type).empty(username, version));
+            }
+            if (publishFuture != null) {
+                body.put(PUBLISH_SECTION, publishFuture.get(readTimeoutMs, TimeUnit.MILLISECONDS));
+            }
+
+            return ResponseEntity.ok(body);
+        } catch (Exception e) {
+            System.err.println("读取简历失败: " + username + " 版本 " + version + ", 错误: " + e.getMessage());
+            return ResponseEntity.status(500).body("读取简历时出错: " + e.getMessage());
+        }
+    }
+
+    private Map<String, Object> getLatestPublish(String userId) {
+        Map<String, Object> result = new HashMap<>();
+        publishRecordRepository.findByUserId(userId).ifPresent(record -> {
+            result.put("version", record.getVersion());
+            result.put("publishTime", record.getPublishTime());
+            result.put("snapshot", record.getSnapshot());
+        });
+        return result;
+    }
+}
@@ -0,0 +1,103 @@
+package com.example.flexresume.controller;
+
+import com.example.flexresume.model.ResumeSection;
+import com.example.flexresume.service.ReactiveResumeReader;
+import com.example.flexresume.service.SectionStore;
+import com.fasterxml.jackson.databind.JsonNode;
+import jakarta.servlet.http.HttpServletRequest;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.http.ResponseEntity;
+import reactor.core.publisher.Mono;
+
+import java.util.ConcurrentModificationException;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.RejectedExecutionException;
+
+/**
+ * 简历模块控制器的公共逻辑：身份验证后委托给对应的 SectionStore
+ * 保存只写入缓存，数据库写入由写回调度器批量完成；读取为非阻塞，等待 Redis、MongoDB 时不占用请求线程
+ */
+abstract class SectionControllerSupport<T extends ResumeSection> {
+
+    @Autowired
+    private ReactiveResumeReader reactiveResumeReader;
+
+    protected abstract SectionStore<T> store();
+
+    /**
+     * 保存模块数据，返回保存的数据
+     */
+    protected ResponseEntity<?> save(T document, HttpServletRequest request) {
+        ResponseEntity<?> denied = checkAccess(request, document.getUsername());
+        if (denied != null) {
+            return denied;
+        }
+        try {
+            return ResponseEntity.ok(store().save(document));
+        } catch (RejectedExecutionException e) {
+            return ResponseEntity.status(503).body(e.getMessage());
+        } catch (Exception e) {
+            System.err.println(store().getType() + " 保存错误: " + e.getMessage());
+            return ResponseEntity.status(500).body("保存数据时出错: " + e.getMessage());
+        }
+    }
+
+    /**
+     * 读取模块数据
+     * @param emptyIfMissing 不存在时返回空文档（为 false 时返回 404）
+     */
+    protected Mono<ResponseEntity<?>> load(String username, int version, HttpServletRequest request, boolean emptyIfMissing) {
+        ResponseEntity<?> denied = checkAccess(request, username);
+        if (denied != null) {
+            return Mono.just(denied);
+        }
+        return reactiveResumeReader.findSection(store(), username, version)
+                .<ResponseEntity<?>>map(ResponseEntity::ok)
+                .switchIfEmpty(Mono.fromSupplier(() -> emptyIfMissing
+                        ? ResponseEntity.ok(store().empty(username, version))
+                        : ResponseEntity.notFound().build()));
+    }
+
+    /**
+     * 对卡片 Map 应用 JSON 合并补丁，只上传修改过的卡片或字段
+     * 不支持合并补丁的模块返回 405，不调用 store
+     * @return 修改过的字段路径
+     */
+    protected ResponseEntity<?> patch(String username, int version, JsonNode patch, HttpServletRequest request) {
+        ResponseEntity<?> denied = checkAccess(request, username);
+        if (denied != null) {
+            return denied;
+        }
+        if (!store().supportsMergePatch()) {
+            return ResponseEntity.status(405).body(store().getType() + " 不支持合并补丁，请使用 POST 保存整个模块");
+        }
+        try {
+            Set<String> paths = store().patch(username, version, patch);
+            return ResponseEntity.ok(Map.of("updatedPaths", paths));
+        } catch (IllegalArgumentException e) {
+            return ResponseEntity.badRequest().body(e.getMessage());
+        } catch (ConcurrentModificationException e) {
+            return ResponseEntity.status(409).body(e.getMessage());
+        } catch (RejectedExecutionException e) {
+            return ResponseEntity.status(503).body(e.getMessage());
+        } catch (Exception e) {
+            System.err.println(store().getType() + " 补丁保存错误: " + e.getMessage());
+            return ResponseEntity.status(500).body("保存数据时出错: " + e.getMessage());
+        }
+    }
+
+    /**
+     * 验证请求的用户名是否与JWT验证过的用户一致，通过时返回 null
+     */
+    static ResponseEntity<?> checkAccess(HttpServletRequest request, String username) {
+        String authenticatedUserId = (String) request.getAttribute("userId");
+        if (authenticatedUserId == null) {
+            return ResponseEntity.status(401).body("未授权访问");
+        }
+        if (!authenticatedUserId.equals(username)) {
+            return ResponseEntity.status(403).body("无权限访问其他用户的数据");
+        }
+        return null;
+    }
+}
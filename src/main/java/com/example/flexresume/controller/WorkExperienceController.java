@@ -1,50 +1,37 @@
 package com.example.flexresume.controller;
 
 import com.example.flexresume.model.WorkExperienceDocument;
-import com.example.flexresume.repository.WorkExperienceRepository;
+import com.example.flexresume.service.SectionStore;
 import org.springframework.beans.factory.annotation.Autowired;
 import org.springframework.http.ResponseEntity;
 import org.springframework.web.bind.annotation.*;
+import jakarta.servlet.http.HttpServletRequest;
+import reactor.core.publisher.Mono;
 
 @RestController
 @RequestMapping("/api/work-experience-info")
-public class WorkExperienceController {
+public class WorkExperienceController extends SectionControllerSupport<WorkExperienceDocument> {
 
     @Autowired
-    private WorkExperienceRepository workExperienceRepository;
+    private SectionStore<WorkExperienceDocument> workExperienceStore;
 
-    // 保存工作经验信息
-    @PostMapping
-    public WorkExperienceDocument saveWorkExperience(@RequestBody WorkExperienceDocument workExperience) {
-        // 根据 username 查询是否已存在
-        WorkExperienceDocument existingWorkExperience = workExperienceRepository.findByUsername(workExperience.getUsername());
-
-        if (existingWorkExperience != null) {
-            // 如果用户存在，检查版本是否已存在
-            if (existingWorkExperience.getVersion() == workExperience.getVersion()) {
-                // 更新已存在版本的内容
-                existingWorkExperience.setWorkExperienceData(workExperience.getWorkExperienceData());
-            } else {
-                // 如果是新版本，只需要更新版本号和相关信息
-                existingWorkExperience.setVersion(workExperience.getVersion());
-                existingWorkExperience.setWorkExperienceData(workExperience.getWorkExperienceData());
-            }
-            return workExperienceRepository.save(existingWorkExperience);
-        }
+    @Override
+    protected SectionStore<WorkExperienceDocument> store() {
+        return workExperienceStore;
+    }
 
-        // 如果用户不存在，插入新记录
-        return workExperienceRepository.save(workExperience);
+    // 保存工作经验信息，添加用户身份验证；只写入缓存，由写回调度器批量写入数据库
+    @PostMapping
+    public ResponseEntity<?> saveWorkExperience(@RequestBody WorkExperienceDocument document, HttpServletRequest request) {
+        return save(document, request);
     }
 
-    // 根据用户名和版本号获取工作经验信息
+    // 根据用户名和版本号获取工作经验信息，添加用户身份验证
     @GetMapping
-    public ResponseEntity<WorkExperienceDocument> getWorkExperienceByUsernameAndVersion(
+    public Mono<ResponseEntity<?>> getWorkExperienceByUsernameAndVersion(
             @RequestParam String username,
-            @RequestParam int version) {
-        WorkExperienceDocument workExperience = workExperienceRepository.findByUsernameAndVersion(username, version).orElse(null);
-        if (workExperience == null) {
-            return ResponseEntity.notFound().build();
-        }
-        return ResponseEntity.ok(workExperience);
+            @RequestParam int version,
+            HttpServletRequest request) {
+        return load(username, version, request, false);
     }
-} 
\ No newline at end of file
+}
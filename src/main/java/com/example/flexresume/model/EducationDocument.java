@@ -2,12 +2,14 @@ package com.example.flexresume.model;
 
 import lombok.Data;
 import org.springframework.data.annotation.Id;
+import org.springframework.data.mongodb.core.index.CompoundIndex;
 import org.springframework.data.mongodb.core.mapping.Document;
 import java.util.Map;
 
 @Data
 @Document(collection = "education_info")
-public class EducationDocument {
+@CompoundIndex(def = "{'username': 1, 'version': 1}", unique = true)
+public class EducationDocument implements ResumeSection {
 
     @Id
     private String id; // MongoDB 自动生成
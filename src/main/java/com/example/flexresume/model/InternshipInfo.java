@@ -1,11 +1,13 @@
 package com.example.flexresume.model;
 
 import org.springframework.data.annotation.Id;
+import org.springframework.data.mongodb.core.index.CompoundIndex;
 import org.springframework.data.mongodb.core.mapping.Document;
 import lombok.Data;
 
 @Data
 @Document(collection = "internship_info")
+@CompoundIndex(def = "{'username': 1, 'version': 1}", unique = true)
 public class InternshipInfo {
     @Id
     private String id;
@@ -9,7 +9,7 @@ import java.util.List;
 @Data
 @Document(collection = "personal_info")
 @CompoundIndex(def = "{'username': 1, 'version': 1}", unique = true)
-public class PersonalInfo {
+public class PersonalInfo implements ResumeSection {
     @Id
     private String id;
 
@@ -1,6 +1,7 @@
 package com.example.flexresume.model;
 
 import org.springframework.data.annotation.Id;
+import org.springframework.data.mongodb.core.index.CompoundIndex;
 import org.springframework.data.mongodb.core.mapping.Document;
 
 import java.util.Map;
@@ -10,7 +11,8 @@ import java.util.Map;
  * projectData: 用于存每个 card 的数据
  */
 @Document(collection = "project")
-public class ProjectDocument {
+@CompoundIndex(def = "{'username': 1, 'version': 1}", unique = true)
+public class ProjectDocument implements ResumeSection {
     @Id
     private String id;
 
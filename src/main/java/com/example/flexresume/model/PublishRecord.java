@@ -1,11 +1,13 @@
 package com.example.flexresume.model;
 
 import org.springframework.data.annotation.Id;
+import org.springframework.data.mongodb.core.index.CompoundIndex;
 import org.springframework.data.mongodb.core.mapping.Document;
 import java.util.Date;
 import java.util.Map;
 
 @Document(collection = "publish_record")
+@CompoundIndex(def = "{'userId': 1, 'version': 1}", unique = true)
 public class PublishRecord {
     @Id
     private String id;
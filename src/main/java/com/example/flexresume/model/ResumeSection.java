@@ -0,0 +1,15 @@
+package com.example.flexresume.model;
+
+/**
+ * 按用户名 + 版本号存储的简历模块文档，由 SectionStore 统一读写
+ */
+public interface ResumeSection {
+    String getId();
+    void setId(String id);
+
+    String getUsername();
+    void setUsername(String username);
+
+    int getVersion();
+    void setVersion(int version);
+}
@@ -1,12 +1,14 @@
 package com.example.flexresume.model;
 
 import org.springframework.data.annotation.Id;
+import org.springframework.data.mongodb.core.index.CompoundIndex;
 import org.springframework.data.mongodb.core.mapping.Document;
 
 import java.util.Map;
 
 @Document(collection = "workexperience")
-public class WorkExperienceDocument {
+@CompoundIndex(def = "{'username': 1, 'version': 1}", unique = true)
+public class WorkExperienceDocument implements ResumeSection {
     @Id
     private String id;
 
@@ -1,6 +1,7 @@
 package com.example.flexresume.model;
 
 import org.springframework.data.annotation.Id;
+import org.springframework.data.mongodb.core.index.CompoundIndex;
 import org.springframework.data.mongodb.core.mapping.Document;
 import java.util.Map;
 
@@ -9,7 +10,8 @@ import java.util.Map;
  * workInternshipData: 用于存每个 card 的数据
  */
 @Document(collection = "workinternship")
-public class WorkInternshipDocument {
+@CompoundIndex(def = "{'username': 1, 'version': 1}", unique = true)
+public class WorkInternshipDocument implements ResumeSection {
     @Id
     private String id;
 
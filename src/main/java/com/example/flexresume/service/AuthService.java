@@ -0,0 +1,148 @@
+package com.example.flexresume.service;
+
+import com.example.flexresume.model.User;
+import com.example.flexresume.repository.UserRepository;
+import com.github.benmanes.caffeine.cache.Cache;
+import com.github.benmanes.caffeine.cache.Caffeine;
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.Timer;
+import jakarta.annotation.PostConstruct;
+import jakarta.annotation.PreDestroy;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.security.crypto.bcrypt.BCryptPasswordEncoder;
+import org.springframework.stereotype.Service;
+
+import java.time.Duration;
+import java.util.concurrent.ArrayBlockingQueue;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.concurrent.ThreadPoolExecutor;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.function.Supplier;
+
+/**
+ * 登录注册的密码哈希和用户查询
+ * BCrypt 在专用的有界线程池上执行，不占用 Tomcat 请求线程，线程数小于 CPU 核数，
+ * 大量登录时其余核仍可处理简历读取和自动保存；排队已满时立即拒绝（抛出 RejectedExecutionException），由调用方返回 429
+ */
+@Service
+public class AuthService {
+
+    @Autowired
+    private UserRepository userRepository;
+
+    @Autowired
+    private MeterRegistry meterRegistry;
+
+    // 哈希线程数，0 表示 CPU 核数的一半（至少 1）
+    @Value("${auth.hash.threads:0}")
+    private int hashThreads;
+
+    // 等待哈希的请求上限，超出时拒绝
+    @Value("${auth.hash.queue-capacity:32}")
+    private int queueCapacity;
+
+    // 按邮箱缓存用户的条目数和存活时间，登录时不必每次查询数据库
+    @Value("${auth.user-cache.max-size:10000}")
+    private long userCacheMaxSize;
+
+    @Value("${auth.user-cache.ttl-seconds:300}")
+    private long userCacheTtlSeconds;
+
+    private final BCryptPasswordEncoder passwordEncoder = new BCryptPasswordEncoder();
+
+    private ThreadPoolExecutor hashExecutor;
+
+    // 只缓存存在的用户，注册后的查询不会读到过期的“不存在”
+    private Cache<String, User> usersByEmail;
+
+    private Counter rejectedCounter;
+
+    @PostConstruct
+    public void init() {
+        int threads = hashThreads > 0 ? hashThreads : Math.max(1, Runtime.getRuntime().availableProcessors() / 2);
+        AtomicInteger threadIndex = new AtomicInteger();
+        hashExecutor = new ThreadPoolExecutor(threads, threads, 0, TimeUnit.MILLISECONDS,
+                new ArrayBlockingQueue<>(queueCapacity), runnable -> {
+                    Thread thread = new Thread(runnable, "password-hash-" + threadIndex.getAndIncrement());
+                    thread.setDaemon(true);
+                    return thread;
+                }, new ThreadPoolExecutor.AbortPolicy());
+        usersByEmail = Caffeine.newBuilder()
+                .maximumSize(userCacheMaxSize)
+                .expireAfterWrite(Duration.ofSeconds(userCacheTtlSeconds))
+                .build();
+
+        Gauge.builder("auth.hash.queue", hashExecutor, executor -> executor.getQueue().size())
+                .description("等待密码哈希的请求数")
+                .register(meterRegistry);
+        Gauge.builder("auth.hash.active", hashExecutor, ThreadPoolExecutor::getActiveCount)
+                .description("正在执行密码哈希的线程数")
+                .register(meterRegistry);
+        rejectedCounter = Counter.builder("auth.hash.rejected")
+                .description("哈希线程池排队已满被拒绝的登录注册请求数")
+                .register(meterRegistry);
+    }
+
+    @PreDestroy
+    public void shutdown() {
+        hashExecutor.shutdown();
+    }
+
+    /**
+     * 按邮箱查询用户，存在时缓存
+     */
+    public User findByEmail(String email) {
+        User cached = usersByEmail.getIfPresent(email);
+        if (cached != null) {
+            return cached;
+        }
+        User user = userRepository.findByEmail(email);
+        if (user != null) {
+            usersByEmail.put(email, user);
+        }
+        return user;
+    }
+
+    /**
+     * 保存新用户并放入缓存
+     */
+    public User saveUser(User user) {
+        User saved = userRepository.save(user);
+        usersByEmail.put(saved.getEmail(), saved);
+        return saved;
+    }
+
+    /**
+     * 在哈希线程池上计算密码哈希
+     * @throws RejectedExecutionException 排队已满
+     */
+    public CompletableFuture<String> encodePassword(String rawPassword) {
+        return submit("encode", () -> passwordEncoder.encode(rawPassword));
+    }
+
+    /**
+     * 在哈希线程池上校验密码
+     * @throws RejectedExecutionException 排队已满
+     */
+    public CompletableFuture<Boolean> matchesPassword(String rawPassword, String encodedPassword) {
+        return submit("matches", () -> passwordEncoder.matches(rawPassword, encodedPassword));
+    }
+
+    private <T> CompletableFuture<T> submit(String operation, Supplier<T> task) {
+        Timer timer = Timer.builder("auth.hash")
+                .description("一次密码哈希的耗时（不含排队）")
+                .tag("operation", operation)
+                .register(meterRegistry);
+        try {
+            return CompletableFuture.supplyAsync(() -> timer.record(task), hashExecutor);
+        } catch (RejectedExecutionException e) {
+            rejectedCounter.increment();
+            throw e;
+        }
+    }
+}
@@ -1,23 +1,283 @@
 package com.example.flexresume.service;
 
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.github.benmanes.caffeine.cache.Cache;
+import com.github.benmanes.caffeine.cache.Caffeine;
+import com.github.benmanes.caffeine.cache.stats.CacheStats;
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.binder.cache.CaffeineCacheMetrics;
+import jakarta.annotation.PostConstruct;
+import jakarta.annotation.PreDestroy;
 import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.data.redis.connection.Message;
+import org.springframework.data.redis.connection.RedisConnectionFactory;
+import org.springframework.data.redis.core.Cursor;
+import org.springframework.data.redis.core.ReactiveRedisTemplate;
+import org.springframework.data.redis.core.RedisCallback;
 import org.springframework.data.redis.core.RedisTemplate;
+import org.springframework.data.redis.core.ScanOptions;
+import org.springframework.data.redis.core.StringRedisTemplate;
+import org.springframework.data.redis.core.ZSetOperations;
+import org.springframework.data.redis.listener.ChannelTopic;
+import org.springframework.data.redis.core.script.DefaultRedisScript;
+import org.springframework.data.redis.core.script.RedisScript;
+import org.springframework.data.redis.listener.RedisMessageListenerContainer;
+import org.springframework.data.redis.serializer.GenericToStringSerializer;
+import org.springframework.data.redis.serializer.RedisSerializer;
 import org.springframework.scheduling.annotation.Async;
+import org.springframework.scheduling.annotation.Scheduled;
 import org.springframework.stereotype.Service;
+import reactor.core.publisher.Mono;
 
+import java.io.OutputStream;
+import java.nio.charset.StandardCharsets;
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.LinkedHashMap;
+import java.util.LinkedHashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.TreeSet;
+import java.util.UUID;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.CopyOnWriteArrayList;
+import java.util.concurrent.RejectedExecutionException;
 import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLongArray;
+import java.util.function.Consumer;
+import java.util.function.Predicate;
 
+/**
+ * 两级缓存：进程内 Caffeine 作为一级缓存（L1），Redis 作为二级缓存（L2）
+ * 本节点写入或删除时通过 Redis 发布订阅通知其他节点清除各自的 L1
+ */
 @Service
 public class CacheService {
 
     @Autowired
     private RedisTemplate<String, Object> redisTemplate;
 
+    @Autowired
+    private StringRedisTemplate stringRedisTemplate;
+
+    @Autowired
+    private ReactiveRedisTemplate<String, Object> reactiveRedisTemplate;
+
+    @Autowired
+    private RedisConnectionFactory connectionFactory;
+
+    @Autowired
+    private ObjectMapper objectMapper;
+
+    @Autowired
+    private MeterRegistry meterRegistry;
+
+    @Autowired
+    private WriteBackJournal writeBackJournal;
+
+    // L1 最大容量（按序列化后的字节数估算）
+    @Value("${cache.l1.max-bytes:67108864}")
+    private long l1MaxBytes;
+
+    // L1 条目存活时间，兜底丢失的失效通知
+    @Value("${cache.l1.ttl-seconds:60}")
+    private long l1TtlSeconds;
+
+    // 跨节点 L1 失效通知频道
+    private static final String INVALIDATION_CHANNEL = "cache:invalidate";
+
+    // 本节点标识，忽略自己发出的失效通知
+    private final String nodeId = UUID.randomUUID().toString();
+
+    private Cache<String, Object> localCache;
+
+    // L1 失效计数，按key的哈希分段：写入或失效时先加一再修改 L1；从 Redis 读取后回填 L1 的一方在读取前记下计数，
+    // 回填后计数已变化说明期间该key被写入或失效，撤销回填，避免读到的旧数据覆盖失效结果直到 TTL 过期
+    private static final int INVALIDATION_STRIPES = 1024;
+    private final AtomicLongArray invalidationCounts = new AtomicLongArray(INVALIDATION_STRIPES);
+
+    // 其他组件注册的失效回调（如发布简历的本地缓存）
+    private final List<Consumer<String>> invalidationListeners = new CopyOnWriteArrayList<>();
+
+    // 按模块和结果（l1_hit、redis_hit、miss、error）统计的缓存读取次数
+    private final Map<String, Counter> requestCounters = new ConcurrentHashMap<>();
+
+    // 停机写回开始后不再接受新的写入，保证写回完成时没有遗漏的脏数据
+    private volatile boolean acceptingWrites = true;
+
+    // 失效通知的订阅容器，不交给 Spring 生命周期管理，避免 Redis 不可用时应用无法启动
+    private RedisMessageListenerContainer listenerContainer;
+
     // 缓存key前缀
     private static final String CACHE_PREFIX = "resume:";
     
-    // 脏数据标记前缀
-    private static final String DIRTY_PREFIX = "dirty:";
+    // 脏数据索引：有序集合，member 为缓存键，score 为首次标记为脏的时间戳
+    private static final String DIRTY_INDEX_KEY = "dirty:index";
+
+    // 脏数据过期索引：有序集合，member 为缓存键，score 为缓存数据最近一次写入后的过期时间戳，
+    // 写回时优先处理即将过期的key，避免未写回的数据随缓存过期丢失
+    private static final String DIRTY_EXPIRY_INDEX_KEY = "dirty:expiry";
+
+    // 旧版本的脏标记：每个key一个字符串 dirty:{缓存键}，值为变脏时间戳，30 分钟后过期
+    private static final String LEGACY_DIRTY_PREFIX = "dirty:";
+
+    // 按用户+版本划分的脏数据集合前缀，发布时只需读取该用户自己的脏数据
+    private static final String USER_DIRTY_PREFIX = "dirty:user:";
+
+    // 每个缓存键的写入代数，每次写入加一；写回只在代数未变化时清除脏标记
+    private static final String GENERATION_PREFIX = "dirty:gen:";
+
+    // 代数计数器的存活时间，远长于任何一次写回的耗时
+    private static final long GENERATION_TTL_MILLIS = TimeUnit.DAYS.toMillis(1);
+
+    // 合并补丁修改过的字段路径（哈希），写回时据此只更新这些路径；不存在时写回整个文档
+    private static final String PATCH_PREFIX = "dirty:patch:";
+
+    // 补丁哈希中的标记字段：补丁之前已有未写回的整体写入，写回时仍需替换整个文档
+    private static final String FULL_REPLACE_FIELD = "__full__";
+
+    private static final RedisSerializer<Long> LONG_SERIALIZER = new GenericToStringSerializer<>(Long.class);
+
+    /**
+     * 写入缓存并标记为脏数据，一次往返完成：
+     * 写入数据、加入全局和用户脏数据索引（新变脏时追加写回日志）、更新过期索引、代数加一、
+     * 清除补丁路径（整体写入后需整体写回）、发送 L1 失效通知，返回新的代数
+     * KEYS: 缓存键、全局索引、用户索引、代数键、补丁路径键、过期索引、写回日志
+     * ARGV: 数据、过期毫秒数、当前时间戳、索引成员、代数存活毫秒数、失效通知频道、失效通知内容、过期时间戳、
+     *       写回日志最大长度（0 表示不追加）
+     */
+    private static final RedisScript<Long> WRITE_AND_MARK_DIRTY_SCRIPT = new DefaultRedisScript<>(
+            "redis.call('SET', KEYS[1], ARGV[1], 'PX', ARGV[2]) " +
+            "if redis.call('ZADD', KEYS[2], 'NX', ARGV[3], ARGV[4]) == 1 and ARGV[9] ~= '0' then " +
+            "  redis.call('XADD', KEYS[7], 'MAXLEN', '~', ARGV[9], '*', 'key', ARGV[4]) " +
+            "end " +
+            "redis.call('SADD', KEYS[3], ARGV[4]) " +
+            "redis.call('ZADD', KEYS[6], ARGV[8], ARGV[4]) " +
+            "local gen = redis.call('INCR', KEYS[4]) " +
+            "redis.call('PEXPIRE', KEYS[4], ARGV[5]) " +
+            "redis.call('DEL', KEYS[5]) " +
+            "redis.call('PUBLISH', ARGV[6], ARGV[7]) " +
+            "return gen", Long.class);
+
+    /**
+     * 写入合并补丁后的数据，仅在代数与读取时一致（期间没有其他写入）时执行，否则返回 -1
+     * 与整体写入相同地标记为脏数据，并记录补丁修改过的路径；
+     * 已有未写回的整体写入（脏且没有补丁路径）时加上整体替换标记
+     * KEYS: 缓存键、全局索引、用户索引、代数键、补丁路径键、过期索引、写回日志
+     * ARGV: 读取时的代数（未读到为空串）、数据、过期毫秒数、当前时间戳、索引成员、代数存活毫秒数、
+     *       失效通知频道、失效通知内容、整体替换标记、过期时间戳、写回日志最大长度，之后为修改过的路径
+     */
+    private static final RedisScript<Long> WRITE_PATCH_SCRIPT = new DefaultRedisScript<>(
+            "local current = redis.call('GET', KEYS[4]) " +
+            "if not ((current == false and ARGV[1] == '') or current == ARGV[1]) then return -1 end " +
+            "if redis.call('ZSCORE', KEYS[2], ARGV[5]) and redis.call('EXISTS', KEYS[5]) == 0 then " +
+            "  redis.call('HSET', KEYS[5], ARGV[9], '1') " +
+            "end " +
+            "for i = 12, #ARGV do redis.call('HSET', KEYS[5], ARGV[i], '1') end " +
+            "redis.call('PEXPIRE', KEYS[5], ARGV[6]) " +
+            "redis.call('SET', KEYS[1], ARGV[2], 'PX', ARGV[3]) " +
+            "if redis.call('ZADD', KEYS[2], 'NX', ARGV[4], ARGV[5]) == 1 and ARGV[11] ~= '0' then " +
+            "  redis.call('XADD', KEYS[7], 'MAXLEN', '~', ARGV[11], '*', 'key', ARGV[5]) " +
+            "end " +
+            "redis.call('SADD', KEYS[3], ARGV[5]) " +
+            "redis.call('ZADD', KEYS[6], ARGV[10], ARGV[5]) " +
+            "local gen = redis.call('INCR', KEYS[4]) " +
+            "redis.call('PEXPIRE', KEYS[4], ARGV[6]) " +
+            "redis.call('PUBLISH', ARGV[7], ARGV[8]) " +
+            "return gen", Long.class);
+
+    /**
+     * 按代数有条件地清除脏标记和补丁路径，写回期间又有新写入的key保持为脏，并重新追加写回日志
+     * （该key的日志记录已在本次写回后确认，之后的写入因key仍为脏不会追加）
+     * KEYS: 全局索引、过期索引、写回日志，随后每个key依次为 代数键、用户索引、补丁路径键
+     * ARGV: 写回日志最大长度（0 表示不追加），随后每个key依次为 写回时读到的代数（未读到为空串）、索引成员
+     */
+    private static final RedisScript<Long> CLEAR_DIRTY_IF_UNCHANGED_SCRIPT = new DefaultRedisScript<>(
+            "local cleared = 0 " +
+            "for i = 2, #ARGV, 2 do " +
+            "  local k = (i - 2) / 2 * 3 + 4 " +
+            "  local gen = redis.call('GET', KEYS[k]) " +
+            "  if (gen == false and ARGV[i] == '') or gen == ARGV[i] then " +
+            "    redis.call('ZREM', KEYS[1], ARGV[i + 1]) " +
+            "    redis.call('ZREM', KEYS[2], ARGV[i + 1]) " +
+            "    redis.call('SREM', KEYS[k + 1], ARGV[i + 1]) " +
+            "    redis.call('DEL', KEYS[k + 2]) " +
+            "    cleared = cleared + 1 " +
+            "  elseif ARGV[1] ~= '0' and redis.call('ZSCORE', KEYS[1], ARGV[i + 1]) then " +
+            "    redis.call('XADD', KEYS[3], 'MAXLEN', '~', ARGV[1], '*', 'key', ARGV[i + 1]) " +
+            "  end " +
+            "end " +
+            "return cleared", Long.class);
+
+    @PostConstruct
+    public void init() {
+        localCache = Caffeine.newBuilder()
+                .maximumWeight(l1MaxBytes)
+                .weigher((String key, Object value) -> estimateSize(value))
+                .expireAfterWrite(Duration.ofSeconds(l1TtlSeconds))
+                .recordStats()
+                .build();
+        CaffeineCacheMetrics.monitor(meterRegistry, localCache, "resume-l1");
+        listenerContainer = new RedisMessageListenerContainer();
+        listenerContainer.setConnectionFactory(connectionFactory);
+        listenerContainer.afterPropertiesSet();
+        listenerContainer.addMessageListener(this::onInvalidation, new ChannelTopic(INVALIDATION_CHANNEL));
+    }
+
+    @PreDestroy
+    public void destroy() throws Exception {
+        listenerContainer.destroy();
+    }
+
+    /**
+     * 确保已订阅失效通知频道，订阅失败时定期重试
+     */
+    @Scheduled(fixedDelay = 30000)
+    public void ensureInvalidationSubscription() {
+        if (listenerContainer.isRunning()) {
+            return;
+        }
+        try {
+            listenerContainer.start();
+        } catch (Exception e) {
+            // 未订阅期间缩短 L1 的有效性：直接清空，避免读到其他节点已更新的数据
+            for (int i = 0; i < INVALIDATION_STRIPES; i++) {
+                invalidationCounts.incrementAndGet(i);
+            }
+            localCache.invalidateAll();
+            System.err.println("订阅缓存失效通知失败，稍后重试: " + e.getMessage());
+        }
+    }
+
+    /**
+     * 收到其他节点的失效通知，清除本地 L1 中对应的key
+     * 消息格式：节点标识|缓存键
+     */
+    private void onInvalidation(Message message, byte[] pattern) {
+        String body = new String(message.getBody(), StandardCharsets.UTF_8);
+        int separator = body.indexOf('|');
+        if (separator < 0 || body.substring(0, separator).equals(nodeId)) {
+            return;
+        }
+        String key = body.substring(separator + 1);
+        invalidateLocal(key);
+        for (Consumer<String> listener : invalidationListeners) {
+            listener.accept(key);
+        }
+    }
+
+    /**
+     * 注册失效回调，收到其他节点的失效通知时调用
+     */
+    public void addInvalidationListener(Consumer<String> listener) {
+        invalidationListeners.add(listener);
+    }
 
     /**
      * 写入缓存（写回策略）
@@ -25,26 +285,230 @@ public class CacheService {
      * @param data 数据
      * @param expireMinutes 过期时间（分钟）
      */
-    public void writeToCache(String key, Object data, int expireMinutes) {
-        String cacheKey = CACHE_PREFIX + key;
-        redisTemplate.opsForValue().set(cacheKey, data, expireMinutes, TimeUnit.MINUTES);
-        
-        // 标记为脏数据，需要异步写回数据库
-        markDirty(key);
+    public long writeToCache(String key, Object data, int expireMinutes) {
+        checkAcceptingWrites();
+        String userIndexKey = userDirtyIndexKey(key);
+        if (userIndexKey == null) {
+            throw new IllegalArgumentException("缓存key格式应为 type:username:version: " + key);
+        }
+        @SuppressWarnings("unchecked")
+        RedisSerializer<Object> valueSerializer = (RedisSerializer<Object>) redisTemplate.getValueSerializer();
+        long now = System.currentTimeMillis();
+        long ttlMillis = TimeUnit.MINUTES.toMillis(expireMinutes);
+        Long generation = redisTemplate.execute(WRITE_AND_MARK_DIRTY_SCRIPT, RedisSerializer.byteArray(), LONG_SERIALIZER,
+                List.of(CACHE_PREFIX + key, DIRTY_INDEX_KEY, userIndexKey, GENERATION_PREFIX + key, PATCH_PREFIX + key,
+                        DIRTY_EXPIRY_INDEX_KEY, WriteBackJournal.STREAM_KEY),
+                valueSerializer.serialize(data),
+                utf8(String.valueOf(ttlMillis)),
+                utf8(String.valueOf(now)),
+                utf8(key),
+                utf8(String.valueOf(GENERATION_TTL_MILLIS)),
+                utf8(INVALIDATION_CHANNEL),
+                utf8(nodeId + "|" + key),
+                utf8(String.valueOf(now + ttlMillis)),
+                utf8(String.valueOf(writeBackJournal.scriptMaxLength())));
+        putLocalAfterWrite(key, data);
+        return generation != null ? generation : 0;
+    }
+
+    /**
+     * 写入合并补丁后的数据（写回策略），写回时只更新补丁修改过的路径
+     * @param expectedGeneration 读取原数据时的代数（见 {@link #getMultiForWriteBack}），期间有其他写入时放弃
+     * @param paths 修改过的字段路径（点分隔，如 projectData.project1.name）
+     * @return 新的代数，代数已变化时返回 -1，调用方应重新读取后再应用补丁
+     */
+    public long writePatchToCache(String key, Object data, int expireMinutes, String expectedGeneration,
+                                  Collection<String> paths) {
+        checkAcceptingWrites();
+        String userIndexKey = userDirtyIndexKey(key);
+        if (userIndexKey == null) {
+            throw new IllegalArgumentException("缓存key格式应为 type:username:version: " + key);
+        }
+        @SuppressWarnings("unchecked")
+        RedisSerializer<Object> valueSerializer = (RedisSerializer<Object>) redisTemplate.getValueSerializer();
+        long now = System.currentTimeMillis();
+        long ttlMillis = TimeUnit.MINUTES.toMillis(expireMinutes);
+        List<byte[]> args = new ArrayList<>(List.of(
+                utf8(expectedGeneration),
+                valueSerializer.serialize(data),
+                utf8(String.valueOf(ttlMillis)),
+                utf8(String.valueOf(now)),
+                utf8(key),
+                utf8(String.valueOf(GENERATION_TTL_MILLIS)),
+                utf8(INVALIDATION_CHANNEL),
+                utf8(nodeId + "|" + key),
+                utf8(FULL_REPLACE_FIELD),
+                utf8(String.valueOf(now + ttlMillis)),
+                utf8(String.valueOf(writeBackJournal.scriptMaxLength()))));
+        for (String path : paths) {
+            args.add(utf8(path));
+        }
+        Long generation = redisTemplate.execute(WRITE_PATCH_SCRIPT, RedisSerializer.byteArray(), LONG_SERIALIZER,
+                List.of(CACHE_PREFIX + key, DIRTY_INDEX_KEY, userIndexKey, GENERATION_PREFIX + key, PATCH_PREFIX + key,
+                        DIRTY_EXPIRY_INDEX_KEY, WriteBackJournal.STREAM_KEY),
+                args.toArray());
+        long result = generation != null ? generation : -1;
+        if (result >= 0) {
+            putLocalAfterWrite(key, data);
+        }
+        return result;
     }
 
     /**
-     * 从缓存读取数据
+     * 批量读取待写回的补丁路径（一次管道往返）
+     * @return 只包含可以按路径更新的key；没有补丁记录或需要整体替换的key不在结果中
+     */
+    public Map<String, Set<String>> getPendingPatchPaths(List<String> keys) {
+        Map<String, Set<String>> result = new HashMap<>();
+        if (keys.isEmpty()) {
+            return result;
+        }
+        List<Object> fields = stringRedisTemplate.executePipelined((RedisCallback<Object>) connection -> {
+            for (String key : keys) {
+                connection.hashCommands().hKeys(utf8(PATCH_PREFIX + key));
+            }
+            return null;
+        });
+        for (int i = 0; i < keys.size(); i++) {
+            Object value = fields.get(i);
+            if (value instanceof Collection<?> paths && !paths.isEmpty() && !paths.contains(FULL_REPLACE_FIELD)) {
+                Set<String> pathSet = new TreeSet<>();
+                for (Object path : paths) {
+                    pathSet.add(String.valueOf(path));
+                }
+                result.put(keys.get(i), pathSet);
+            }
+        }
+        return result;
+    }
+
+    /**
+     * 从缓存读取数据，优先读取 L1
      */
     public Object getFromCache(String key) {
+        Object local = localCache.getIfPresent(key);
+        if (local != null) {
+            countRequest(key, "l1_hit");
+            return local;
+        }
         String cacheKey = CACHE_PREFIX + key;
-        return redisTemplate.opsForValue().get(cacheKey);
+        long invalidationCount = invalidationCount(key);
+        Object data;
+        try {
+            data = redisTemplate.opsForValue().get(cacheKey);
+        } catch (RuntimeException e) {
+            countRequest(key, "error");
+            throw e;
+        }
+        countRequest(key, data != null ? "redis_hit" : "miss");
+        if (data != null) {
+            putLocalIfUnchanged(key, data, invalidationCount);
+        }
+        return data;
+    }
+
+    /**
+     * 非阻塞地从缓存读取数据，优先读取 L1；等待 Redis 时不占用调用线程，未命中时为空
+     */
+    public Mono<Object> getFromCacheReactive(String key) {
+        Object local = localCache.getIfPresent(key);
+        if (local != null) {
+            countRequest(key, "l1_hit");
+            return Mono.just(local);
+        }
+        long invalidationCount = invalidationCount(key);
+        return reactiveRedisTemplate.opsForValue().get(CACHE_PREFIX + key)
+                .doOnNext(data -> putLocalIfUnchanged(key, data, invalidationCount))
+                .doOnSuccess(data -> countRequest(key, data != null ? "redis_hit" : "miss"))
+                .doOnError(e -> countRequest(key, "error"));
+    }
+
+    /**
+     * 批量从缓存读取数据，L1 未命中的key合并为一次 MGET，返回结果与传入的key一一对应，未命中为 null
+     */
+    public List<Object> getMultiFromCache(List<String> keys) {
+        List<Object> values = new ArrayList<>(Collections.nCopies(keys.size(), null));
+        List<String> missedKeys = new ArrayList<>();
+        List<Integer> missedIndexes = new ArrayList<>();
+        for (int i = 0; i < keys.size(); i++) {
+            Object local = localCache.getIfPresent(keys.get(i));
+            if (local != null) {
+                values.set(i, local);
+                countRequest(keys.get(i), "l1_hit");
+            } else {
+                missedKeys.add(keys.get(i));
+                missedIndexes.add(i);
+            }
+        }
+        if (missedKeys.isEmpty()) {
+            return values;
+        }
+        long[] invalidationCounts = new long[missedKeys.size()];
+        for (int i = 0; i < missedKeys.size(); i++) {
+            invalidationCounts[i] = invalidationCount(missedKeys.get(i));
+        }
+        List<Object> remoteValues;
+        try {
+            remoteValues = getMultiFromRedis(missedKeys);
+        } catch (RuntimeException e) {
+            missedKeys.forEach(key -> countRequest(key, "error"));
+            throw e;
+        }
+        for (int i = 0; i < missedKeys.size(); i++) {
+            Object data = remoteValues.get(i);
+            countRequest(missedKeys.get(i), data != null ? "redis_hit" : "miss");
+            if (data != null) {
+                values.set(missedIndexes.get(i), data);
+                putLocalIfUnchanged(missedKeys.get(i), data, invalidationCounts[i]);
+            }
+        }
+        return values;
+    }
+
+    /**
+     * 跳过 L1 直接从 Redis 批量读取（一次 MGET），写回数据库时以 Redis 中的数据为准
+     */
+    public List<Object> getMultiFromRedis(List<String> keys) {
+        List<String> cacheKeys = new ArrayList<>(keys.size());
+        for (String key : keys) {
+            cacheKeys.add(CACHE_PREFIX + key);
+        }
+        List<Object> values = redisTemplate.opsForValue().multiGet(cacheKeys);
+        if (values == null) {
+            values = new ArrayList<>(Collections.nCopies(keys.size(), null));
+        }
+        return values;
+    }
+
+    /**
+     * 写回专用：一次 MGET 同时读取数据和对应的写入代数，保证写回的数据与代数一致
+     */
+    public List<VersionedValue> getMultiForWriteBack(List<String> keys) {
+        byte[][] rawKeys = new byte[keys.size() * 2][];
+        for (int i = 0; i < keys.size(); i++) {
+            rawKeys[i] = utf8(CACHE_PREFIX + keys.get(i));
+            rawKeys[keys.size() + i] = utf8(GENERATION_PREFIX + keys.get(i));
+        }
+        List<byte[]> rawValues = redisTemplate.execute((RedisCallback<List<byte[]>>) connection ->
+                connection.stringCommands().mGet(rawKeys));
+        List<VersionedValue> result = new ArrayList<>(keys.size());
+        for (int i = 0; i < keys.size(); i++) {
+            byte[] rawData = rawValues != null ? rawValues.get(i) : null;
+            byte[] rawGeneration = rawValues != null ? rawValues.get(keys.size() + i) : null;
+            Object data = rawData != null ? redisTemplate.getValueSerializer().deserialize(rawData) : null;
+            String generation = rawGeneration != null ? new String(rawGeneration, StandardCharsets.UTF_8) : "";
+            result.add(new VersionedValue(data, generation));
+        }
+        return result;
     }
 
     /**
      * 检查缓存是否存在
      */
     public boolean hasCache(String key) {
+        if (localCache.getIfPresent(key) != null) {
+            return true;
+        }
         String cacheKey = CACHE_PREFIX + key;
         return Boolean.TRUE.equals(redisTemplate.hasKey(cacheKey));
     }
@@ -55,39 +519,309 @@ public class CacheService {
     public void evictCache(String key) {
         String cacheKey = CACHE_PREFIX + key;
         redisTemplate.delete(cacheKey);
+        invalidateLocal(key);
+        publishInvalidation(key);
         removeDirtyFlag(key);
     }
 
     /**
-     * 标记数据为脏数据
+     * 该key所在分段的 L1 失效计数，回源数据库前取得并传给 {@link #warmUpCache}
      */
-    private void markDirty(String key) {
-        String dirtyKey = DIRTY_PREFIX + key;
-        // 设置脏标记，30分钟后过期（确保有足够时间写回）
-        redisTemplate.opsForValue().set(dirtyKey, System.currentTimeMillis(), 30, TimeUnit.MINUTES);
+    public long invalidationCount(String key) {
+        return invalidationCounts.get(invalidationStripe(key));
+    }
+
+    private static int invalidationStripe(String key) {
+        return Math.floorMod(key.hashCode(), INVALIDATION_STRIPES);
+    }
+
+    private void invalidateLocal(String key) {
+        invalidationCounts.incrementAndGet(invalidationStripe(key));
+        localCache.invalidate(key);
+    }
+
+    /**
+     * 本节点写入 Redis 后更新 L1；同样先增加失效计数，使写入前开始的读取不会用旧数据覆盖
+     */
+    private void putLocalAfterWrite(String key, Object data) {
+        invalidationCounts.incrementAndGet(invalidationStripe(key));
+        localCache.put(key, data);
+    }
+
+    /**
+     * 用读取 Redis 得到的数据回填 L1；读取开始后该key（或同一分段的key）被写入或失效时撤销回填
+     * 先写入再检查：检查之后发生的失效会在自己的计数加一之后清除 L1，同样不会留下旧数据
+     */
+    private void putLocalIfUnchanged(String key, Object data, long invalidationCount) {
+        localCache.put(key, data);
+        if (invalidationCount(key) != invalidationCount) {
+            localCache.invalidate(key);
+        }
+    }
+
+    /**
+     * L1 命中、未命中、淘汰等统计
+     */
+    public Map<String, Object> getLocalCacheStats() {
+        CacheStats stats = localCache.stats();
+        Map<String, Object> result = new LinkedHashMap<>();
+        result.put("hitCount", stats.hitCount());
+        result.put("missCount", stats.missCount());
+        result.put("hitRate", stats.hitRate());
+        result.put("evictionCount", stats.evictionCount());
+        result.put("evictionWeight", stats.evictionWeight());
+        result.put("estimatedSize", localCache.estimatedSize());
+        return result;
+    }
+
+    /**
+     * 记录一次缓存读取，按缓存key的类型部分区分模块
+     */
+    private void countRequest(String key, String result) {
+        int separator = key.indexOf(':');
+        String section = separator > 0 ? key.substring(0, separator) : "unknown";
+        requestCounters.computeIfAbsent(section + "|" + result, k -> Counter.builder("cache.requests")
+                .description("缓存读取次数")
+                .tag("section", section)
+                .tag("result", result)
+                .register(meterRegistry))
+                .increment();
+    }
+
+    /**
+     * 通知其他节点清除 L1 中的key
+     */
+    public void publishInvalidation(String key) {
+        try {
+            stringRedisTemplate.convertAndSend(INVALIDATION_CHANNEL, nodeId + "|" + key);
+        } catch (Exception e) {
+            System.err.println("发送缓存失效通知失败: " + key + ", 错误: " + e.getMessage());
+        }
+    }
+
+    /**
+     * 估算缓存值序列化后的字节数，作为 L1 的权重
+     */
+    private int estimateSize(Object value) {
+        CountingOutputStream out = new CountingOutputStream();
+        try {
+            objectMapper.writeValue(out, value);
+        } catch (Exception e) {
+            return 1;
+        }
+        return (int) Math.min(Integer.MAX_VALUE, Math.max(1, out.count));
+    }
+
+    private static byte[] utf8(String value) {
+        return value.getBytes(StandardCharsets.UTF_8);
+    }
+
+    /**
+     * 缓存数据及其写入代数（没有代数时为空串）
+     */
+    public record VersionedValue(Object data, String generation) {
+    }
+
+    private static class CountingOutputStream extends OutputStream {
+        private long count;
+
+        @Override
+        public void write(int b) {
+            count++;
+        }
+
+        @Override
+        public void write(byte[] b, int off, int len) {
+            count += len;
+        }
     }
 
     /**
      * 移除脏数据标记
      */
     public void removeDirtyFlag(String key) {
-        String dirtyKey = DIRTY_PREFIX + key;
-        redisTemplate.delete(dirtyKey);
+        removeDirtyFlags(List.of(key));
+    }
+
+    /**
+     * 批量移除脏数据标记（同时清理全局索引、过期索引和用户索引）
+     */
+    public void removeDirtyFlags(Collection<String> keys) {
+        if (keys.isEmpty()) {
+            return;
+        }
+        stringRedisTemplate.opsForZSet().remove(DIRTY_INDEX_KEY, keys.toArray());
+        stringRedisTemplate.opsForZSet().remove(DIRTY_EXPIRY_INDEX_KEY, keys.toArray());
+        List<String> patchKeys = new ArrayList<>(keys.size());
+        Map<String, List<String>> keysByUser = new HashMap<>();
+        for (String key : keys) {
+            patchKeys.add(PATCH_PREFIX + key);
+            String userIndexKey = userDirtyIndexKey(key);
+            if (userIndexKey != null) {
+                keysByUser.computeIfAbsent(userIndexKey, k -> new ArrayList<>()).add(key);
+            }
+        }
+        keysByUser.forEach((userIndexKey, userKeys) ->
+                stringRedisTemplate.opsForSet().remove(userIndexKey, userKeys.toArray()));
+        stringRedisTemplate.delete(patchKeys);
+    }
+
+    /**
+     * 停机写回开始前调用，之后的写入抛出 RejectedExecutionException
+     */
+    public void stopAcceptingWrites() {
+        acceptingWrites = false;
+    }
+
+    private void checkAcceptingWrites() {
+        if (!acceptingWrites) {
+            throw new RejectedExecutionException("服务正在停止，暂不接受写入");
+        }
+    }
+
+    /**
+     * 将旧版本的脏标记（dirty:{缓存键}）迁移到脏数据索引和用户索引后删除
+     * 用 SCAN 分批遍历，不阻塞 Redis；新版本的 dirty:index、dirty:user: 等key按格式和模块名排除
+     * @param isSectionType 判断缓存键的第一段是否为已知的模块名
+     * @return 迁移的数量
+     */
+    public int migrateLegacyDirtyMarkers(Predicate<String> isSectionType) {
+        List<String> legacyKeys = new ArrayList<>();
+        ScanOptions options = ScanOptions.scanOptions().match(LEGACY_DIRTY_PREFIX + "*").count(500).build();
+        try (Cursor<String> cursor = stringRedisTemplate.scan(options)) {
+            while (cursor.hasNext()) {
+                String markerKey = cursor.next();
+                String key = markerKey.substring(LEGACY_DIRTY_PREFIX.length());
+                String[] keyParts = key.split(":");
+                if (keyParts.length == 3 && isSectionType.test(keyParts[0]) && keyParts[2].matches("\\d+")) {
+                    legacyKeys.add(key);
+                }
+            }
+        }
+        for (String key : legacyKeys) {
+            Object markedAt = redisTemplate.opsForValue().get(LEGACY_DIRTY_PREFIX + key);
+            long timestamp = markedAt instanceof Number number ? number.longValue() : System.currentTimeMillis();
+            stringRedisTemplate.opsForZSet().addIfAbsent(DIRTY_INDEX_KEY, key, timestamp);
+            stringRedisTemplate.opsForSet().add(userDirtyIndexKey(key), key);
+            stringRedisTemplate.delete(LEGACY_DIRTY_PREFIX + key);
+        }
+        return legacyKeys.size();
+    }
+
+    /**
+     * 写回完成后按代数有条件地清除脏标记
+     * @param generations 缓存键到写回时读到的代数
+     * @return 实际清除的数量，其余的key在写回期间又被写入，仍为脏数据
+     */
+    public int removeDirtyFlagsIfUnchanged(Map<String, String> generations) {
+        if (generations.isEmpty()) {
+            return 0;
+        }
+        List<String> scriptKeys = new ArrayList<>();
+        List<byte[]> args = new ArrayList<>();
+        scriptKeys.add(DIRTY_INDEX_KEY);
+        scriptKeys.add(DIRTY_EXPIRY_INDEX_KEY);
+        scriptKeys.add(WriteBackJournal.STREAM_KEY);
+        args.add(utf8(String.valueOf(writeBackJournal.scriptMaxLength())));
+        for (Map.Entry<String, String> entry : generations.entrySet()) {
+            String userIndexKey = userDirtyIndexKey(entry.getKey());
+            scriptKeys.add(GENERATION_PREFIX + entry.getKey());
+            scriptKeys.add(userIndexKey != null ? userIndexKey : USER_DIRTY_PREFIX);
+            scriptKeys.add(PATCH_PREFIX + entry.getKey());
+            args.add(utf8(entry.getValue()));
+            args.add(utf8(entry.getKey()));
+        }
+        Long cleared = redisTemplate.execute(CLEAR_DIRTY_IF_UNCHANGED_SCRIPT, RedisSerializer.byteArray(), LONG_SERIALIZER,
+                scriptKeys, args.toArray());
+        return cleared != null ? cleared.intValue() : 0;
+    }
+
+    /**
+     * 获取某个用户某个版本的全部脏数据key
+     */
+    public Set<String> getUserDirtyKeys(String username, int version) {
+        Set<String> keys = stringRedisTemplate.opsForSet().members(USER_DIRTY_PREFIX + username + ":" + version);
+        return keys != null ? keys : Set.of();
+    }
+
+    /**
+     * 由缓存key（type:username:version）得到对应的用户脏数据集合key，格式不合法时返回 null
+     */
+    private String userDirtyIndexKey(String key) {
+        String[] keyParts = key.split(":");
+        if (keyParts.length < 3) {
+            return null;
+        }
+        return USER_DIRTY_PREFIX + keyParts[1] + ":" + keyParts[2];
     }
 
     /**
      * 检查是否为脏数据
      */
     public boolean isDirty(String key) {
-        String dirtyKey = DIRTY_PREFIX + key;
-        return Boolean.TRUE.equals(redisTemplate.hasKey(dirtyKey));
+        return stringRedisTemplate.opsForZSet().score(DIRTY_INDEX_KEY, key) != null;
+    }
+
+    /**
+     * 从给定的key中筛选出仍为脏数据的key
+     */
+    public Set<String> filterDirtyKeys(Collection<String> keys) {
+        if (keys.isEmpty()) {
+            return Set.of();
+        }
+        List<String> keyList = new ArrayList<>(keys);
+        List<Double> scores = stringRedisTemplate.opsForZSet().score(DIRTY_INDEX_KEY, keyList.toArray());
+        Set<String> dirty = new LinkedHashSet<>();
+        for (int i = 0; i < keyList.size(); i++) {
+            if (scores != null && scores.get(i) != null) {
+                dirty.add(keyList.get(i));
+            }
+        }
+        return dirty;
+    }
+
+    /**
+     * 按变脏时间从早到晚分批读取脏数据key（不含前缀）
+     * @param before 只返回在该时间戳之前变脏的key
+     * @param offset 跳过的条数（用于跳过本轮写回失败的key）
+     * @param count 本批最多返回的条数
+     */
+    public Set<String> getOldestDirtyKeys(long before, long offset, int count) {
+        Set<String> keys = stringRedisTemplate.opsForZSet()
+                .rangeByScore(DIRTY_INDEX_KEY, Double.NEGATIVE_INFINITY, before, offset, count);
+        return keys != null ? keys : Set.of();
+    }
+
+    /**
+     * 按缓存过期时间从早到晚读取脏数据key（不含前缀）
+     * 只包含通过 {@link #writeToCache} / {@link #writePatchToCache} 写入后记录了过期时间的key
+     * @param expiresBefore 只返回在该时间戳之前过期的key
+     * @param count 最多返回的条数
+     */
+    public Set<String> getDirtyKeysExpiringBefore(long expiresBefore, int count) {
+        Set<String> keys = stringRedisTemplate.opsForZSet()
+                .rangeByScore(DIRTY_EXPIRY_INDEX_KEY, Double.NEGATIVE_INFINITY, expiresBefore, 0, count);
+        return keys != null ? keys : Set.of();
+    }
+
+    /**
+     * 当前脏数据数量
+     */
+    public long getDirtyCount() {
+        Long count = stringRedisTemplate.opsForZSet().zCard(DIRTY_INDEX_KEY);
+        return count != null ? count : 0;
     }
 
     /**
-     * 获取所有脏数据的key
+     * 最早一条脏数据变脏的时间戳，没有脏数据时返回 null
      */
-    public java.util.Set<String> getDirtyKeys() {
-        return redisTemplate.keys(DIRTY_PREFIX + "*");
+    public Long getOldestDirtyTimestamp() {
+        Set<ZSetOperations.TypedTuple<String>> oldest = stringRedisTemplate.opsForZSet().rangeWithScores(DIRTY_INDEX_KEY, 0, 0);
+        if (oldest == null || oldest.isEmpty()) {
+            return null;
+        }
+        Double score = oldest.iterator().next().getScore();
+        return score != null ? score.longValue() : null;
     }
 
     /**
@@ -98,11 +832,17 @@ public class CacheService {
     }
 
     /**
-     * 异步预热缓存
+     * 异步预热缓存：用数据库读到的数据回填，只在 Redis 中没有该key时写入
+     * 读取数据库之后写入的新数据（可能尚未写回数据库）不会被旧数据覆盖；
+     * L1 同样只在读取数据库之后该key未被写入或失效时回填
+     * @param invalidationCount 读取数据库之前由 {@link #invalidationCount} 取得
      */
     @Async
-    public void warmUpCache(String key, Object data, int expireMinutes) {
+    public void warmUpCache(String key, Object data, int expireMinutes, long invalidationCount) {
         String cacheKey = CACHE_PREFIX + key;
-        redisTemplate.opsForValue().set(cacheKey, data, expireMinutes, TimeUnit.MINUTES);
+        Boolean stored = redisTemplate.opsForValue().setIfAbsent(cacheKey, data, expireMinutes, TimeUnit.MINUTES);
+        if (Boolean.TRUE.equals(stored)) {
+            putLocalIfUnchanged(key, data, invalidationCount);
+        }
     }
 } 
\ No newline at end of file
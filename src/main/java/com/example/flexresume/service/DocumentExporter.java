@@ -0,0 +1,168 @@
+package com.example.flexresume.service;
+
+import com.fasterxml.jackson.core.JsonGenerator;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.fasterxml.jackson.databind.ObjectWriter;
+import com.fasterxml.jackson.databind.SerializationFeature;
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.MeterRegistry;
+import org.bson.types.ObjectId;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.data.domain.Sort;
+import org.springframework.data.mongodb.core.MongoTemplate;
+import org.springframework.data.mongodb.core.mapping.MongoMappingContext;
+import org.springframework.data.mongodb.core.mapping.MongoPersistentEntity;
+import org.springframework.data.mongodb.core.query.Criteria;
+import org.springframework.data.mongodb.core.query.Query;
+import org.springframework.stereotype.Service;
+
+import java.io.IOException;
+import java.io.OutputStream;
+import java.util.Iterator;
+import java.util.List;
+import java.util.stream.Stream;
+
+/**
+ * 整个集合的分页读取和流式导出
+ * 分页以 _id 为游标（下一页从上一页最后一个 id 之后开始），不使用 skip，翻到后面的页不会变慢；
+ * 流式导出按 NDJSON（每行一个文档）边读取数据库游标边写出，内存占用与集合大小无关
+ * 两者都支持只返回指定字段
+ */
+@Service
+public class DocumentExporter {
+
+    public static final String NDJSON = "application/x-ndjson";
+
+    @Autowired
+    private MongoTemplate mongoTemplate;
+
+    @Autowired
+    private MongoMappingContext mappingContext;
+
+    @Autowired
+    private ObjectMapper objectMapper;
+
+    @Autowired
+    private MeterRegistry meterRegistry;
+
+    // 每页最多的文档数
+    @Value("${export.max-page-size:500}")
+    private int maxPageSize;
+
+    // 流式导出时每次从数据库取回的文档数，每取回一批刷新一次输出
+    @Value("${export.cursor-batch-size:200}")
+    private int cursorBatchSize;
+
+    /**
+     * 读取一页
+     * @param after 上一页的 nextCursor，为 null 时从头开始
+     * @param fields 只返回的字段，为空时返回全部
+     * @throws IllegalArgumentException 游标无效或字段不存在
+     */
+    public <T> CursorPage<T> page(Class<T> type, String after, int limit, List<String> fields) {
+        if (limit < 1 || limit > maxPageSize) {
+            throw new IllegalArgumentException("limit 需在 1 到 " + maxPageSize + " 之间");
+        }
+        Query query = query(type, after, fields).limit(limit + 1);
+        List<T> items = mongoTemplate.find(query, type);
+        String nextCursor = null;
+        if (items.size() > limit) {
+            items = items.subList(0, limit);
+            nextCursor = idOf(items.get(limit - 1));
+        }
+        return new CursorPage<>(items, nextCursor);
+    }
+
+    /**
+     * 构建按 _id 升序的查询，供分页和流式导出共用；先于写出响应调用，参数错误时还能返回 400
+     * @throws IllegalArgumentException 游标无效或字段不存在
+     */
+    public Query query(Class<?> type, String after, List<String> fields) {
+        Query query = new Query().with(Sort.by(Sort.Direction.ASC, "_id"));
+        if (after != null) {
+            if (!ObjectId.isValid(after)) {
+                throw new IllegalArgumentException("无效的游标: " + after);
+            }
+            query.addCriteria(Criteria.where("_id").gt(new ObjectId(after)));
+        }
+        if (fields != null && !fields.isEmpty()) {
+            MongoPersistentEntity<?> entity = mappingContext.getRequiredPersistentEntity(type);
+            for (String field : fields) {
+                if (entity.getPersistentProperty(field) == null) {
+                    throw new IllegalArgumentException("未知的字段: " + field);
+                }
+                query.fields().include(field);
+            }
+        }
+        return query;
+    }
+
+    /**
+     * 以 NDJSON 写出查询到的全部文档，不关闭输出流
+     * @return 写出的文档数
+     */
+    public <T> long stream(Class<T> type, Query query, OutputStream out) throws IOException {
+        return write(type, query, out, false);
+    }
+
+    /**
+     * 以 JSON 数组写出查询到的全部文档（与一次性返回 List 的格式相同），同样边读取数据库游标边写出，不关闭输出流
+     * @return 写出的文档数
+     */
+    public <T> long streamArray(Class<T> type, Query query, OutputStream out) throws IOException {
+        return write(type, query, out, true);
+    }
+
+    private <T> long write(Class<T> type, Query query, OutputStream out, boolean array) throws IOException {
+        String collection = mongoTemplate.getCollectionName(type);
+        // 每个文档之后不刷新，按批刷新
+        ObjectWriter writer = objectMapper.writer().without(SerializationFeature.FLUSH_AFTER_WRITE_VALUE);
+        long count = 0;
+        try (Stream<T> documents = mongoTemplate.stream(query.cursorBatchSize(cursorBatchSize), type);
+             JsonGenerator generator = objectMapper.getFactory().createGenerator(out)) {
+            generator.disable(JsonGenerator.Feature.AUTO_CLOSE_TARGET);
+            if (array) {
+                generator.writeStartArray();
+            } else {
+                // 文档之间只用换行分隔
+                generator.setRootValueSeparator(null);
+            }
+            Iterator<T> iterator = documents.iterator();
+            while (iterator.hasNext()) {
+                writer.writeValue(generator, iterator.next());
+                if (!array) {
+                    generator.writeRaw('\n');
+                }
+                if (++count % cursorBatchSize == 0) {
+                    // 客户端读取较慢时在此阻塞，数据库游标随之暂停取回
+                    generator.flush();
+                }
+            }
+            if (array) {
+                generator.writeEndArray();
+            }
+            generator.flush();
+        } finally {
+            Counter.builder("export.documents")
+                    .description("流式导出写出的文档数")
+                    .tag("collection", collection)
+                    .register(meterRegistry)
+                    .increment(count);
+        }
+        return count;
+    }
+
+    private String idOf(Object document) {
+        Object id = mappingContext.getRequiredPersistentEntity(document.getClass())
+                .getIdentifierAccessor(document).getIdentifier();
+        return id != null ? id.toString() : null;
+    }
+
+    /**
+     * 一页文档
+     * @param nextCursor 下一页的游标，没有更多文档时为 null
+     */
+    public record CursorPage<T>(List<T> items, String nextCursor) {
+    }
+}
@@ -0,0 +1,437 @@
+package com.example.flexresume.service;
+
+import com.fasterxml.jackson.core.JsonProcessingException;
+import com.fasterxml.jackson.databind.JsonNode;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.fasterxml.jackson.databind.node.ArrayNode;
+import com.fasterxml.jackson.databind.node.ObjectNode;
+import com.fasterxml.jackson.databind.node.TextNode;
+import com.github.benmanes.caffeine.cache.Cache;
+import com.github.benmanes.caffeine.cache.Caffeine;
+import com.mongodb.client.gridfs.GridFSBucket;
+import com.mongodb.client.gridfs.GridFSBuckets;
+import com.mongodb.client.gridfs.model.GridFSFile;
+import com.mongodb.client.gridfs.model.GridFSUploadOptions;
+import com.mongodb.client.model.Filters;
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.Timer;
+import jakarta.annotation.PostConstruct;
+import org.bson.Document;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.core.io.AbstractResource;
+import org.springframework.core.io.Resource;
+import org.springframework.data.mongodb.core.MongoTemplate;
+import org.springframework.stereotype.Service;
+
+import javax.imageio.ImageIO;
+import javax.imageio.ImageReader;
+import javax.imageio.stream.ImageInputStream;
+import java.awt.Graphics2D;
+import java.awt.RenderingHints;
+import java.awt.image.BufferedImage;
+import java.io.ByteArrayInputStream;
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.OutputStream;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.security.DigestInputStream;
+import java.security.MessageDigest;
+import java.security.NoSuchAlgorithmException;
+import java.util.ArrayList;
+import java.util.Base64;
+import java.util.HexFormat;
+import java.util.Iterator;
+import java.util.List;
+import java.util.Map;
+import java.util.Optional;
+import java.util.concurrent.TimeUnit;
+import java.util.regex.Matcher;
+import java.util.regex.Pattern;
+
+/**
+ * 简历图片的存储（GridFS）
+ * 图片按内容的 SHA-256 存储一次，相同图片（同一张头像在多个版本、发布快照中）只保存一份；
+ * 上传时生成若干宽度的缩略图，读取时按请求宽度选择最接近的一份
+ * 简历模块中只保存引用（/api/images/{hash}），保存时把 data:image/...;base64 内嵌图片替换为引用，
+ * 缓存、写回和发布快照中不再复制几百 KB 的 base64 字符串
+ */
+@Service
+public class ImageStore {
+
+    public static final String REF_PREFIX = "/api/images/";
+
+    private static final Pattern DATA_URL = Pattern.compile("data:image/[A-Za-z0-9.+-]+;base64,([A-Za-z0-9+/]+={0,2})");
+    private static final Pattern HASH = Pattern.compile("[0-9a-f]{64}");
+
+    @Autowired
+    private MongoTemplate mongoTemplate;
+
+    @Autowired
+    private ObjectMapper objectMapper;
+
+    @Autowired
+    private MeterRegistry meterRegistry;
+
+    @Value("${image.bucket:images}")
+    private String bucketName;
+
+    // 单张图片的最大字节数和最大像素数（防止解码超大图片耗尽内存）
+    @Value("${image.max-bytes:5242880}")
+    private long maxBytes;
+
+    @Value("${image.max-pixels:40000000}")
+    private long maxPixels;
+
+    // 生成的缩略图宽度，原图不宽于该宽度时不生成
+    @Value("${image.variant-widths:160,480}")
+    private List<Integer> variantWidths;
+
+    // 短于该长度的内嵌图片（如小图标）保留在模块中
+    @Value("${image.inline-max-length:2048}")
+    private int inlineMaxLength;
+
+    private volatile GridFSBucket bucket;
+
+    // 图片内容不可变，文件描述按文件名缓存，读取时不必每次查询 images.files
+    private final Cache<String, GridFSFile> files = Caffeine.newBuilder().maximumSize(10_000).build();
+
+    private Counter externalizedCounter;
+
+    @PostConstruct
+    public void init() {
+        variantWidths = variantWidths.stream().filter(width -> width > 0).sorted().distinct().toList();
+        externalizedCounter = Counter.builder("image.externalized")
+                .description("从简历模块中替换为引用的内嵌图片数")
+                .register(meterRegistry);
+    }
+
+    /**
+     * 以流的方式保存图片：先写入临时文件并计算摘要，已存在相同内容时直接返回
+     * @throws IllegalArgumentException 超过大小限制或不是可解码的图片（PNG、JPEG、GIF、BMP）
+     */
+    public StoredImage store(InputStream input) throws IOException {
+        long start = System.nanoTime();
+        Path spool = Files.createTempFile("image-", ".upload");
+        try {
+            String hash = spool(input, spool);
+            GridFSFile existing = findFile(hash);
+            if (existing != null) {
+                record("deduplicated", start);
+                return describe(hash, existing);
+            }
+            StoredImage stored = storeNew(hash, spool);
+            record("stored", start);
+            return stored;
+        } finally {
+            Files.deleteIfExists(spool);
+        }
+    }
+
+    /**
+     * 读取图片，width 不为空时返回不窄于该宽度的最小缩略图（没有时返回原图）
+     */
+    public Optional<ImageContent> open(String hash, Integer width) {
+        if (!HASH.matcher(hash).matches()) {
+            return Optional.empty();
+        }
+        GridFSFile original = findFile(hash);
+        if (original == null) {
+            return Optional.empty();
+        }
+        String filename = hash;
+        if (width != null) {
+            for (Integer variant : metadataList(original, "variants")) {
+                if (variant >= width) {
+                    filename = variantName(hash, variant);
+                    break;
+                }
+            }
+        }
+        GridFSFile file = filename.equals(hash) ? original : findFile(filename);
+        if (file == null) {
+            file = original;
+            filename = hash;
+        }
+        String contentType = file.getMetadata() != null ? file.getMetadata().getString("contentType") : null;
+        return Optional.of(new ImageContent(new BlobResource(bucket(), file), contentType, filename));
+    }
+
+    /**
+     * 把文档中的内嵌图片替换为引用
+     * @return 替换后的文档，没有内嵌图片时返回原对象
+     */
+    public <T> T externalize(T document, Class<T> type) {
+        if (document == null) {
+            return null;
+        }
+        JsonNode tree = objectMapper.valueToTree(document);
+        if (externalize(tree) == 0) {
+            return document;
+        }
+        try {
+            return objectMapper.treeToValue(tree, type);
+        } catch (JsonProcessingException e) {
+            System.err.println("替换内嵌图片后转换文档失败: " + e.getMessage());
+            return document;
+        }
+    }
+
+    /**
+     * 就地替换 JSON 中的内嵌图片（整个字符串为 data URL，或 HTML 中 src 的 data URL）
+     * 保存失败的图片保留原样，不影响模块保存
+     * @return 替换的数量
+     */
+    public int externalize(JsonNode node) {
+        int replaced = 0;
+        if (node instanceof ObjectNode object) {
+            Iterator<Map.Entry<String, JsonNode>> fields = object.fields();
+            while (fields.hasNext()) {
+                Map.Entry<String, JsonNode> field = fields.next();
+                if (field.getValue().isTextual()) {
+                    String text = field.getValue().textValue();
+                    String externalized = externalizeText(text);
+                    if (!externalized.equals(text)) {
+                        field.setValue(TextNode.valueOf(externalized));
+                        replaced++;
+                    }
+                } else {
+                    replaced += externalize(field.getValue());
+                }
+            }
+        } else if (node instanceof ArrayNode array) {
+            for (int i = 0; i < array.size(); i++) {
+                JsonNode element = array.get(i);
+                if (element.isTextual()) {
+                    String externalized = externalizeText(element.textValue());
+                    if (!externalized.equals(element.textValue())) {
+                        array.set(i, TextNode.valueOf(externalized));
+                        replaced++;
+                    }
+                } else {
+                    replaced += externalize(element);
+                }
+            }
+        }
+        return replaced;
+    }
+
+    private String externalizeText(String text) {
+        if (text.length() < inlineMaxLength || !text.contains("data:image/")) {
+            return text;
+        }
+        Matcher matcher = DATA_URL.matcher(text);
+        StringBuilder result = new StringBuilder();
+        boolean changed = false;
+        while (matcher.find()) {
+            String replacement = matcher.group();
+            if (matcher.end() - matcher.start() >= inlineMaxLength) {
+                try {
+                    byte[] base64 = matcher.group(1).getBytes(StandardCharsets.US_ASCII);
+                    replacement = store(Base64.getDecoder().wrap(new ByteArrayInputStream(base64))).ref();
+                    externalizedCounter.increment();
+                    changed = true;
+                } catch (Exception e) {
+                    System.err.println("内嵌图片保存失败，保留原数据: " + e.getMessage());
+                }
+            }
+            matcher.appendReplacement(result, Matcher.quoteReplacement(replacement));
+        }
+        if (!changed) {
+            return text;
+        }
+        matcher.appendTail(result);
+        return result.toString();
+    }
+
+    /**
+     * 写入临时文件，同时计算 SHA-256 并检查大小
+     */
+    private String spool(InputStream input, Path spool) throws IOException {
+        MessageDigest digest;
+        try {
+            digest = MessageDigest.getInstance("SHA-256");
+        } catch (NoSuchAlgorithmException e) {
+            throw new IllegalStateException(e);
+        }
+        try (InputStream in = new DigestInputStream(input, digest);
+             OutputStream out = Files.newOutputStream(spool)) {
+            byte[] buffer = new byte[8192];
+            long total = 0;
+            int read;
+            while ((read = in.read(buffer)) != -1) {
+                total += read;
+                if (total > maxBytes) {
+                    throw new IllegalArgumentException("图片超过大小限制: " + maxBytes + " 字节");
+                }
+                out.write(buffer, 0, read);
+            }
+        }
+        return HexFormat.of().formatHex(digest.digest());
+    }
+
+    /**
+     * 解码检查后保存原图和缩略图
+     * 同一图片并发上传时可能各存一份，内容相同，读取时取任意一份
+     */
+    private StoredImage storeNew(String hash, Path spool) throws IOException {
+        try (ImageInputStream imageInput = ImageIO.createImageInputStream(spool.toFile())) {
+            Iterator<ImageReader> readers = imageInput != null ? ImageIO.getImageReaders(imageInput) : null;
+            if (readers == null || !readers.hasNext()) {
+                throw new IllegalArgumentException("不支持的图片格式");
+            }
+            ImageReader reader = readers.next();
+            try {
+                reader.setInput(imageInput, true, true);
+                int width = reader.getWidth(0);
+                int height = reader.getHeight(0);
+                if ((long) width * height > maxPixels) {
+                    throw new IllegalArgumentException("图片像素超过限制: " + width + "x" + height);
+                }
+                String contentType = reader.getOriginatingProvider().getMIMETypes()[0];
+
+                List<Integer> variants = new ArrayList<>();
+                List<Integer> widths = variantWidths.stream().filter(variant -> variant < width).toList();
+                if (!widths.isEmpty()) {
+                    BufferedImage image = reader.read(0);
+                    for (int variantWidth : widths) {
+                        storeVariant(hash, image, variantWidth);
+                        variants.add(variantWidth);
+                    }
+                }
+                Document metadata = new Document("contentType", contentType)
+                        .append("width", width)
+                        .append("height", height)
+                        .append("variants", variants);
+                // 原图最后写入，读取时按原图是否存在判断图片是否完整
+                try (InputStream content = Files.newInputStream(spool)) {
+                    bucket().uploadFromStream(hash, content, new GridFSUploadOptions().metadata(metadata));
+                }
+                return new StoredImage(hash, REF_PREFIX + hash, contentType, width, height, variants);
+            } finally {
+                reader.dispose();
+            }
+        }
+    }
+
+    private void storeVariant(String hash, BufferedImage image, int width) throws IOException {
+        int height = Math.max(1, Math.round((float) image.getHeight() * width / image.getWidth()));
+        boolean alpha = image.getColorModel().hasAlpha();
+        BufferedImage resized = new BufferedImage(width, height, alpha ? BufferedImage.TYPE_INT_ARGB : BufferedImage.TYPE_INT_RGB);
+        Graphics2D graphics = resized.createGraphics();
+        try {
+            graphics.setRenderingHint(RenderingHints.KEY_INTERPOLATION, RenderingHints.VALUE_INTERPOLATION_BICUBIC);
+            graphics.setRenderingHint(RenderingHints.KEY_RENDERING, RenderingHints.VALUE_RENDER_QUALITY);
+            graphics.drawImage(image, 0, 0, width, height, null);
+        } finally {
+            graphics.dispose();
+        }
+        // 有透明通道的保存为 PNG，其余为 JPEG
+        ByteArrayOutputStream encoded = new ByteArrayOutputStream();
+        ImageIO.write(resized, alpha ? "png" : "jpeg", encoded);
+        Document metadata = new Document("contentType", alpha ? "image/png" : "image/jpeg")
+                .append("width", width)
+                .append("height", height);
+        bucket().uploadFromStream(variantName(hash, width), new ByteArrayInputStream(encoded.toByteArray()),
+                new GridFSUploadOptions().metadata(metadata));
+    }
+
+    private StoredImage describe(String hash, GridFSFile file) {
+        Document metadata = file.getMetadata() != null ? file.getMetadata() : new Document();
+        return new StoredImage(hash, REF_PREFIX + hash, metadata.getString("contentType"),
+                metadata.getInteger("width", 0), metadata.getInteger("height", 0), metadataList(file, "variants"));
+    }
+
+    private static List<Integer> metadataList(GridFSFile file, String key) {
+        if (file.getMetadata() == null) {
+            return List.of();
+        }
+        List<Integer> values = file.getMetadata().getList(key, Integer.class);
+        return values != null ? values : List.of();
+    }
+
+    private GridFSFile findFile(String filename) {
+        GridFSFile cached = files.getIfPresent(filename);
+        if (cached != null) {
+            return cached;
+        }
+        GridFSFile file = bucket().find(Filters.eq("filename", filename)).first();
+        if (file != null) {
+            files.put(filename, file);
+        }
+        return file;
+    }
+
+    private static String variantName(String hash, int width) {
+        return hash + "@" + width;
+    }
+
+    private GridFSBucket bucket() {
+        if (bucket == null) {
+            bucket = GridFSBuckets.create(mongoTemplate.getDb(), bucketName);
+        }
+        return bucket;
+    }
+
+    private void record(String result, long start) {
+        Timer.builder("image.store")
+                .description("保存一张图片的耗时（含摘要、解码和生成缩略图）")
+                .tag("result", result)
+                .register(meterRegistry)
+                .record(System.nanoTime() - start, TimeUnit.NANOSECONDS);
+    }
+
+    /**
+     * 已保存的图片
+     * @param ref 保存在简历模块中的引用
+     * @param variants 缩略图宽度
+     */
+    public record StoredImage(String hash, String ref, String contentType, int width, int height,
+                              List<Integer> variants) {
+    }
+
+    /**
+     * 读取到的图片
+     * @param version 原图为 hash，缩略图为 hash@宽度，用作 ETag
+     */
+    public record ImageContent(Resource resource, String contentType, String version) {
+    }
+
+    /**
+     * GridFS 文件，每次 getInputStream 打开新的下载流，支持 Range 请求多次读取
+     */
+    private static class BlobResource extends AbstractResource {
+
+        private final GridFSBucket bucket;
+        private final GridFSFile file;
+
+        BlobResource(GridFSBucket bucket, GridFSFile file) {
+            this.bucket = bucket;
+            this.file = file;
+        }
+
+        @Override
+        public InputStream getInputStream() {
+            return bucket.openDownloadStream(file.getObjectId());
+        }
+
+        @Override
+        public boolean exists() {
+            return true;
+        }
+
+        @Override
+        public long contentLength() {
+            return file.getLength();
+        }
+
+        @Override
+        public String getDescription() {
+            return "GridFS image [" + file.getFilename() + "]";
+        }
+    }
+}
@@ -0,0 +1,364 @@
+package com.example.flexresume.service;
+
+import com.example.flexresume.model.PublishRecord;
+import com.example.flexresume.repository.PublishRecordRepository;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.github.benmanes.caffeine.cache.Cache;
+import com.github.benmanes.caffeine.cache.Caffeine;
+import jakarta.annotation.PostConstruct;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.data.mongodb.core.ReactiveMongoTemplate;
+import org.springframework.data.mongodb.core.query.Criteria;
+import org.springframework.data.mongodb.core.query.Query;
+import org.springframework.data.redis.core.ReactiveRedisTemplate;
+import org.springframework.data.redis.core.RedisTemplate;
+import org.springframework.data.redis.core.script.DefaultRedisScript;
+import org.springframework.data.redis.core.script.RedisScript;
+import org.springframework.data.redis.serializer.GenericToStringSerializer;
+import org.springframework.data.redis.serializer.RedisSerializer;
+import org.springframework.stereotype.Service;
+import reactor.core.publisher.Mono;
+
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.security.MessageDigest;
+import java.security.NoSuchAlgorithmException;
+import java.time.Duration;
+import java.util.HashMap;
+import java.util.HexFormat;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLongArray;
+import java.util.zip.GZIPOutputStream;
+
+/**
+ * 发布简历的响应缓存
+ * 发布时把响应体序列化为 JSON 字节并生成 gzip 版本和内容哈希（ETag），存入 Redis 和本地缓存，
+ * 访问时直接返回字节，缓存命中时不访问 MongoDB，也不经过 Jackson
+ * 读取有阻塞（get）和非阻塞（getReactive）两种方式，查找顺序和回填逻辑相同
+ * 没有发布记录时返回空对象，但不写入本地缓存和发布简历的哈希，只在 Redis 中记一个短期的“不存在”标记，
+ * 任何人都能访问该接口，不能让不存在的用户占用长期缓存
+ * 未命中时从数据库生成的响应只在 Redis 中没有该用户的发布简历时写入，读取期间重新发布的新版本不会被旧版本覆盖；
+ * 本地缓存的回填与 CacheService 相同，按失效计数撤销读取期间被发布或失效的回填
+ */
+@Service
+public class PublishedResumeCache {
+
+    @Autowired
+    private RedisTemplate<String, byte[]> bytesRedisTemplate;
+
+    @Autowired
+    private ReactiveRedisTemplate<String, byte[]> reactiveBytesRedisTemplate;
+
+    @Autowired
+    private ReactiveMongoTemplate reactiveMongoTemplate;
+
+    @Autowired
+    private CacheService cacheService;
+
+    @Autowired
+    private PublishRecordRepository publishRecordRepository;
+
+    @Autowired
+    private ObjectMapper objectMapper;
+
+    // Redis 中发布简历的存活时间，过期后访问时从数据库重新生成
+    @Value("${publish.cache.ttl-hours:24}")
+    private long ttlHours;
+
+    // 本地缓存最大容量（字节）
+    @Value("${publish.cache.l1-max-bytes:33554432}")
+    private long l1MaxBytes;
+
+    @Value("${cache.l1.ttl-seconds:60}")
+    private long l1TtlSeconds;
+
+    // 没有发布记录的用户在此时间内不再查询数据库
+    @Value("${publish.cache.missing-ttl-seconds:30}")
+    private long missingTtlSeconds;
+
+    // Redis 哈希key前缀，字段为 json、gzip、etag
+    private static final String KEY_PREFIX = "published:";
+
+    // 没有发布记录的标记key前缀，与发布简历的哈希分开，发布时删除
+    private static final String MISSING_PREFIX = "published-missing:";
+
+    private static final byte[] MISSING_MARKER = {1};
+
+    // 本地缓存失效计数的分段数
+    private static final int INVALIDATION_STRIPES = 256;
+
+    private static final RedisSerializer<Long> LONG_SERIALIZER = new GenericToStringSerializer<>(Long.class);
+
+    /**
+     * 未命中时回填：仅在哈希不存在时写入 json、gzip、etag 三个字段并设置过期时间，写入时返回 1，已存在时返回 0
+     * KEYS: 发布简历的哈希
+     * ARGV: json、gzip、etag、过期毫秒数
+     */
+    private static final RedisScript<Long> FILL_IF_ABSENT_SCRIPT = new DefaultRedisScript<>(
+            "if redis.call('EXISTS', KEYS[1]) == 1 then return 0 end " +
+            "redis.call('HSET', KEYS[1], 'json', ARGV[1], 'gzip', ARGV[2], 'etag', ARGV[3]) " +
+            "redis.call('PEXPIRE', KEYS[1], ARGV[4]) " +
+            "return 1", Long.class);
+
+    // 按用户分段的本地缓存失效计数，发布或收到失效通知时增加
+    private final AtomicLongArray invalidationCounts = new AtomicLongArray(INVALIDATION_STRIPES);
+
+    private Cache<String, PublishedResume> localCache;
+
+    // 没有发布记录时的响应（空对象）
+    private PublishedResume empty;
+
+    @PostConstruct
+    public void init() {
+        localCache = Caffeine.newBuilder()
+                .maximumWeight(l1MaxBytes)
+                .weigher((String key, PublishedResume value) -> value.json().length + value.gzip().length)
+                .expireAfterWrite(Duration.ofSeconds(l1TtlSeconds))
+                .build();
+        try {
+            empty = materialize(null);
+        } catch (IOException e) {
+            throw new IllegalStateException(e);
+        }
+        // 其他节点重新发布后清除本地副本
+        cacheService.addInvalidationListener(key -> {
+            if (key.startsWith(KEY_PREFIX)) {
+                invalidateLocal(key.substring(KEY_PREFIX.length()));
+            }
+        });
+    }
+
+    /**
+     * 获取用户最新发布的简历，依次查找本地缓存、Redis，都未命中时从数据库生成并回填
+     */
+    public PublishedResume get(String userId) throws IOException {
+        PublishedResume local = localCache.getIfPresent(userId);
+        if (local != null) {
+            return local;
+        }
+        long invalidationCount = invalidationCount(userId);
+        PublishedResume cached = readFromRedis(userId);
+        if (cached != null) {
+            putLocalIfUnchanged(userId, cached, invalidationCount);
+            return cached;
+        }
+        if (isMarkedMissing(userId)) {
+            return empty;
+        }
+        PublishRecord record = publishRecordRepository.findByUserId(userId).orElse(null);
+        if (record == null) {
+            markMissing(userId);
+            return empty;
+        }
+        PublishedResume published = materialize(record);
+        fillIfAbsent(userId, published, invalidationCount);
+        return published;
+    }
+
+    /**
+     * 非阻塞地获取用户最新发布的简历：等待 Redis、MongoDB 时不占用调用线程，回填也不等待
+     */
+    public Mono<PublishedResume> getReactive(String userId) {
+        PublishedResume local = localCache.getIfPresent(userId);
+        if (local != null) {
+            return Mono.just(local);
+        }
+        long invalidationCount = invalidationCount(userId);
+        return reactiveBytesRedisTemplate.<String, byte[]>opsForHash()
+                .multiGet(KEY_PREFIX + userId, List.of("json", "gzip", "etag"))
+                .filter(values -> values.size() == 3 && !values.contains(null))
+                .map(values -> new PublishedResume(values.get(0), values.get(1), new String(values.get(2), StandardCharsets.UTF_8)))
+                .doOnNext(cached -> putLocalIfUnchanged(userId, cached, invalidationCount))
+                .onErrorResume(e -> {
+                    System.err.println("读取发布简历缓存失败: " + userId + ", 错误: " + e.getMessage());
+                    return Mono.empty();
+                })
+                .switchIfEmpty(Mono.defer(() -> reactiveBytesRedisTemplate.hasKey(MISSING_PREFIX + userId)
+                        .onErrorReturn(false)
+                        .flatMap(missing -> missing ? Mono.just(empty) : loadReactive(userId, invalidationCount))));
+    }
+
+    private Mono<PublishedResume> loadReactive(String userId, long invalidationCount) {
+        return reactiveMongoTemplate
+                .findOne(new Query(Criteria.where("userId").is(userId)), PublishRecord.class)
+                .flatMap(record -> Mono.fromCallable(() -> materialize(record))
+                        .doOnNext(published -> fillIfAbsentReactive(userId, published, invalidationCount)))
+                .switchIfEmpty(Mono.fromSupplier(() -> {
+                    reactiveBytesRedisTemplate.opsForValue()
+                            .set(MISSING_PREFIX + userId, MISSING_MARKER, Duration.ofSeconds(missingTtlSeconds))
+                            .subscribe(null, e -> System.err.println("写入发布简历缓存失败: " + userId + ", 错误: " + e.getMessage()));
+                    return empty;
+                }));
+    }
+
+    /**
+     * 发布后立即生成新的响应字节，替换所有节点上的旧版本
+     */
+    public PublishedResume refresh(PublishRecord record) throws IOException {
+        PublishedResume published = materialize(record);
+        store(record.getUserId(), published);
+        try {
+            bytesRedisTemplate.delete(MISSING_PREFIX + record.getUserId());
+        } catch (Exception e) {
+            System.err.println("清除发布简历不存在标记失败: " + record.getUserId() + ", 错误: " + e.getMessage());
+        }
+        cacheService.publishInvalidation(KEY_PREFIX + record.getUserId());
+        return published;
+    }
+
+    private boolean isMarkedMissing(String userId) {
+        try {
+            return Boolean.TRUE.equals(bytesRedisTemplate.hasKey(MISSING_PREFIX + userId));
+        } catch (Exception e) {
+            System.err.println("读取发布简历缓存失败: " + userId + ", 错误: " + e.getMessage());
+            return false;
+        }
+    }
+
+    private void markMissing(String userId) {
+        try {
+            bytesRedisTemplate.opsForValue().set(MISSING_PREFIX + userId, MISSING_MARKER, missingTtlSeconds, TimeUnit.SECONDS);
+        } catch (Exception e) {
+            System.err.println("写入发布简历缓存失败: " + userId + ", 错误: " + e.getMessage());
+        }
+    }
+
+    private PublishedResume readFromRedis(String userId) {
+        try {
+            List<byte[]> values = bytesRedisTemplate.<String, byte[]>opsForHash()
+                    .multiGet(KEY_PREFIX + userId, List.of("json", "gzip", "etag"));
+            if (values == null || values.contains(null)) {
+                return null;
+            }
+            return new PublishedResume(values.get(0), values.get(1), new String(values.get(2), StandardCharsets.UTF_8));
+        } catch (Exception e) {
+            System.err.println("读取发布简历缓存失败: " + userId + ", 错误: " + e.getMessage());
+            return null;
+        }
+    }
+
+    /**
+     * 发布时写入，覆盖旧版本
+     */
+    private void store(String userId, PublishedResume published) {
+        putLocalAfterWrite(userId, published);
+        try {
+            String key = KEY_PREFIX + userId;
+            Map<String, byte[]> fields = new HashMap<>();
+            fields.put("json", published.json());
+            fields.put("gzip", published.gzip());
+            fields.put("etag", published.etag().getBytes(StandardCharsets.UTF_8));
+            bytesRedisTemplate.opsForHash().putAll(key, fields);
+            bytesRedisTemplate.expire(key, ttlHours, TimeUnit.HOURS);
+        } catch (Exception e) {
+            System.err.println("写入发布简历缓存失败: " + userId + ", 错误: " + e.getMessage());
+        }
+    }
+
+    /**
+     * 未命中时回填：Redis 中已有（读取数据库期间重新发布写入的）数据时不覆盖，也不回填本地缓存
+     */
+    private void fillIfAbsent(String userId, PublishedResume published, long invalidationCount) {
+        Long filled;
+        try {
+            filled = bytesRedisTemplate.execute(FILL_IF_ABSENT_SCRIPT, RedisSerializer.byteArray(), LONG_SERIALIZER,
+                    List.of(KEY_PREFIX + userId), fillArgs(published));
+        } catch (Exception e) {
+            System.err.println("写入发布简历缓存失败: " + userId + ", 错误: " + e.getMessage());
+            // Redis 不可用时仍回填本地缓存，读取期间的发布由失效计数撤销
+            filled = 1L;
+        }
+        if (filled != null && filled == 1L) {
+            putLocalIfUnchanged(userId, published, invalidationCount);
+        }
+    }
+
+    /**
+     * 非阻塞回填，不等待 Redis 写入完成，条件与 {@link #fillIfAbsent} 相同
+     */
+    private void fillIfAbsentReactive(String userId, PublishedResume published, long invalidationCount) {
+        reactiveBytesRedisTemplate.execute(FILL_IF_ABSENT_SCRIPT, List.of(KEY_PREFIX + userId), List.of(fillArgs(published)))
+                .next()
+                .subscribe(filled -> {
+                    if (filled == 1L) {
+                        putLocalIfUnchanged(userId, published, invalidationCount);
+                    }
+                }, e -> System.err.println("写入发布简历缓存失败: " + userId + ", 错误: " + e.getMessage()));
+    }
+
+    private byte[][] fillArgs(PublishedResume published) {
+        return new byte[][]{
+                published.json(),
+                published.gzip(),
+                published.etag().getBytes(StandardCharsets.UTF_8),
+                String.valueOf(TimeUnit.HOURS.toMillis(ttlHours)).getBytes(StandardCharsets.UTF_8)
+        };
+    }
+
+    private long invalidationCount(String userId) {
+        return invalidationCounts.get(Math.floorMod(userId.hashCode(), INVALIDATION_STRIPES));
+    }
+
+    private void invalidateLocal(String userId) {
+        invalidationCounts.incrementAndGet(Math.floorMod(userId.hashCode(), INVALIDATION_STRIPES));
+        localCache.invalidate(userId);
+    }
+
+    /**
+     * 发布后更新本地缓存；先增加失效计数，使发布前开始的读取不会用旧版本覆盖
+     */
+    private void putLocalAfterWrite(String userId, PublishedResume published) {
+        invalidationCounts.incrementAndGet(Math.floorMod(userId.hashCode(), INVALIDATION_STRIPES));
+        localCache.put(userId, published);
+    }
+
+    /**
+     * 回填本地缓存；读取开始后该用户（或同一分段的用户）重新发布或收到失效通知时撤销回填
+     */
+    private void putLocalIfUnchanged(String userId, PublishedResume published, long invalidationCount) {
+        localCache.put(userId, published);
+        if (invalidationCount(userId) != invalidationCount) {
+            localCache.invalidate(userId);
+        }
+    }
+
+    /**
+     * 生成响应体：与原接口相同的 version、publishTime、snapshot 结构，没有发布记录时为空对象
+     */
+    private PublishedResume materialize(PublishRecord record) throws IOException {
+        Map<String, Object> result = new HashMap<>();
+        if (record != null) {
+            result.put("version", record.getVersion());
+            result.put("publishTime", record.getPublishTime());
+            result.put("snapshot", record.getSnapshot());
+        }
+        byte[] json = objectMapper.writeValueAsBytes(result);
+
+        ByteArrayOutputStream gzipBytes = new ByteArrayOutputStream(json.length / 4 + 64);
+        try (GZIPOutputStream gzip = new GZIPOutputStream(gzipBytes)) {
+            gzip.write(json);
+        }
+        return new PublishedResume(json, gzipBytes.toByteArray(), "\"" + sha256(json) + "\"");
+    }
+
+    private String sha256(byte[] data) {
+        try {
+            return HexFormat.of().formatHex(MessageDigest.getInstance("SHA-256").digest(data));
+        } catch (NoSuchAlgorithmException e) {
+            throw new IllegalStateException(e);
+        }
+    }
+
+    /**
+     * 已序列化的发布简历
+     * @param json 未压缩的 JSON 字节
+     * @param gzip gzip 压缩后的字节
+     * @param etag 带引号的内容哈希
+     */
+    public record PublishedResume(byte[] json, byte[] gzip, String etag) {
+    }
+}
@@ -0,0 +1,71 @@
+package com.example.flexresume.service;
+
+import com.example.flexresume.model.ResumeSection;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.data.mongodb.core.ReactiveMongoTemplate;
+import org.springframework.data.mongodb.core.query.Criteria;
+import org.springframework.data.mongodb.core.query.Query;
+import org.springframework.stereotype.Service;
+import reactor.core.publisher.Mono;
+import reactor.core.scheduler.Schedulers;
+
+/**
+ * 简历模块和已发布简历的非阻塞读取
+ * 控制器返回 Mono 时 Spring MVC 以异步请求处理：等待 Redis、MongoDB 期间释放 Tomcat 线程，
+ * 公开简历的大量访问不再与编辑器请求争抢有限的请求线程
+ * 查找顺序与阻塞读取相同（L1、Redis、数据库，数据库命中时预热缓存）；reads.reactive.enabled=false 时退回阻塞读取
+ */
+@Service
+public class ReactiveResumeReader {
+
+    @Autowired
+    private CacheService cacheService;
+
+    @Autowired
+    private ReactiveMongoTemplate reactiveMongoTemplate;
+
+    @Autowired
+    private PublishedResumeCache publishedResumeCache;
+
+    @Value("${reads.reactive.enabled:true}")
+    private boolean enabled;
+
+    /**
+     * 读取模块数据，不存在时为空
+     */
+    public <T extends ResumeSection> Mono<T> findSection(SectionStore<T> store, String username, int version) {
+        if (!enabled) {
+            return Mono.fromCallable(() -> store.find(username, version).orElse(null));
+        }
+        String cacheKey = cacheService.buildKey(store.getType(), username, version);
+        return cacheService.getFromCacheReactive(cacheKey)
+                .map(cachedData -> store.fromCache(username, version, cachedData))
+                .onErrorResume(e -> {
+                    // 缓存不可用或数据无法解析时回源数据库
+                    System.err.println("Reactive cache read failed for key: " + cacheKey + ", error: " + e.getMessage());
+                    return Mono.empty();
+                })
+                .switchIfEmpty(Mono.defer(() -> findInDb(store, username, version)));
+    }
+
+    /**
+     * 读取用户最新发布的简历
+     */
+    public Mono<PublishedResumeCache.PublishedResume> getPublished(String userId) {
+        if (!enabled) {
+            return Mono.fromCallable(() -> publishedResumeCache.get(userId));
+        }
+        return publishedResumeCache.getReactive(userId);
+    }
+
+    private <T extends ResumeSection> Mono<T> findInDb(SectionStore<T> store, String username, int version) {
+        Query query = new Query(Criteria.where("username").is(username).and("version").is(version));
+        long invalidationCount = store.invalidationCount(username, version);
+        return reactiveMongoTemplate.findOne(query, store.getDocumentClass())
+                // 替换内嵌图片可能写入 GridFS（阻塞），切换到弹性线程池执行，只在回源时发生
+                .publishOn(Schedulers.boundedElastic())
+                .map(store::externalizeImages)
+                .doOnNext(document -> store.warmUp(username, version, document, invalidationCount));
+    }
+}
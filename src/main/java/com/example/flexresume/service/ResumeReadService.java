@@ -0,0 +1,88 @@
+package com.example.flexresume.service;
+
+import com.example.flexresume.model.ResumeSection;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Qualifier;
+import org.springframework.stereotype.Service;
+
+import java.util.ArrayList;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Optional;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.Executor;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * 简历各模块的批量读取：所有模块的缓存key合并为一次批量读取，未命中的模块并发回源数据库并预热缓存
+ */
+@Service
+public class ResumeReadService {
+
+    // 按用户+版本存储的简历模块
+    public static final List<String> SECTIONS = List.of("personalInfo", "education", "projects", "skills", "workinternship");
+
+    @Autowired private CacheService cacheService;
+    @Autowired private SectionStores sectionStores;
+    @Autowired @Qualifier("taskExecutor") private Executor taskExecutor;
+
+    /**
+     * 读取指定模块的数据
+     * @param types 需要的模块，取值见 {@link #SECTIONS}
+     * @param timeoutMs 等待数据库回源的最长时间，超时抛出 TimeoutException
+     * @return 模块名到数据的映射，缓存和数据库中都不存在的模块不包含在结果中
+     */
+    public SectionResult loadSections(String username, int version, List<String> types, long timeoutMs) throws Exception {
+        List<String> keys = new ArrayList<>();
+        for (String type : types) {
+            keys.add(cacheService.buildKey(type, username, version));
+        }
+        List<Object> cachedValues = cacheService.getMultiFromCache(keys);
+
+        Map<String, Object> sections = new LinkedHashMap<>();
+        Map<String, CompletableFuture<Optional<Object>>> dbLookups = new LinkedHashMap<>();
+        for (int i = 0; i < types.size(); i++) {
+            String type = types.get(i);
+            Object cachedData = cachedValues.get(i);
+            if (cachedData != null) {
+                sections.put(type, sectionStores.get(type).fromCache(username, version, cachedData));
+            } else {
+                dbLookups.put(type, CompletableFuture.supplyAsync(() -> getDataFromDb(type, username, version), taskExecutor));
+            }
+        }
+
+        CompletableFuture.allOf(dbLookups.values().toArray(new CompletableFuture[0]))
+                .get(timeoutMs, TimeUnit.MILLISECONDS);
+        Map<String, Object> loadedFromDb = new LinkedHashMap<>();
+        for (Map.Entry<String, CompletableFuture<Optional<Object>>> entry : dbLookups.entrySet()) {
+            entry.getValue().join().ifPresent(data -> {
+                sections.put(entry.getKey(), data);
+                loadedFromDb.put(entry.getKey(), data);
+            });
+        }
+        return new SectionResult(sections, loadedFromDb, types.size() - dbLookups.size());
+    }
+
+    // 数据库中的旧数据可能仍内嵌 base64 图片，先替换为引用再返回并预热缓存
+    private Optional<Object> getDataFromDb(String type, String username, int version) {
+        return externalized(sectionStores.get(type), username, version);
+    }
+
+    private static <T extends ResumeSection> Optional<Object> externalized(SectionStore<T> store, String username, int version) {
+        // 失效计数在读取数据库之前取得，读取期间写入的新数据不会被预热覆盖
+        long invalidationCount = store.invalidationCount(username, version);
+        Optional<T> document = store.findInDb(username, version).map(store::externalizeImages);
+        document.ifPresent(doc -> store.warmUp(username, version, doc, invalidationCount));
+        return document.map(Object.class::cast);
+    }
+
+    /**
+     * 读取结果
+     * @param sections 全部读到的模块
+     * @param loadedFromDb 其中从数据库回源的模块，已异步预热缓存
+     * @param cacheHits 缓存命中的模块数
+     */
+    public record SectionResult(Map<String, Object> sections, Map<String, Object> loadedFromDb, int cacheHits) {
+    }
+}
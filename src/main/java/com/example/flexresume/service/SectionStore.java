@@ -0,0 +1,284 @@
+package com.example.flexresume.service;
+
+import com.example.flexresume.model.ResumeSection;
+import com.fasterxml.jackson.core.JsonProcessingException;
+import com.fasterxml.jackson.databind.JsonNode;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.fasterxml.jackson.databind.node.ObjectNode;
+
+import java.util.ConcurrentModificationException;
+import java.util.Iterator;
+import java.util.List;
+import java.util.Map;
+import java.util.Optional;
+import java.util.Set;
+import java.util.TreeSet;
+import java.util.function.BiConsumer;
+import java.util.function.BiFunction;
+
+/**
+ * 单个简历模块的读写（写回策略）
+ * 保存只写入缓存并标记为脏数据，由 WriteBackScheduler 批量写入数据库；
+ * 读取依次查找缓存、数据库，数据库命中时预热缓存。
+ * 新增模块只需在 SectionStoreConfig 中注册一个实例
+ */
+public class SectionStore<T extends ResumeSection> {
+
+    private final String type;
+    private final Class<T> documentClass;
+    private final CacheService cacheService;
+    private final ObjectMapper objectMapper;
+    private final int expireMinutes;
+    private final BiFunction<String, Integer, Optional<T>> finder;
+    private final BiFunction<String, Integer, T> emptyFactory;
+    private final BiConsumer<T, Map<String, Object>> cardsSetter;
+
+    // 支持合并补丁的字段（卡片 Map），为 null 时不支持 PATCH
+    private String patchField;
+
+    // 内嵌图片存储，为 null 时模块数据原样保存
+    private ImageStore imageStore;
+
+    // 补丁与其他写入冲突时的最大重试次数
+    private static final int PATCH_ATTEMPTS = 3;
+
+    /**
+     * @param type 模块名，也是缓存key的类型部分
+     * @param expireMinutes 缓存存活时间，需长于写回间隔
+     * @param finder 按用户名 + 版本号从数据库读取
+     * @param emptyFactory 模块不存在时返回的空文档
+     * @param cardsSetter 卡片类模块（数据为一个 Map）的设置方法，旧版本缓存中只存了卡片 Map 时据此包装为文档；其他模块为 null
+     */
+    public SectionStore(String type, Class<T> documentClass, CacheService cacheService, ObjectMapper objectMapper,
+                        int expireMinutes, BiFunction<String, Integer, Optional<T>> finder,
+                        BiFunction<String, Integer, T> emptyFactory, BiConsumer<T, Map<String, Object>> cardsSetter) {
+        this.type = type;
+        this.documentClass = documentClass;
+        this.cacheService = cacheService;
+        this.objectMapper = objectMapper;
+        this.expireMinutes = expireMinutes;
+        this.finder = finder;
+        this.emptyFactory = emptyFactory;
+        this.cardsSetter = cardsSetter;
+    }
+
+    /**
+     * 允许对指定字段（以卡片 id 为 key 的 Map）应用 JSON 合并补丁（RFC 7386）
+     */
+    public SectionStore<T> withMergePatch(String field) {
+        this.patchField = field;
+        return this;
+    }
+
+    /**
+     * 保存和从数据库读取时把内嵌的 base64 图片替换为图片引用，由 SectionStores 注册时设置
+     */
+    public SectionStore<T> withImages(ImageStore imageStore) {
+        this.imageStore = imageStore;
+        return this;
+    }
+
+    public boolean supportsMergePatch() {
+        return patchField != null;
+    }
+
+    public String getType() {
+        return type;
+    }
+
+    public Class<T> getDocumentClass() {
+        return documentClass;
+    }
+
+    /**
+     * 保存模块数据：写入缓存并标记为脏数据，数据库写入由写回调度器批量完成
+     */
+    public T save(T document) {
+        document = externalizeImages(document);
+        cacheService.writeToCache(cacheService.buildKey(type, document.getUsername(), document.getVersion()),
+                document, expireMinutes);
+        return document;
+    }
+
+    /**
+     * 读取模块数据，优先读取缓存，缓存数据无法解析时清除该缓存键并回源数据库
+     */
+    public Optional<T> find(String username, int version) {
+        String cacheKey = cacheService.buildKey(type, username, version);
+        try {
+            Object cachedData = cacheService.getFromCache(cacheKey);
+            if (cachedData != null) {
+                return Optional.of(fromCache(username, version, cachedData));
+            }
+        } catch (Exception e) {
+            System.err.println("Cache deserialization failed for key: " + cacheKey + ", error: " + e.getMessage());
+            cacheService.evictCache(cacheKey);
+        }
+
+        // 旧数据中的内嵌图片在预热前替换为引用，缓存中只保存引用，数据库中的数据在下次保存时更新
+        long invalidationCount = invalidationCount(username, version);
+        Optional<T> document = findInDb(username, version).map(this::externalizeImages);
+        document.ifPresent(doc -> warmUp(username, version, doc, invalidationCount));
+        return document;
+    }
+
+    /**
+     * 本地缓存的失效计数，在读取数据库之前取得，预热时据此判断读取期间是否有写入
+     */
+    public long invalidationCount(String username, int version) {
+        return cacheService.invalidationCount(cacheService.buildKey(type, username, version));
+    }
+
+    /**
+     * 异步预热缓存（不标记为脏数据），用于数据库读取之后；缓存中已有数据时不覆盖
+     * @param invalidationCount 读取数据库之前由 {@link #invalidationCount} 取得
+     */
+    public void warmUp(String username, int version, Object document, long invalidationCount) {
+        cacheService.warmUpCache(cacheService.buildKey(type, username, version), document, expireMinutes, invalidationCount);
+    }
+
+    /**
+     * 跳过缓存直接从数据库读取
+     */
+    public Optional<T> findInDb(String username, int version) {
+        return finder.apply(username, version);
+    }
+
+    /**
+     * 模块不存在时返回的空文档
+     */
+    public T empty(String username, int version) {
+        return emptyFactory.apply(username, version);
+    }
+
+    /**
+     * 将缓存中的数据转换为文档对象
+     */
+    @SuppressWarnings("unchecked")
+    public T fromCache(String username, int version, Object cachedData) {
+        if (documentClass.isInstance(cachedData)) {
+            return documentClass.cast(cachedData);
+        }
+        if (cardsSetter != null && cachedData instanceof Map<?, ?> cards) {
+            T document = empty(username, version);
+            cardsSetter.accept(document, (Map<String, Object>) cards);
+            return document;
+        }
+        return objectMapper.convertValue(cachedData, documentClass);
+    }
+
+    /**
+     * 将写回时从 Redis 读到的数据转换为待写入的文档
+     * id 置空，由 upsert 按 username + version 定位已有文档
+     */
+    public T toDocument(String username, int version, Object cachedData) {
+        T document = fromCache(username, version, cachedData);
+        document.setId(null);
+        document.setUsername(username);
+        document.setVersion(version);
+        return document;
+    }
+
+    /**
+     * 对卡片字段应用 JSON 合并补丁：补丁中的对象逐层合并，null 删除对应的卡片或字段，其他值整体替换
+     * 补丁后的文档写回缓存，并记录修改过的路径，写回数据库时只对这些路径执行 $set / $unset
+     * @param patch 以卡片 id 为 key 的补丁，例如 {"project1": {"name": "新名称"}, "project2": null}
+     * @return 修改过的字段路径
+     * @throws IllegalArgumentException 补丁不是对象，或字段名不能作为 MongoDB 路径
+     * @throws ConcurrentModificationException 多次重试后仍与其他写入冲突
+     */
+    public Set<String> patch(String username, int version, JsonNode patch) throws JsonProcessingException {
+        if (patchField == null) {
+            throw new UnsupportedOperationException(type + " 不支持合并补丁");
+        }
+        if (patch == null || !patch.isObject()) {
+            throw new IllegalArgumentException("合并补丁必须是 JSON 对象");
+        }
+        validateFieldNames(patch);
+        if (imageStore != null) {
+            imageStore.externalize(patch);
+        }
+        String cacheKey = cacheService.buildKey(type, username, version);
+
+        for (int attempt = 0; attempt < PATCH_ATTEMPTS; attempt++) {
+            // 直接读取 Redis 中的数据和代数，写入时据此检查期间是否有其他写入
+            CacheService.VersionedValue current = cacheService.getMultiForWriteBack(List.of(cacheKey)).get(0);
+            T document = current.data() != null
+                    ? fromCache(username, version, current.data())
+                    : findInDb(username, version).orElseGet(() -> empty(username, version));
+
+            ObjectNode documentNode = objectMapper.valueToTree(document);
+            JsonNode target = documentNode.get(patchField);
+            ObjectNode cards = target instanceof ObjectNode objectNode ? objectNode : objectMapper.createObjectNode();
+            Set<String> paths = new TreeSet<>();
+            applyMergePatch(cards, patch, patchField, paths);
+            if (paths.isEmpty()) {
+                return paths;
+            }
+            if (!(target instanceof ObjectNode)) {
+                // 卡片字段原为 null 或不存在：数据库中无法 $set 其子路径，写回时整体 $set 卡片字段
+                paths = new TreeSet<>(Set.of(patchField));
+            }
+            documentNode.set(patchField, cards);
+            T patched = objectMapper.treeToValue(documentNode, documentClass);
+            patched.setUsername(username);
+            patched.setVersion(version);
+
+            if (cacheService.writePatchToCache(cacheKey, patched, expireMinutes, current.generation(), paths) >= 0) {
+                return paths;
+            }
+        }
+        throw new ConcurrentModificationException("数据正在被其他请求修改，请稍后重试: " + cacheKey);
+    }
+
+    /**
+     * 把文档中的内嵌图片替换为引用，未设置图片存储时原样返回；可能写入 GridFS，不应在事件循环线程上调用
+     */
+    public T externalizeImages(T document) {
+        return imageStore != null ? imageStore.externalize(document, documentClass) : document;
+    }
+
+    /**
+     * RFC 7386 合并补丁，同时记录修改过的路径（替换或删除的最外层路径）
+     */
+    private static void applyMergePatch(ObjectNode target, JsonNode patch, String path, Set<String> paths) {
+        Iterator<Map.Entry<String, JsonNode>> fields = patch.fields();
+        while (fields.hasNext()) {
+            Map.Entry<String, JsonNode> field = fields.next();
+            String name = field.getKey();
+            JsonNode value = field.getValue();
+            String fieldPath = path + "." + name;
+            if (value.isNull()) {
+                if (target.remove(name) != null) {
+                    paths.add(fieldPath);
+                }
+            } else if (value.isObject() && target.get(name) instanceof ObjectNode child) {
+                applyMergePatch(child, value, fieldPath, paths);
+            } else if (value.isObject()) {
+                ObjectNode child = target.putObject(name);
+                applyMergePatch(child, value, fieldPath, new TreeSet<>());
+                paths.add(fieldPath);
+            } else if (!value.equals(target.get(name))) {
+                target.set(name, value);
+                paths.add(fieldPath);
+            }
+        }
+    }
+
+    /**
+     * 字段名会成为 MongoDB 的更新路径，不能为空、包含点号或以 $ 开头
+     */
+    private static void validateFieldNames(JsonNode patch) {
+        Iterator<Map.Entry<String, JsonNode>> fields = patch.fields();
+        while (fields.hasNext()) {
+            Map.Entry<String, JsonNode> field = fields.next();
+            String name = field.getKey();
+            if (name.isEmpty() || name.contains(".") || name.startsWith("$")) {
+                throw new IllegalArgumentException("不支持的字段名: " + name);
+            }
+            if (field.getValue().isObject()) {
+                validateFieldNames(field.getValue());
+            }
+        }
+    }
+}
@@ -0,0 +1,41 @@
+package com.example.flexresume.service;
+
+import jakarta.annotation.PostConstruct;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.stereotype.Service;
+
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * 按模块名查找已注册的 SectionStore，供写回和批量读取使用
+ */
+@Service
+public class SectionStores {
+
+    @Autowired
+    private List<SectionStore<?>> stores;
+
+    @Autowired(required = false)
+    private ImageStore imageStore;
+
+    private final Map<String, SectionStore<?>> storesByType = new LinkedHashMap<>();
+
+    @PostConstruct
+    public void init() {
+        for (SectionStore<?> store : stores) {
+            store.withImages(imageStore);
+            if (storesByType.put(store.getType(), store) != null) {
+                throw new IllegalStateException("重复注册的简历模块: " + store.getType());
+            }
+        }
+    }
+
+    /**
+     * @return 对应的模块，未注册时返回 null
+     */
+    public SectionStore<?> get(String type) {
+        return storesByType.get(type);
+    }
+}
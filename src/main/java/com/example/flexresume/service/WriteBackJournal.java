@@ -0,0 +1,222 @@
+package com.example.flexresume.service;
+
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.data.domain.Range;
+import org.springframework.data.redis.connection.RedisStreamCommands;
+import org.springframework.data.redis.connection.stream.Consumer;
+import org.springframework.data.redis.connection.stream.MapRecord;
+import org.springframework.data.redis.connection.stream.PendingMessage;
+import org.springframework.data.redis.connection.stream.PendingMessages;
+import org.springframework.data.redis.connection.stream.PendingMessagesSummary;
+import org.springframework.data.redis.connection.stream.ReadOffset;
+import org.springframework.data.redis.connection.stream.RecordId;
+import org.springframework.data.redis.connection.stream.StreamOffset;
+import org.springframework.data.redis.connection.stream.StreamReadOptions;
+import org.springframework.data.redis.core.RedisCallback;
+import org.springframework.data.redis.core.StringRedisTemplate;
+import org.springframework.stereotype.Service;
+
+import java.nio.charset.StandardCharsets;
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.List;
+import java.util.Map;
+import java.util.UUID;
+import java.util.function.Supplier;
+
+/**
+ * 写回日志：key 变脏时追加到 Redis Stream，各节点以同一个消费者组读取，每条记录只由一个节点写回
+ * 记录在写回完成后确认（XACK）；节点崩溃后未确认的记录闲置超过一定时长，由其他节点认领（XCLAIM）继续写回
+ */
+@Service
+public class WriteBackJournal {
+
+    // 日志 Stream，记录只有一个字段 key（缓存键，不含前缀），记录 ID 的时间部分即变脏时间
+    public static final String STREAM_KEY = "dirty:stream";
+
+    private static final String GROUP = "writeback";
+
+    private static final String KEY_FIELD = "key";
+
+    // 兜底扫描脏数据索引的锁，同一时间只有一个节点扫描
+    private static final String SWEEP_LOCK_KEY = "dirty:stream:sweep";
+
+    @Autowired
+    private StringRedisTemplate stringRedisTemplate;
+
+    @Value("${writeback.journal.enabled:true}")
+    private boolean enabled;
+
+    // Stream 的近似最大长度，超出时裁剪最早的记录（被裁剪的脏数据由兜底扫描写回）
+    @Value("${writeback.journal.max-length:1000000}")
+    private long maxLength;
+
+    // 未确认的记录闲置超过该时长视为消费者已崩溃，由其他节点认领
+    @Value("${writeback.journal.claim-idle-ms:300000}")
+    private long claimIdleMs;
+
+    // 消费者名称，默认使用主机名，节点重启后可继续处理自己未确认的记录
+    private final String consumerName;
+
+    // 消费者组是否已创建，Redis 不可用时启动不创建，首次读取时再创建
+    private volatile boolean groupReady;
+
+    public WriteBackJournal(@Value("${writeback.journal.consumer:${HOSTNAME:}}") String consumerName) {
+        this.consumerName = consumerName.isBlank() ? UUID.randomUUID().toString() : consumerName;
+    }
+
+    public boolean isEnabled() {
+        return enabled;
+    }
+
+    /**
+     * 写入脚本中追加日志时使用的最大长度，未启用时为 0（不追加）
+     */
+    public long scriptMaxLength() {
+        return enabled ? maxLength : 0;
+    }
+
+    /**
+     * 重新追加仍为脏的key（如写回失败），留待之后再次写回
+     */
+    public void append(Collection<String> keys) {
+        RedisStreamCommands.XAddOptions options = RedisStreamCommands.XAddOptions.maxlen(maxLength).approximateTrimming(true);
+        for (String key : keys) {
+            stringRedisTemplate.opsForStream().add(STREAM_KEY, Map.of(KEY_FIELD, key), options);
+        }
+    }
+
+    /**
+     * 读取本节点已领取但尚未确认的记录（包括上次未到写回时间而保留的、以及认领来的），从早到晚
+     */
+    public List<Entry> readPending(int count) {
+        return read(count, ReadOffset.from("0"));
+    }
+
+    /**
+     * 领取尚未分配给任何节点的新记录
+     */
+    public List<Entry> readNew(int count) {
+        return read(count, ReadOffset.lastConsumed());
+    }
+
+    private List<Entry> read(int count, ReadOffset offset) {
+        StreamOffset<String> streamOffset = StreamOffset.create(STREAM_KEY, offset);
+        // read 的 StreamOffset<K>... 为泛型可变参数，接口方法无法标注 @SafeVarargs；这里只传入一个 StreamOffset<String>，不存在堆污染
+        @SuppressWarnings("unchecked")
+        List<MapRecord<String, Object, Object>> records = withGroup(() -> stringRedisTemplate.opsForStream().read(
+                Consumer.from(GROUP, consumerName),
+                StreamReadOptions.empty().count(count),
+                streamOffset));
+        List<Entry> entries = new ArrayList<>();
+        if (records == null) {
+            return entries;
+        }
+        for (MapRecord<String, Object, Object> record : records) {
+            Object key = record.getValue() != null ? record.getValue().get(KEY_FIELD) : null;
+            // 已被裁剪的记录只剩 ID，key 为 null，确认即可
+            entries.add(new Entry(record.getId(), key != null ? key.toString() : null));
+        }
+        return entries;
+    }
+
+    /**
+     * 认领其他节点闲置过久的未确认记录，认领后由本节点的 {@link #readPending} 读到
+     * @return 认领的数量
+     */
+    public int claimStale(int count) {
+        PendingMessages pending = withGroup(() ->
+                stringRedisTemplate.opsForStream().pending(STREAM_KEY, GROUP, Range.unbounded(), count));
+        List<RecordId> stale = new ArrayList<>();
+        for (PendingMessage message : pending) {
+            if (!consumerName.equals(message.getConsumerName())
+                    && message.getElapsedTimeSinceLastDelivery().toMillis() >= claimIdleMs) {
+                stale.add(message.getId());
+            }
+        }
+        if (stale.isEmpty()) {
+            return 0;
+        }
+        List<MapRecord<String, Object, Object>> claimed = stringRedisTemplate.opsForStream().claim(
+                STREAM_KEY, GROUP, consumerName, Duration.ofMillis(claimIdleMs), stale.toArray(new RecordId[0]));
+        return claimed != null ? claimed.size() : 0;
+    }
+
+    /**
+     * 确认已处理的记录
+     */
+    public void acknowledge(Collection<RecordId> ids) {
+        if (!ids.isEmpty()) {
+            stringRedisTemplate.opsForStream().acknowledge(STREAM_KEY, GROUP, ids.toArray(new RecordId[0]));
+        }
+    }
+
+    /**
+     * 消费者组中已领取未确认的记录数
+     */
+    public long getPendingCount() {
+        PendingMessagesSummary summary = withGroup(() -> stringRedisTemplate.opsForStream().pending(STREAM_KEY, GROUP));
+        return summary != null ? summary.getTotalPendingMessages() : 0;
+    }
+
+    /**
+     * 尝试获取兜底扫描的锁，锁在到期后自动释放，保证每个周期最多一个节点扫描
+     */
+    public boolean tryAcquireSweep(Duration period) {
+        Boolean acquired = stringRedisTemplate.opsForValue().setIfAbsent(SWEEP_LOCK_KEY, consumerName, period);
+        return Boolean.TRUE.equals(acquired);
+    }
+
+    /**
+     * 确保消费者组存在后执行，Stream 被删除（消费者组随之消失）时下次调用重新创建
+     */
+    private <T> T withGroup(Supplier<T> operation) {
+        if (!groupReady) {
+            createGroup();
+        }
+        try {
+            return operation.get();
+        } catch (RuntimeException e) {
+            if (isRedisError(e, "NOGROUP")) {
+                groupReady = false;
+            }
+            throw e;
+        }
+    }
+
+    private void createGroup() {
+        try {
+            stringRedisTemplate.execute((RedisCallback<String>) connection -> connection.streamCommands()
+                    .xGroupCreate(STREAM_KEY.getBytes(StandardCharsets.UTF_8), GROUP, ReadOffset.from("0"), true));
+        } catch (RuntimeException e) {
+            // 其他节点已创建
+            if (!isRedisError(e, "BUSYGROUP")) {
+                throw e;
+            }
+        }
+        groupReady = true;
+    }
+
+    private static boolean isRedisError(Throwable e, String code) {
+        for (Throwable t = e; t != null; t = t.getCause()) {
+            if (t.getMessage() != null && t.getMessage().contains(code)) {
+                return true;
+            }
+        }
+        return false;
+    }
+
+    /**
+     * 日志记录
+     * @param id 记录 ID，时间部分为追加时间
+     * @param key 缓存键，记录已被裁剪时为 null
+     */
+    public record Entry(RecordId id, String key) {
+
+        public long timestamp() {
+            return id.getTimestamp();
+        }
+    }
+}
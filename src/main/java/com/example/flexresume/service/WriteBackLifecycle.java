@@ -0,0 +1,96 @@
+package com.example.flexresume.service;
+
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.Timer;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.context.SmartLifecycle;
+import org.springframework.stereotype.Component;
+
+import java.util.concurrent.TimeUnit;
+
+/**
+ * 写回数据的启动恢复和停机写回
+ * 启动时在 Web 服务器开始接收请求之前，迁移旧版本的脏标记并写回遗留的脏数据（上次停机未写完或节点崩溃）；
+ * 停机时在 Web 服务器处理完在途请求之后，拒绝新的写入并在截止时间前写回全部脏数据
+ * 两个阶段都受写回分区数限制并发，耗时记录在 writeback.lifecycle 指标中
+ */
+@Component
+public class WriteBackLifecycle implements SmartLifecycle {
+
+    // 低于 Web 服务器启停的阶段（Integer.MAX_VALUE - 2048）：先于其启动、晚于其停止；
+    // 高于 Redis 连接工厂的阶段（0），停机写回时连接仍可用
+    private static final int PHASE = Integer.MAX_VALUE - 4096;
+
+    @Autowired
+    private WriteBackScheduler writeBackScheduler;
+
+    @Autowired
+    private CacheService cacheService;
+
+    @Autowired
+    private MeterRegistry meterRegistry;
+
+    @Value("${writeback.recovery.enabled:true}")
+    private boolean recoveryEnabled;
+
+    // 启动恢复的最长时间，超时后剩余的脏数据由定时写回继续处理
+    @Value("${writeback.recovery.timeout-ms:60000}")
+    private long recoveryTimeoutMs;
+
+    // 停机写回的最长时间，需小于 spring.lifecycle.timeout-per-shutdown-phase
+    @Value("${writeback.shutdown.timeout-ms:20000}")
+    private long shutdownTimeoutMs;
+
+    private volatile boolean running;
+
+    @Override
+    public void start() {
+        running = true;
+        if (!recoveryEnabled) {
+            return;
+        }
+        long start = System.currentTimeMillis();
+        try {
+            int migrated = writeBackScheduler.migrateLegacyDirtyMarkers();
+            int written = writeBackScheduler.drainAll(start + recoveryTimeoutMs, "启动恢复写回失败");
+            report("recovery", start, "启动恢复：迁移旧脏标记 " + migrated + " 个，写回 " + written + " 个");
+        } catch (Exception e) {
+            // Redis 或数据库不可用时不阻止启动，遗留的脏数据由定时写回处理
+            System.err.println("启动恢复写回失败，耗时 " + (System.currentTimeMillis() - start) + "ms, 错误: " + e.getMessage());
+        }
+    }
+
+    @Override
+    public void stop() {
+        running = false;
+        cacheService.stopAcceptingWrites();
+        long start = System.currentTimeMillis();
+        try {
+            int written = writeBackScheduler.drainAll(start + shutdownTimeoutMs, "停机写回失败");
+            report("shutdown", start, "停机写回：写回 " + written + " 个");
+        } catch (Exception e) {
+            System.err.println("停机写回失败，耗时 " + (System.currentTimeMillis() - start) + "ms, 错误: " + e.getMessage());
+        }
+    }
+
+    private void report(String phase, long start, String summary) {
+        long elapsed = System.currentTimeMillis() - start;
+        Timer.builder("writeback.lifecycle")
+                .description("启动恢复、停机写回的耗时")
+                .tag("phase", phase)
+                .register(meterRegistry)
+                .record(elapsed, TimeUnit.MILLISECONDS);
+        System.out.println(summary + "，剩余脏数据 " + cacheService.getDirtyCount() + " 个，耗时 " + elapsed + "ms");
+    }
+
+    @Override
+    public boolean isRunning() {
+        return running;
+    }
+
+    @Override
+    public int getPhase() {
+        return PHASE;
+    }
+}
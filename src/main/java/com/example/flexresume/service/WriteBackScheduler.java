@@ -1,16 +1,41 @@
 package com.example.flexresume.service;
 
-import com.example.flexresume.model.*;
-import com.example.flexresume.repository.*;
+import com.example.flexresume.model.PublishRecord;
+import com.fasterxml.jackson.databind.JsonNode;
 import com.fasterxml.jackson.databind.ObjectMapper;
+import com.mongodb.bulk.BulkWriteError;
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.Timer;
+import jakarta.annotation.PostConstruct;
 import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.data.mongodb.BulkOperationException;
+import org.springframework.data.mongodb.core.BulkOperations;
+import org.springframework.data.mongodb.core.FindAndReplaceOptions;
+import org.springframework.data.mongodb.core.MongoTemplate;
+import org.springframework.data.mongodb.core.query.Criteria;
+import org.springframework.data.mongodb.core.query.Query;
+import org.springframework.data.mongodb.core.query.Update;
+import org.springframework.data.redis.connection.stream.RecordId;
 import org.springframework.scheduling.annotation.Async;
 import org.springframework.scheduling.annotation.Scheduled;
 import org.springframework.stereotype.Service;
 
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.HashSet;
+import java.util.LinkedHashMap;
+import java.util.LinkedHashSet;
+import java.util.List;
 import java.util.Map;
-import java.util.Optional;
 import java.util.Set;
+import java.util.TreeSet;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.concurrent.atomic.AtomicLong;
 
 @Service
 public class WriteBackScheduler {
@@ -19,166 +44,628 @@ public class WriteBackScheduler {
     private CacheService cacheService;
 
     @Autowired
-    private PersonalInfoRepository personalInfoRepository;
+    private MongoTemplate mongoTemplate;
 
     @Autowired
-    private EducationRepository educationRepository;
+    private ObjectMapper objectMapper;
 
     @Autowired
-    private ProjectRepository projectRepository;
+    private SectionStores sectionStores;
 
     @Autowired
-    private WorkInternshipRepository workInternshipRepository;
+    private MeterRegistry meterRegistry;
 
     @Autowired
-    private SkillRepository skillRepository;
+    private WriteBackWorkers writeBackWorkers;
 
     @Autowired
-    private PublishRecordRepository publishRecordRepository;
+    private WriteBackJournal writeBackJournal;
+
+    // 初始批大小：每批从脏数据索引中取出的key数量，同时也是单次批量写入的上限，运行中在最小值和最大值之间自动调整
+    @Value("${writeback.batch-size:100}")
+    private int batchSize;
+
+    @Value("${writeback.min-batch-size:10}")
+    private int minBatchSize;
+
+    @Value("${writeback.max-batch-size:500}")
+    private int maxBatchSize;
+
+    // 每轮取出的key数量为批大小乘以该值，实际并行度不超过写回分区数（writeback.partitions）
+    @Value("${writeback.max-concurrency:4}")
+    private int maxConcurrency;
+
+    // 一批数据库写入的目标耗时，超过时降速
+    @Value("${writeback.target-latency-ms:500}")
+    private long targetLatencyMs;
+
+    // 降速时批次间暂停的上限
+    @Value("${writeback.max-pause-ms:5000}")
+    private long maxPauseMs;
+
+    // 写回检查间隔
+    @Value("${writeback.interval-ms:10000}")
+    private long intervalMs;
+
+    // 启用写回日志时，兜底扫描只处理变脏超过该时长仍未写回的key（即将过期的key除外）
+    @Value("${writeback.journal.sweep-after-ms:300000}")
+    private long sweepAfterMs;
+
+    // 变脏超过该时长才写回，期间的多次保存合并为一次写入
+    @Value("${writeback.min-dirty-age-ms:60000}")
+    private long minDirtyAgeMs;
+
+    // 缓存将在该时长内过期的脏数据不受上面的限制，优先写回
+    @Value("${writeback.expiry-window-ms:180000}")
+    private long expiryWindowMs;
+
+    private WriteBackThrottle throttle;
+
+    // 定时写回进行中时，下一次触发直接返回，避免两轮同时写回；drainAll 也持有该标志
+    private final AtomicBoolean draining = new AtomicBoolean();
+
+    // 最近一次采样的脏数据数量、最早脏数据的变脏时间（0 表示没有脏数据）和写回日志中未确认的记录数，由定时采样更新
+    private final AtomicLong dirtyBacklog = new AtomicLong();
+    private final AtomicLong oldestDirtyTimestamp = new AtomicLong();
+    private final AtomicLong journalPending = new AtomicLong();
+
+    private Timer batchTimer;
+    private Counter persistedKeys;
+    private Counter patchedKeys;
+    private Counter pressureEvents;
+    private Counter claimedEntries;
+
+    @PostConstruct
+    public void initMetrics() {
+        throttle = new WriteBackThrottle(minBatchSize, batchSize, maxBatchSize, maxConcurrency, targetLatencyMs, maxPauseMs);
+        batchTimer = Timer.builder("writeback.batch")
+                .description("一批脏数据写回（读取缓存、批量写入、清除脏标记）的耗时")
+                .register(meterRegistry);
+        persistedKeys = Counter.builder("writeback.persisted")
+                .description("成功写回数据库的脏数据数量")
+                .register(meterRegistry);
+        patchedKeys = Counter.builder("writeback.patched")
+                .description("按补丁路径更新（而不是整体替换）的脏数据数量")
+                .register(meterRegistry);
+        pressureEvents = Counter.builder("writeback.throttle.pressure")
+                .description("因内存紧张降低写回速率的次数")
+                .register(meterRegistry);
+        claimedEntries = Counter.builder("writeback.journal.claimed")
+                .description("从崩溃节点认领的写回日志记录数")
+                .register(meterRegistry);
+        Gauge.builder("writeback.journal.pending", journalPending, AtomicLong::get)
+                .description("写回日志中已领取未确认的记录数")
+                .register(meterRegistry);
+        Gauge.builder("writeback.throttle.batch.size", throttle, WriteBackThrottle::batchSize)
+                .description("当前写回批大小")
+                .register(meterRegistry);
+        Gauge.builder("writeback.throttle.concurrency", throttle, WriteBackThrottle::concurrency)
+                .description("当前同时写回的批数")
+                .register(meterRegistry);
+        Gauge.builder("writeback.throttle.pause", throttle, WriteBackThrottle::pauseMillis)
+                .description("当前批次间的暂停时长")
+                .baseUnit("milliseconds")
+                .register(meterRegistry);
+        Gauge.builder("writeback.dirty.backlog", dirtyBacklog, AtomicLong::get)
+                .description("待写回的脏数据数量")
+                .register(meterRegistry);
+        Gauge.builder("writeback.dirty.oldest.age", oldestDirtyTimestamp,
+                        timestamp -> timestamp.get() == 0 ? 0 : (System.currentTimeMillis() - timestamp.get()) / 1000.0)
+                .description("最早一条脏数据距今的时长，接近缓存过期时间时有丢数据的风险")
+                .baseUnit("seconds")
+                .register(meterRegistry);
+    }
 
-    @Autowired
-    private ObjectMapper objectMapper;
-    @Scheduled(fixedRate = 300000) // 5分钟
+    /**
+     * 定时采样脏数据积压，抓取指标时不访问 Redis
+     */
+    @Scheduled(fixedDelayString = "${metrics.dirty-backlog.sample-interval-ms:15000}")
+    public void sampleDirtyBacklog() {
+        try {
+            dirtyBacklog.set(cacheService.getDirtyCount());
+            Long oldest = cacheService.getOldestDirtyTimestamp();
+            oldestDirtyTimestamp.set(oldest != null ? oldest : 0);
+            if (writeBackJournal.isEnabled()) {
+                journalPending.set(writeBackJournal.getPendingCount());
+            }
+        } catch (Exception e) {
+            System.err.println("采样脏数据积压失败: " + e.getMessage());
+        }
+    }
+
+    /**
+     * 持续写回：每轮写回变脏已超过最短时长、或缓存即将过期的脏数据，直到没有可写回的key
+     * 启用写回日志时从消费者组领取key，多个节点分担写回而不是重复写回；
+     * 另由一个节点定期扫描脏数据索引，兜底写回日志中遗漏（如被裁剪）的key和即将过期的key
+     * 写回速率由 {@link WriteBackThrottle} 按数据库写入耗时、失败比例和内存使用情况调整
+     */
+    @Scheduled(fixedDelayString = "${writeback.interval-ms:10000}")
     @Async
     public void writeBackDirtyData() {
+        if (!draining.compareAndSet(false, true)) {
+            return;
+        }
         try {
-            if (isSystemBusy()) {
-                System.out.println("系统繁忙，跳过本次写回操作");
+            long now = System.currentTimeMillis();
+            if (!writeBackJournal.isEnabled()) {
+                drainDirtyIndex(now - minDirtyAgeMs, "写回数据失败", Long.MAX_VALUE);
                 return;
             }
-            Set<String> dirtyKeys = cacheService.getDirtyKeys();
-            for (String dirtyKey : dirtyKeys) {
-                try {
-                    String key = dirtyKey.replace("dirty:", "");
-                    writeBackSingleData(key);
-                } catch (Exception e) {
-                    System.err.println("写回数据失败: " + dirtyKey + ", 错误: " + e.getMessage());
-                }
+            drainJournal(now - minDirtyAgeMs, "写回数据失败");
+            if (writeBackJournal.tryAcquireSweep(Duration.ofMillis(intervalMs))) {
+                drainDirtyIndex(now - sweepAfterMs, "兜底写回失败", Long.MAX_VALUE);
             }
         } catch (Exception e) {
             System.err.println("写回调度器发生错误: " + e.getMessage());
+        } finally {
+            draining.set(false);
         }
     }
 
-    @Async
-    public void immediateWriteBack(String key) {
-        try {
-            writeBackSingleData(key);
-        } catch (Exception e) {
-            System.err.println("立即写回失败: " + key + ", 错误: " + e.getMessage());
+    /**
+     * 分批写回脏数据：缓存即将过期的key优先，其余按变脏时间从早到晚
+     * 每轮按当前批大小和并发数取出key并发写回，写回成功的key会从索引中移除，
+     * 本轮已处理过但仍为脏的key（失败或写回期间又被写入）跳过，留待下一轮
+     * @param dirtyBefore 只处理在该时间戳之前变脏的key（即将过期的key除外）
+     * @param deadline 超过该时间戳后不再开始新的一轮
+     * @return 成功写回的数量
+     */
+    private int drainDirtyIndex(long dirtyBefore, String errorLabel, long deadline) {
+        Set<String> attempted = new HashSet<>();
+        int writtenCount = 0;
+        List<Long> roundMillis = new ArrayList<>();
+        while (System.currentTimeMillis() < deadline) {
+            checkMemoryPressure();
+            int size = throttle.batchSize();
+            List<String> keys = nextDirtyKeys(dirtyBefore, size * throttle.concurrency(), attempted);
+            if (keys.isEmpty()) {
+                break;
+            }
+            attempted.addAll(keys);
+
+            long roundStart = System.currentTimeMillis();
+            RoundResult round = writeBackRound(keys, size, errorLabel);
+            writtenCount += round.persisted();
+            roundMillis.add(System.currentTimeMillis() - roundStart);
+            if (round.failure() != null) {
+                throw round.failure();
+            }
+            sleepQuietly(Math.min(throttle.pauseMillis(), Math.max(0, deadline - System.currentTimeMillis())));
         }
+        logDrain("写回完成", writtenCount, roundMillis);
+        return writtenCount;
     }
 
-    private void writeBackSingleData(String key) throws Exception {
-        Object cachedData = cacheService.getFromCache(key);
-        if (cachedData == null) {
-            cacheService.removeDirtyFlag(key);
-            return;
+    /**
+     * 从写回日志领取并写回脏数据
+     * 先认领其他节点崩溃后遗留的记录，再依次处理本节点未确认的记录和新记录；
+     * 变脏未满最短时长的记录保留在本节点的待确认列表中（不确认），之后的轮次再处理
+     * 写回完成的记录确认；写回失败的key重新追加到日志，写回期间又被写入的key由清除脚本重新追加
+     * @param dirtyBefore 只处理在该时间戳之前追加的记录
+     * @return 成功写回的数量
+     */
+    private int drainJournal(long dirtyBefore, String errorLabel) {
+        int claimed = writeBackJournal.claimStale(maxBatchSize);
+        if (claimed > 0) {
+            claimedEntries.increment(claimed);
         }
+        int writtenCount = 0;
+        List<Long> roundMillis = new ArrayList<>();
+        while (true) {
+            checkMemoryPressure();
+            int size = throttle.batchSize();
+            int count = size * throttle.concurrency();
+            List<WriteBackJournal.Entry> entries = writeBackJournal.readPending(count);
+            if (entries.isEmpty()) {
+                entries = writeBackJournal.readNew(count);
+            }
 
-        String[] keyParts = key.split(":");
-        if (keyParts.length < 3) {
-            return;
-        }
+            // 记录按追加时间排序，遇到未满最短时长的记录即停止
+            Map<String, List<RecordId>> idsByKey = new LinkedHashMap<>();
+            List<RecordId> stale = new ArrayList<>();
+            for (WriteBackJournal.Entry entry : entries) {
+                if (entry.timestamp() > dirtyBefore) {
+                    break;
+                }
+                if (entry.key() == null) {
+                    stale.add(entry.id());
+                } else {
+                    idsByKey.computeIfAbsent(entry.key(), k -> new ArrayList<>()).add(entry.id());
+                }
+            }
+            if (idsByKey.isEmpty() && stale.isEmpty()) {
+                break;
+            }
 
-        String type = keyParts[0];
-        String username = keyParts[1];
-        int version = Integer.parseInt(keyParts[2]);
+            // 已被其他途径（发布前强制写回、兜底扫描）写回的key直接确认
+            Set<String> dirtyKeys = cacheService.filterDirtyKeys(idsByKey.keySet());
+            idsByKey.forEach((key, ids) -> {
+                if (!dirtyKeys.contains(key)) {
+                    stale.addAll(ids);
+                }
+            });
+            writeBackJournal.acknowledge(stale);
+            if (dirtyKeys.isEmpty()) {
+                continue;
+            }
 
-        switch (type) {
-            case "personalInfo":
-                writeBackPersonalInfo(username, version, cachedData);
-                break;
-            case "education":
-                writeBackEducation(username, version, cachedData);
-                break;
-            case "projects":
-                writeBackProjects(username, version, cachedData);
-                break;
-            case "workinternship":
-                writeBackWorkInternship(username, version, cachedData);
-                break;
-            case "skills":
-                writeBackSkills(username, version, cachedData);
-                break;
-            case "publish":
-                writeBackPublish(username, version, cachedData);
-                break;
+            long roundStart = System.currentTimeMillis();
+            RoundResult round = writeBackRound(new ArrayList<>(dirtyKeys), size, errorLabel);
+            writtenCount += round.persisted();
+            List<RecordId> done = new ArrayList<>();
+            for (String key : round.completedKeys()) {
+                done.addAll(idsByKey.get(key));
+            }
+            writeBackJournal.append(round.failedKeys());
+            writeBackJournal.acknowledge(done);
+            roundMillis.add(System.currentTimeMillis() - roundStart);
+            if (round.failure() != null) {
+                throw round.failure();
+            }
+            sleepQuietly(throttle.pauseMillis());
         }
-        cacheService.removeDirtyFlag(key);
+        logDrain("写回日志处理完成", writtenCount, roundMillis);
+        return writtenCount;
     }
 
-    // --- FIX: 以下是最终的、健壮的写回方法 ---
+    /**
+     * 写回一轮key：按 username + version 分到各分区，每个分区内按批大小切分后依次写回，各分区并行
+     * 每批的结果反馈给速率控制；整批失败（如 Redis 不可用）按全部失败降速，异常随结果返回
+     */
+    private RoundResult writeBackRound(List<String> keys, int size, String errorLabel) {
+        long roundStart = System.currentTimeMillis();
+        Map<Integer, List<String>> keysByPartition = new LinkedHashMap<>();
+        for (String key : keys) {
+            keysByPartition.computeIfAbsent(writeBackWorkers.partitionOf(key), p -> new ArrayList<>()).add(key);
+        }
+        List<List<String>> batches = new ArrayList<>();
+        List<CompletableFuture<WriteBackResult>> futures = new ArrayList<>();
+        keysByPartition.forEach((partition, partitionKeys) -> {
+            for (int from = 0; from < partitionKeys.size(); from += size) {
+                List<String> batch = partitionKeys.subList(from, Math.min(partitionKeys.size(), from + size));
+                batches.add(batch);
+                futures.add(writeBackWorkers.submit(partition, false, () -> writeBackKeys(batch, errorLabel)));
+            }
+        });
+        CompletableFuture.allOf(futures.toArray(new CompletableFuture[0])).exceptionally(e -> null).join();
+
+        int persisted = 0;
+        List<String> completedKeys = new ArrayList<>();
+        List<String> failedKeys = new ArrayList<>();
+        RuntimeException failure = null;
+        for (int i = 0; i < futures.size(); i++) {
+            try {
+                WriteBackResult result = futures.get(i).join();
+                persisted += result.persisted();
+                completedKeys.addAll(batches.get(i));
+                failedKeys.addAll(result.failedKeys());
+                throttle.onBatch(result.writeMillis(), result.attempted(), result.failedKeys().size());
+            } catch (RuntimeException e) {
+                throttle.onBatch(System.currentTimeMillis() - roundStart, size, size);
+                failure = e.getCause() instanceof RuntimeException cause ? cause : e;
+            }
+        }
+        return new RoundResult(persisted, completedKeys, failedKeys, failure);
+    }
 
-    private void writeBackPersonalInfo(String username, int version, Object data) throws Exception {
-        PersonalInfo docToSave = objectMapper.convertValue(data, PersonalInfo.class);
-        
-        // 查找现有文档，如果存在，则将其 ID 赋给新文档以触发更新
-        Optional<PersonalInfo> existingDoc = personalInfoRepository.findByUsernameAndVersion(username, version);
-        existingDoc.ifPresent(personalInfo -> docToSave.setId(personalInfo.getId()));
+    /**
+     * 一轮写回的结果
+     * @param persisted 写入数据库的数量
+     * @param completedKeys 已执行完写回的批次中的key（其中可能有写入失败的）
+     * @param failedKeys 其中写入失败、仍需写回的key
+     * @param failure 整批失败时的异常
+     */
+    private record RoundResult(int persisted, List<String> completedKeys, List<String> failedKeys,
+                               RuntimeException failure) {
+    }
 
-        docToSave.setUsername(username);
-        docToSave.setVersion(version);
-        personalInfoRepository.save(docToSave);
+    /**
+     * 内存紧张时降到较低速率继续写回，写回本身会释放缓存中积压的数据
+     */
+    private void checkMemoryPressure() {
+        if (isSystemBusy()) {
+            throttle.onPressure();
+            pressureEvents.increment();
+        }
     }
 
-    private void writeBackEducation(String username, int version, Object data) throws Exception {
-        EducationDocument docToSave = objectMapper.convertValue(data, EducationDocument.class);
+    private void logDrain(String label, int writtenCount, List<Long> roundMillis) {
+        if (!roundMillis.isEmpty()) {
+            System.out.println(label + "：共写回 " + writtenCount + " 个脏数据，" + roundMillis.size()
+                    + " 轮耗时(ms) " + roundMillis + "，当前批大小 " + throttle.batchSize()
+                    + "，并发 " + throttle.concurrency());
+        }
+    }
 
-        Optional<EducationDocument> existingDoc = educationRepository.findByUsernameAndVersion(username, version);
-        existingDoc.ifPresent(educationDocument -> docToSave.setId(educationDocument.getId()));
+    /**
+     * 取出下一轮要写回的key：先取缓存即将过期的，再按变脏时间从早到晚补足
+     * 多取 attempted 数量的key，以便跳过本轮已处理过的key后仍能取满
+     */
+    private List<String> nextDirtyKeys(long dirtyBefore, int count, Set<String> attempted) {
+        Set<String> keys = new LinkedHashSet<>();
+        long expiresBefore = System.currentTimeMillis() + expiryWindowMs;
+        for (String key : cacheService.getDirtyKeysExpiringBefore(expiresBefore, count + attempted.size())) {
+            if (keys.size() >= count) {
+                break;
+            }
+            if (!attempted.contains(key)) {
+                keys.add(key);
+            }
+        }
+        if (keys.size() < count) {
+            for (String key : cacheService.getOldestDirtyKeys(dirtyBefore, 0, count + attempted.size())) {
+                if (keys.size() >= count) {
+                    break;
+                }
+                if (!attempted.contains(key)) {
+                    keys.add(key);
+                }
+            }
+        }
+        return new ArrayList<>(keys);
+    }
 
-        docToSave.setUsername(username);
-        docToSave.setVersion(version);
-        educationRepository.save(docToSave);
+    private void sleepQuietly(long millis) {
+        if (millis <= 0) {
+            return;
+        }
+        try {
+            Thread.sleep(millis);
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+        }
     }
 
-    private void writeBackProjects(String username, int version, Object data) throws Exception {
-        @SuppressWarnings("unchecked")
-        Map<String, Object> projectData = (Map<String, Object>) data;
-        ProjectDocument docToSave = new ProjectDocument(username, version, projectData);
+    public void immediateWriteBack(String key) {
+        writeBackWorkers.submit(writeBackWorkers.partitionOf(key), true,
+                () -> writeBackKeys(List.of(key), "立即写回失败"));
+    }
 
-        Optional<ProjectDocument> existingDoc = projectRepository.findByUsernameAndVersion(username, version);
-        existingDoc.ifPresent(projectDocument -> docToSave.setId(projectDocument.getId()));
-        
-        projectRepository.save(docToSave);
+    /**
+     * 批量写回一组脏数据key
+     * 按数据类型分组，每个集合执行一次无序批量 upsert（以 username + version 定位文档），
+     * 之后只清除写回期间没有再被写入的key的脏标记
+     */
+    private WriteBackResult writeBackKeys(List<String> keys, String errorLabel) {
+        if (keys.isEmpty()) {
+            return new WriteBackResult(0, 0, 0, List.of(), 0);
+        }
+        Timer.Sample sample = Timer.start(meterRegistry);
+        try {
+            WriteBackResult result = doWriteBackKeys(keys, errorLabel);
+            persistedKeys.increment(result.persisted());
+            return result;
+        } catch (RuntimeException e) {
+            countFailures("all", keys.size());
+            throw e;
+        } finally {
+            sample.stop(batchTimer);
+        }
     }
 
-    private void writeBackWorkInternship(String username, int version, Object data) throws Exception {
-        @SuppressWarnings("unchecked")
-        Map<String, Object> workData = (Map<String, Object>) data;
-        WorkInternshipDocument docToSave = new WorkInternshipDocument(username, version, workData);
+    private WriteBackResult doWriteBackKeys(List<String> keys, String errorLabel) {
+        List<CacheService.VersionedValue> values = cacheService.getMultiForWriteBack(keys);
+        Map<String, String> readGenerations = new LinkedHashMap<>();
+        for (int i = 0; i < keys.size(); i++) {
+            readGenerations.put(keys.get(i), values.get(i).generation());
+        }
+        Map<String, String> generations = new LinkedHashMap<>();
+        Map<String, List<String>> keysByType = new LinkedHashMap<>();
+        Map<String, List<Object>> docsByType = new LinkedHashMap<>();
+
+        for (int i = 0; i < keys.size(); i++) {
+            String key = keys.get(i);
+            Object cachedData = values.get(i).data();
+            String[] keyParts = key.split(":");
+            // 缓存已过期或key格式不合法，无需再写回
+            if (cachedData == null || keyParts.length < 3 || sectionClass(keyParts[0]) == null) {
+                generations.put(key, readGenerations.get(key));
+                continue;
+            }
+            try {
+                String type = keyParts[0];
+                Object doc = toDocument(type, keyParts[1], Integer.parseInt(keyParts[2]), cachedData);
+                keysByType.computeIfAbsent(type, t -> new ArrayList<>()).add(key);
+                docsByType.computeIfAbsent(type, t -> new ArrayList<>()).add(doc);
+            } catch (Exception e) {
+                countFailures(keyParts[0], 1);
+                System.err.println(errorLabel + ": " + key + ", 错误: " + e.getMessage());
+            }
+        }
 
-        Optional<WorkInternshipDocument> existingDoc = workInternshipRepository.findByUsernameAndVersion(username, version);
-        existingDoc.ifPresent(workInternshipDocument -> docToSave.setId(workInternshipDocument.getId()));
+        // 只经过合并补丁修改的key按路径更新，其余整体替换
+        List<String> patchableKeys = new ArrayList<>();
+        keysByType.forEach((type, typeKeys) -> {
+            SectionStore<?> store = sectionStores.get(type);
+            if (store != null && store.supportsMergePatch()) {
+                patchableKeys.addAll(typeKeys);
+            }
+        });
+        Map<String, Set<String>> patchPaths = cacheService.getPendingPatchPaths(patchableKeys);
+
+        int persisted = 0;
+        int attempted = 0;
+        long writeStart = System.currentTimeMillis();
+        for (Map.Entry<String, List<String>> entry : keysByType.entrySet()) {
+            String type = entry.getKey();
+            List<String> succeeded = bulkUpsert(type, entry.getValue(), docsByType.get(type), patchPaths, errorLabel);
+            attempted += entry.getValue().size();
+            persisted += succeeded.size();
+            for (String key : succeeded) {
+                generations.put(key, readGenerations.get(key));
+            }
+        }
+        long writeMillis = System.currentTimeMillis() - writeStart;
 
-        workInternshipRepository.save(docToSave);
+        // 转换或写入失败的key不清除脏标记
+        List<String> failedKeys = new ArrayList<>();
+        for (String key : keys) {
+            if (!generations.containsKey(key)) {
+                failedKeys.add(key);
+            }
+        }
+        int cleared = cacheService.removeDirtyFlagsIfUnchanged(generations);
+        return new WriteBackResult(persisted, cleared, attempted, failedKeys, writeMillis);
+    }
+
+    /**
+     * 一次写回的结果
+     * @param persisted 写入数据库的数量
+     * @param cleared 清除脏标记的数量（包含已过期无需写回的key，不包含写回期间又被写入的key）
+     * @param attempted 提交给数据库批量写入的数量
+     * @param failedKeys 转换或数据库写入失败的key
+     * @param writeMillis 数据库批量写入的总耗时
+     */
+    private record WriteBackResult(int persisted, int cleared, int attempted, List<String> failedKeys,
+                                   long writeMillis) {
     }
 
-    private void writeBackSkills(String username, int version, Object data) throws Exception {
-        Skill docToSave = objectMapper.convertValue(data, Skill.class);
+    /**
+     * 对单个集合执行批量 upsert，返回写入成功的key
+     * 有补丁路径的key对这些路径执行 $set / $unset，其余key替换整个文档
+     */
+    private List<String> bulkUpsert(String type, List<String> keys, List<Object> docs,
+                                    Map<String, Set<String>> patchPaths, String errorLabel) {
+        Class<?> entityClass = sectionClass(type);
+        String ownerField = "publish".equals(type) ? "userId" : "username";
+        BulkOperations bulkOps = mongoTemplate.bulkOps(BulkOperations.BulkMode.UNORDERED, entityClass);
+        for (int i = 0; i < keys.size(); i++) {
+            String[] keyParts = keys.get(i).split(":");
+            Query query = new Query(Criteria.where(ownerField).is(keyParts[1])
+                    .and("version").is(Integer.parseInt(keyParts[2])));
+            Set<String> paths = patchPaths.get(keys.get(i));
+            if (paths != null) {
+                bulkOps.upsert(query, patchUpdate(docs.get(i), paths));
+                patchedKeys.increment();
+            } else {
+                bulkOps.replaceOne(query, docs.get(i), FindAndReplaceOptions.options().upsert());
+            }
+        }
+
+        long start = System.currentTimeMillis();
+        Timer.Sample sample = Timer.start(meterRegistry);
+        try {
+            bulkOps.execute();
+            return keys;
+        } catch (BulkOperationException e) {
+            // 无序模式下其余操作仍会执行，只保留失败的key等待下一轮
+            Set<Integer> failedIndexes = new HashSet<>();
+            for (BulkWriteError error : e.getErrors()) {
+                failedIndexes.add(error.getIndex());
+                System.err.println(errorLabel + ": " + keys.get(error.getIndex()) + ", 错误: " + error.getMessage());
+            }
+            countFailures(type, failedIndexes.size());
+            List<String> succeeded = new ArrayList<>();
+            for (int i = 0; i < keys.size(); i++) {
+                if (!failedIndexes.contains(i)) {
+                    succeeded.add(keys.get(i));
+                }
+            }
+            return succeeded;
+        } catch (Exception e) {
+            System.err.println(errorLabel + ": " + type + " 批量写入 " + keys.size() + " 条失败, 错误: " + e.getMessage());
+            countFailures(type, keys.size());
+            return List.of();
+        } finally {
+            sample.stop(Timer.builder("writeback.bulk")
+                    .description("单个集合一次批量 upsert 的耗时")
+                    .tag("section", type)
+                    .register(meterRegistry));
+            System.out.println("批量写回 " + type + "：" + keys.size() + " 条，耗时 "
+                    + (System.currentTimeMillis() - start) + "ms");
+        }
+    }
 
-        Optional<Skill> existingDoc = skillRepository.findByUsernameAndVersion(username, version);
-        existingDoc.ifPresent(skill -> docToSave.setId(skill.getId()));
+    /**
+     * 由补丁路径生成更新操作：文档中存在的路径 $set 为当前值，不存在的路径 $unset
+     * 路径的某一层父节点为 null 或不是对象时，改为对该父节点整体 $set（null）或 $unset，
+     * 否则数据库中父节点同为 null 时 $set 子路径会失败（Cannot create field ... in element {...: null}）
+     * 先后多次补丁可能同时修改了某个路径和它的子路径，只保留外层路径
+     * 包级可见，供测试使用
+     */
+    Update patchUpdate(Object doc, Set<String> paths) {
+        JsonNode tree = objectMapper.valueToTree(doc);
+        Set<String> effectivePaths = new TreeSet<>();
+        for (String path : paths) {
+            effectivePaths.add(writablePath(tree, path));
+        }
+        Update update = new Update();
+        List<String> applied = new ArrayList<>();
+        for (String path : effectivePaths) {
+            if (applied.stream().anyMatch(parent -> path.startsWith(parent + "."))) {
+                continue;
+            }
+            applied.add(path);
+            JsonNode value = tree;
+            for (String segment : path.split("\\.")) {
+                value = value.path(segment);
+            }
+            if (value.isMissingNode()) {
+                update.unset(path);
+            } else {
+                update.set(path, objectMapper.convertValue(value, Object.class));
+            }
+        }
+        return update;
+    }
 
-        docToSave.setUsername(username);
-        docToSave.setVersion(version);
-        skillRepository.save(docToSave);
+    /**
+     * 路径中第一个为 null、缺失或不是对象的父节点；所有父节点都是对象时为路径本身
+     */
+    private static String writablePath(JsonNode tree, String path) {
+        String[] segments = path.split("\\.");
+        JsonNode node = tree;
+        for (int i = 0; i < segments.length - 1; i++) {
+            node = node.path(segments[i]);
+            if (!node.isObject()) {
+                return String.join(".", Arrays.copyOf(segments, i + 1));
+            }
+        }
+        return path;
     }
 
-    private void writeBackPublish(String username, int version, Object data) throws Exception {
-        PublishRecord docToSave = objectMapper.convertValue(data, PublishRecord.class);
+    /**
+     * 记录写回失败的key数量，section 为 all 表示整批失败（如 Redis 不可用）
+     */
+    private void countFailures(String section, int count) {
+        Counter.builder("writeback.failures")
+                .description("写回失败的脏数据数量，失败的key留待下一轮重试")
+                .tag("section", section)
+                .register(meterRegistry)
+                .increment(count);
+    }
 
-        // 注意：根据你的Repository，这里使用 findByUserIdAndVersion
-        Optional<PublishRecord> existingDoc = publishRecordRepository.findByUserIdAndVersion(username, version);
-        existingDoc.ifPresent(publishRecord -> docToSave.setId(publishRecord.getId()));
+    /**
+     * 数据类型对应的文档类型：已注册的简历模块，以及发布记录
+     */
+    private Class<?> sectionClass(String type) {
+        if ("publish".equals(type)) {
+            return PublishRecord.class;
+        }
+        SectionStore<?> store = sectionStores.get(type);
+        return store != null ? store.getDocumentClass() : null;
+    }
 
-        docToSave.setUserId(username);
-        docToSave.setVersion(version);
-        publishRecordRepository.save(docToSave);
+    /**
+     * 将缓存中的数据转换为待写入的文档
+     * id 置空，由 upsert 按 username + version 定位已有文档
+     * 包级可见，供基准测试使用
+     */
+    Object toDocument(String type, String username, int version, Object data) {
+        if ("publish".equals(type)) {
+            PublishRecord doc = objectMapper.convertValue(data, PublishRecord.class);
+            doc.setId(null);
+            doc.setUserId(username);
+            doc.setVersion(version);
+            return doc;
+        }
+        SectionStore<?> store = sectionStores.get(type);
+        if (store == null) {
+            throw new IllegalArgumentException("未知的数据类型: " + type);
+        }
+        return store.toDocument(username, version, data);
     }
 
-    // --- 你原来的其他方法保持不变 ---
     private boolean isSystemBusy() {
         Runtime runtime = Runtime.getRuntime();
         long totalMemory = runtime.totalMemory();
@@ -187,57 +674,69 @@ public class WriteBackScheduler {
         return memoryUsage > 0.85;
     }
 
-    public void forceWriteBackAll() {
-        try {
-            Set<String> dirtyKeys = cacheService.getDirtyKeys();
-            for (String dirtyKey : dirtyKeys) {
-                try {
-                    String key = dirtyKey.replace("dirty:", "");
-                    writeBackSingleData(key);
-                } catch (Exception e) {
-                    System.err.println("强制写回失败: " + dirtyKey + ", 错误: " + e.getMessage());
-                }
+    /**
+     * 在截止时间前写回全部脏数据，不等待最短变脏时长，供启动恢复和停机前使用
+     * 与定时写回共用同一个标志，定时写回进行中时先等待其结束，截止时间前仍未结束则放弃本次写回
+     * @return 成功写回的数量
+     */
+    public int drainAll(long deadline, String errorLabel) {
+        while (!draining.compareAndSet(false, true)) {
+            if (System.currentTimeMillis() >= deadline) {
+                System.err.println(errorLabel + ": 等待定时写回结束超时");
+                return 0;
+            }
+            try {
+                Thread.sleep(50);
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+                System.err.println(errorLabel + ": 等待定时写回结束时被中断");
+                return 0;
             }
-        } catch (Exception e) {
-            System.err.println("强制写回过程发生错误: " + e.getMessage());
         }
+        try {
+            return drainDirtyIndex(System.currentTimeMillis(), errorLabel, deadline);
+        } finally {
+            draining.set(false);
+        }
+    }
+
+    /**
+     * 将旧版本的脏标记迁移到脏数据索引，之后由 {@link #drainAll} 写回
+     * @return 迁移的数量
+     */
+    public int migrateLegacyDirtyMarkers() {
+        return cacheService.migrateLegacyDirtyMarkers(type -> sectionClass(type) != null);
     }
 
-    public void forceWriteBackUser(String username, int version) {
+    /**
+     * 立即写回全部脏数据，不等待最短变脏时长，速率仍受控制
+     */
+    public void forceWriteBackAll() {
         try {
-            System.out.println("发布触发：开始强制写回用户 " + username + " 版本 " + version + " 的数据...");
-            Set<String> dirtyKeys = cacheService.getDirtyKeys();
-            int userDataCount = 0;
-            int writtenCount = 0;
-            for (String dirtyKey : dirtyKeys) {
-                try {
-                    String key = dirtyKey.replace("dirty:", "");
-                    if (isUserData(key, username, version)) {
-                        userDataCount++;
-                        writeBackSingleData(key);
-                        writtenCount++;
-                    }
-                } catch (Exception e) {
-                    System.err.println("强制写回用户数据失败: " + dirtyKey + ", 错误: " + e.getMessage());
-                }
-            }
-            System.out.println("发布触发：用户 " + username + " 版本 " + version + 
-                             " 发现 " + userDataCount + " 个脏数据，成功写回 " + writtenCount + " 个");
+            drainAll(Long.MAX_VALUE, "强制写回失败");
         } catch (Exception e) {
-            System.err.println("强制写回用户数据过程发生错误: " + e.getMessage());
+            System.err.println("强制写回过程发生错误: " + e.getMessage());
         }
     }
 
-    private boolean isUserData(String key, String username, int version) {
-        String[] keyParts = key.split(":");
-        if (keyParts.length < 3) return false;
-        String keyUsername = keyParts[1];
-        String keyVersionStr = keyParts[2];
-        try {
-            int keyVersion = Integer.parseInt(keyVersionStr);
-            return username.equals(keyUsername) && version == keyVersion;
-        } catch (NumberFormatException e) {
-            return false;
-        }
+    /**
+     * 发布前强制写回某个用户某个版本的脏数据
+     * 在该用户所在的写回分区上优先执行，与定时写回不会同时写同一个文档；
+     * 只读取该用户自己的脏数据集合，返回的 Future 在写回完成后结束，结果为成功写回的数量
+     */
+    public CompletableFuture<Integer> forceWriteBackUser(String username, int version) {
+        return writeBackWorkers.submit(writeBackWorkers.partitionOf(username, version), true, () -> {
+            try {
+                System.out.println("发布触发：开始强制写回用户 " + username + " 版本 " + version + " 的数据...");
+                List<String> keys = new ArrayList<>(cacheService.getUserDirtyKeys(username, version));
+                int writtenCount = writeBackKeys(keys, "强制写回用户数据失败").persisted();
+                System.out.println("发布触发：用户 " + username + " 版本 " + version +
+                                 " 发现 " + keys.size() + " 个脏数据，成功写回 " + writtenCount + " 个");
+                return writtenCount;
+            } catch (RuntimeException e) {
+                System.err.println("强制写回用户数据过程发生错误: " + e.getMessage());
+                throw e;
+            }
+        });
     }
-}
\ No newline at end of file
+}
@@ -0,0 +1,90 @@
+package com.example.flexresume.service;
+
+/**
+ * 写回速率控制（AIMD：加性增、乘性减）
+ * 每批写回后根据数据库批量写入耗时和失败比例调整批大小、并发批数和批次间的暂停：
+ * 写入健康时批大小逐步增加，连续健康若干批后并发数加一，暂停时间减半；
+ * 写入耗时超过目标、失败比例过高或内存紧张时批大小和并发数减半，暂停时间加倍。
+ * 最低仍保持最小批大小、单个并发，积压持续以较低速率写回，而不是整轮跳过
+ */
+class WriteBackThrottle {
+
+    // 失败比例超过该值视为数据库过载
+    private static final double ERROR_RATE_THRESHOLD = 0.05;
+
+    // 连续健康的批次数达到该值后并发数加一
+    private static final int CONCURRENCY_INCREASE_STREAK = 3;
+
+    // 降速后批次间的最短暂停
+    private static final long MIN_BACKOFF_MILLIS = 100;
+
+    private final int minBatchSize;
+    private final int maxBatchSize;
+    private final int maxConcurrency;
+    private final long targetLatencyMillis;
+    private final long maxPauseMillis;
+    private final int batchSizeStep;
+
+    private int batchSize;
+    private int concurrency = 1;
+    private long pauseMillis;
+    private int healthyStreak;
+
+    WriteBackThrottle(int minBatchSize, int initialBatchSize, int maxBatchSize, int maxConcurrency,
+                      long targetLatencyMillis, long maxPauseMillis) {
+        this.minBatchSize = Math.max(1, minBatchSize);
+        this.maxBatchSize = Math.max(this.minBatchSize, maxBatchSize);
+        this.maxConcurrency = Math.max(1, maxConcurrency);
+        this.targetLatencyMillis = targetLatencyMillis;
+        this.maxPauseMillis = maxPauseMillis;
+        this.batchSizeStep = Math.max(1, this.minBatchSize);
+        this.batchSize = Math.min(this.maxBatchSize, Math.max(this.minBatchSize, initialBatchSize));
+    }
+
+    /**
+     * 记录一批写回的结果
+     * @param writeMillis 该批数据库批量写入的耗时
+     * @param attempted 该批写入的key数量
+     * @param failed 其中写入失败的数量
+     */
+    synchronized void onBatch(long writeMillis, int attempted, int failed) {
+        boolean overloaded = writeMillis > targetLatencyMillis
+                || (attempted > 0 && (double) failed / attempted > ERROR_RATE_THRESHOLD);
+        if (overloaded) {
+            decrease();
+            return;
+        }
+        batchSize = Math.min(maxBatchSize, batchSize + batchSizeStep);
+        pauseMillis = pauseMillis < MIN_BACKOFF_MILLIS ? 0 : pauseMillis / 2;
+        if (++healthyStreak >= CONCURRENCY_INCREASE_STREAK) {
+            concurrency = Math.min(maxConcurrency, concurrency + 1);
+            healthyStreak = 0;
+        }
+    }
+
+    /**
+     * 内存紧张时降速
+     */
+    synchronized void onPressure() {
+        decrease();
+    }
+
+    private void decrease() {
+        batchSize = Math.max(minBatchSize, batchSize / 2);
+        concurrency = Math.max(1, concurrency / 2);
+        pauseMillis = Math.min(maxPauseMillis, Math.max(MIN_BACKOFF_MILLIS, pauseMillis * 2));
+        healthyStreak = 0;
+    }
+
+    synchronized int batchSize() {
+        return batchSize;
+    }
+
+    synchronized int concurrency() {
+        return concurrency;
+    }
+
+    synchronized long pauseMillis() {
+        return pauseMillis;
+    }
+}
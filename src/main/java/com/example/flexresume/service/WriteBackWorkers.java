@@ -0,0 +1,145 @@
+package com.example.flexresume.service;
+
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.Timer;
+import jakarta.annotation.PostConstruct;
+import jakarta.annotation.PreDestroy;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Component;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.PriorityBlockingQueue;
+import java.util.concurrent.ThreadPoolExecutor;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.function.Supplier;
+
+/**
+ * 按 username + version 哈希分区的写回工作线程
+ * 每个分区一个线程，同一份简历的写回（定时写回、发布前强制写回）总在同一个线程上依次执行，不会并发写同一个文档；
+ * 不同用户分散在各分区并行写回，一次慢写入只阻塞本分区
+ * 写回任务执行时才读取缓存中的最新数据，因此发布前的强制写回可以插队到本分区队列前面
+ */
+@Component
+public class WriteBackWorkers {
+
+    @Autowired
+    private MeterRegistry meterRegistry;
+
+    @Value("${writeback.partitions:4}")
+    private int partitionCount;
+
+    private final List<ThreadPoolExecutor> partitions = new ArrayList<>();
+
+    // 提交顺序，同优先级的任务按提交顺序执行
+    private final AtomicLong sequence = new AtomicLong();
+
+    @PostConstruct
+    public void init() {
+        for (int i = 0; i < Math.max(1, partitionCount); i++) {
+            String name = "writeback-" + i;
+            ThreadPoolExecutor executor = new ThreadPoolExecutor(1, 1, 0, TimeUnit.MILLISECONDS,
+                    new PriorityBlockingQueue<>(), runnable -> {
+                        Thread thread = new Thread(runnable, name);
+                        thread.setDaemon(true);
+                        return thread;
+                    });
+            partitions.add(executor);
+            String partition = String.valueOf(i);
+            Gauge.builder("writeback.partition.queue", executor, e -> e.getQueue().size() + e.getActiveCount())
+                    .description("分区中排队和执行中的写回批次数")
+                    .tag("partition", partition)
+                    .register(meterRegistry);
+        }
+    }
+
+    @PreDestroy
+    public void shutdown() {
+        partitions.forEach(ThreadPoolExecutor::shutdown);
+    }
+
+    public int getPartitionCount() {
+        return partitions.size();
+    }
+
+    /**
+     * 缓存key（type:username:version）所属的分区，同一用户同一版本的各模块在同一分区
+     */
+    public int partitionOf(String key) {
+        String[] keyParts = key.split(":");
+        return partitionOfOwner(keyParts.length < 3 ? key : keyParts[1] + ":" + keyParts[2]);
+    }
+
+    public int partitionOf(String username, int version) {
+        return partitionOfOwner(username + ":" + version);
+    }
+
+    private int partitionOfOwner(String owner) {
+        return Math.floorMod(owner.hashCode(), partitions.size());
+    }
+
+    /**
+     * 在分区线程上执行写回任务
+     * @param urgent 为 true 时排在本分区已排队的普通任务之前（如发布前的强制写回）
+     */
+    public <T> CompletableFuture<T> submit(int partition, boolean urgent, Supplier<T> task) {
+        CompletableFuture<T> future = new CompletableFuture<>();
+        String tag = String.valueOf(partition);
+        long submittedAt = System.nanoTime();
+        partitions.get(partition).execute(new PartitionTask(urgent, sequence.incrementAndGet(), () -> {
+            long startedAt = System.nanoTime();
+            Timer.builder("writeback.partition.wait")
+                    .description("写回批次在分区队列中的等待时间")
+                    .tag("partition", tag)
+                    .register(meterRegistry)
+                    .record(startedAt - submittedAt, TimeUnit.NANOSECONDS);
+            try {
+                future.complete(task.get());
+            } catch (Throwable e) {
+                future.completeExceptionally(e);
+            } finally {
+                Timer.builder("writeback.partition.latency")
+                        .description("分区线程执行一个写回批次的耗时")
+                        .tag("partition", tag)
+                        .register(meterRegistry)
+                        .record(System.nanoTime() - startedAt, TimeUnit.NANOSECONDS);
+            }
+        }));
+        return future;
+    }
+
+    /**
+     * 分区队列中的任务，紧急任务优先，其余按提交顺序
+     */
+    private record PartitionTask(boolean urgent, long sequence, Runnable body)
+            implements Runnable, Comparable<PartitionTask> {
+
+        @Override
+        public void run() {
+            body.run();
+        }
+
+        @Override
+        public int compareTo(PartitionTask other) {
+            if (urgent != other.urgent) {
+                return urgent ? -1 : 1;
+            }
+            return Long.compare(sequence, other.sequence);
+        }
+    }
+
+    /**
+     * 各分区排队和执行中的批次数，供监控和停机时检查
+     */
+    public List<Integer> getQueueDepths() {
+        List<Integer> depths = new ArrayList<>();
+        for (ThreadPoolExecutor executor : partitions) {
+            depths.add(executor.getQueue().size() + executor.getActiveCount());
+        }
+        return depths;
+    }
+}
@@ -1,7 +1,20 @@
 package com.example.flexresume.util;
 
+import com.github.benmanes.caffeine.cache.Cache;
+import com.github.benmanes.caffeine.cache.Caffeine;
 import io.jsonwebtoken.*;
+import io.jsonwebtoken.io.Decoders;
+import io.jsonwebtoken.security.Keys;
+import jakarta.annotation.PostConstruct;
+import org.springframework.beans.factory.annotation.Value;
 import org.springframework.stereotype.Component;
+
+import javax.crypto.SecretKey;
+import java.nio.charset.StandardCharsets;
+import java.security.MessageDigest;
+import java.security.NoSuchAlgorithmException;
+import java.time.Duration;
+import java.util.Base64;
 import java.util.Date;
 
 @Component
@@ -9,26 +22,91 @@ public class JwtUtil {
     private final String SECRET = "xcdRufzL3FZjCmfXQOiaQAXsc+7+K8nNkIvmt2xj+p4=";
     private final long EXPIRATION = 1000 * 60 * 60 * 24; // 1天
 
+    // 签名密钥和解析器只构建一次，解析器线程安全
+    private final SecretKey signingKey = Keys.hmacShaKeyFor(Decoders.BASE64.decode(SECRET));
+    private final JwtParser parser = Jwts.parserBuilder().setSigningKey(signingKey).build();
+
+    // 已验证 token 缓存的最大条目数和存活时间，命中时不再解析和验证签名
+    @Value("${jwt.cache.max-size:10000}")
+    private long cacheMaxSize;
+
+    @Value("${jwt.cache.ttl-seconds:300}")
+    private long cacheTtlSeconds;
+
+    // key 为 token 的 SHA-256 摘要，不在内存中保存 token 原文
+    private Cache<String, VerifiedToken> verifiedTokens;
+
+    @PostConstruct
+    public void init() {
+        verifiedTokens = Caffeine.newBuilder()
+                .maximumSize(cacheMaxSize)
+                .expireAfterWrite(Duration.ofSeconds(cacheTtlSeconds))
+                .build();
+    }
+
     public String generateToken(String userId) {
         return Jwts.builder()
                 .setSubject(userId)
                 .setIssuedAt(new Date())
                 .setExpiration(new Date(System.currentTimeMillis() + EXPIRATION))
-                .signWith(SignatureAlgorithm.HS256, SECRET)
+                .signWith(signingKey, SignatureAlgorithm.HS256)
                 .compact();
     }
 
-    public String getUserIdFromToken(String token) {
-        return Jwts.parser().setSigningKey(SECRET)
-                .parseClaimsJws(token).getBody().getSubject();
+    /**
+     * 验证 token 并返回用户ID，一次解析完成验证和读取；无效或已过期时返回 null
+     * token 只通过该方法验证，验证规则只有这一处
+     * 最近验证过的 token 直接从缓存返回，过期时间仍按 token 自身的 exp 检查
+     */
+    public String verify(String token) {
+        String digest = digest(token);
+        VerifiedToken cached = verifiedTokens.getIfPresent(digest);
+        if (cached != null) {
+            if (cached.isExpired()) {
+                verifiedTokens.invalidate(digest);
+                return null;
+            }
+            return cached.userId();
+        }
+        Claims claims = parseClaims(token);
+        if (claims == null) {
+            return null;
+        }
+        Date expiration = claims.getExpiration();
+        verifiedTokens.put(digest, new VerifiedToken(claims.getSubject(),
+                expiration != null ? expiration.getTime() : Long.MAX_VALUE));
+        return claims.getSubject();
     }
 
-    public boolean validateToken(String token) {
+    /**
+     * 解析并验证签名，不使用缓存；无效或已过期时返回 null
+     */
+    private Claims parseClaims(String token) {
         try {
-            Jwts.parser().setSigningKey(SECRET).parseClaimsJws(token);
-            return true;
+            return parser.parseClaimsJws(token).getBody();
         } catch (Exception e) {
-            return false;
+            return null;
+        }
+    }
+
+    private static String digest(String token) {
+        try {
+            byte[] hash = MessageDigest.getInstance("SHA-256").digest(token.getBytes(StandardCharsets.UTF_8));
+            return Base64.getEncoder().encodeToString(hash);
+        } catch (NoSuchAlgorithmException e) {
+            throw new IllegalStateException(e);
+        }
+    }
+
+    /**
+     * 已验证的 token
+     * @param userId token 中的用户ID
+     * @param expiresAt token 的过期时间戳
+     */
+    private record VerifiedToken(String userId, long expiresAt) {
+
+        boolean isExpired() {
+            return System.currentTimeMillis() >= expiresAt;
         }
     }
-} 
\ No newline at end of file
+}
@@ -0,0 +1,198 @@
+package com.example.flexresume.config;
+
+import com.example.flexresume.model.*;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import org.junit.jupiter.api.Test;
+import org.springframework.data.redis.serializer.GenericJackson2JsonRedisSerializer;
+import org.springframework.data.redis.serializer.SerializationException;
+import org.springframework.http.converter.json.Jackson2ObjectMapperBuilder;
+
+import java.nio.ByteBuffer;
+import java.nio.charset.StandardCharsets;
+import java.util.*;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+/**
+ * ResumeValueCodec：各类型编号的编解码、LZ4 压缩、旧版本文本 JSON 的读取，以及 Map/List 的类型归一
+ */
+class ResumeValueCodecTest {
+
+    private final ResumeValueCodec codec = new ResumeValueCodec(true, 4096);
+
+    // 模型类不一定实现 equals，按 JSON 树比较内容
+    private final ObjectMapper json = Jackson2ObjectMapperBuilder.json().build();
+
+    @Test
+    void registeredTypesRoundTripWithTheirTypeIds() {
+        Map<Integer, Object> samples = new LinkedHashMap<>();
+        samples.put(1, personalInfo());
+        samples.put(2, education());
+        samples.put(3, new ProjectDocument("alice", 1, cards("项目")));
+        samples.put(4, new WorkInternshipDocument("alice", 1, cards("实习")));
+        samples.put(5, skill());
+        samples.put(6, publishRecord());
+        samples.put(7, new LinkedHashMap<>(cards("卡片")));
+        samples.put(8, new ArrayList<>(List.of("a", 1, true)));
+        samples.put(9, "纯文本");
+        samples.put(10, new InternshipDocument("alice", 1, cards("实习经历")));
+        samples.put(11, new WorkExperienceDocument("alice", 1, cards("工作经历")));
+
+        samples.forEach((typeId, value) -> {
+            byte[] bytes = codec.serialize(value);
+            assertEquals(1, bytes[0], "格式版本");
+            assertEquals(0, bytes[1], "未压缩");
+            assertEquals(typeId.shortValue(), ByteBuffer.wrap(bytes, 2, 2).getShort(), value.getClass().getName());
+
+            Object decoded = codec.deserialize(bytes);
+            assertEquals(value.getClass(), decoded.getClass());
+            assertEquals(json.valueToTree(value), json.valueToTree(decoded), value.getClass().getName());
+        });
+    }
+
+    @Test
+    void largeValuesAreCompressedWithLz4() {
+        Map<String, Object> cards = new LinkedHashMap<>();
+        for (int i = 0; i < 200; i++) {
+            cards.put("project" + i, Map.of("name", "项目 " + i, "description", "重复的项目描述内容".repeat(10)));
+        }
+        ProjectDocument document = new ProjectDocument("alice", 1, cards);
+
+        byte[] compressed = codec.serialize(document);
+        byte[] uncompressed = new ResumeValueCodec(true, Integer.MAX_VALUE).serialize(document);
+
+        assertEquals(1, compressed[1], "LZ4 标志");
+        assertEquals(uncompressed.length - 4, ByteBuffer.wrap(compressed, 4, 4).getInt(), "原始长度");
+        assertTrue(compressed.length < uncompressed.length / 2);
+        assertEquals(json.valueToTree(document), json.valueToTree(codec.deserialize(compressed)));
+    }
+
+    @Test
+    void incompressibleValuesAreStoredUncompressed() {
+        byte[] random = new byte[8192];
+        new Random(42).nextBytes(random);
+        String value = Base64.getEncoder().encodeToString(random);
+
+        byte[] bytes = new ResumeValueCodec(true, 16).serialize(value);
+
+        assertEquals(0, bytes[1]);
+        assertEquals(value, codec.deserialize(bytes));
+    }
+
+    @Test
+    void legacyJsonIsStillReadable() {
+        GenericJackson2JsonRedisSerializer legacy = new GenericJackson2JsonRedisSerializer();
+        ProjectDocument document = new ProjectDocument("alice", 1, cards("项目"));
+
+        Object decoded = codec.deserialize(legacy.serialize(document));
+
+        assertInstanceOf(ProjectDocument.class, decoded);
+        assertEquals(json.valueToTree(document), json.valueToTree(decoded));
+        assertEquals(42, codec.deserialize("42".getBytes(StandardCharsets.UTF_8)));
+    }
+
+    @Test
+    void textModeWritesJsonThatBinaryModeReads() {
+        ResumeValueCodec text = new ResumeValueCodec(false, 4096);
+        ProjectDocument document = new ProjectDocument("alice", 1, cards("项目"));
+
+        byte[] bytes = text.serialize(document);
+
+        assertEquals('{', bytes[0]);
+        assertEquals(json.valueToTree(document), json.valueToTree(codec.deserialize(bytes)));
+        assertEquals(json.valueToTree(document), json.valueToTree(text.deserialize(codec.serialize(document))));
+    }
+
+    @Test
+    void plainMapsAndListsAreReadBackAsLinkedHashMapAndArrayList() {
+        Map<String, Object> tree = new TreeMap<>(Map.of("b", List.of(1, 2.5, "x"), "a", new LinkedList<>(List.of(true))));
+
+        Object decoded = codec.deserialize(codec.serialize(tree));
+
+        assertInstanceOf(LinkedHashMap.class, decoded);
+        assertEquals(tree, decoded);
+        assertInstanceOf(ArrayList.class, codec.deserialize(codec.serialize(new LinkedList<>(List.of("a")))));
+    }
+
+    @Test
+    void plainMapKeysAreReadBackAsStrings() {
+        Object decoded = codec.deserialize(codec.serialize(new HashMap<>(Map.of(1, "一"))));
+
+        assertEquals(Map.of("1", "一"), decoded);
+    }
+
+    @Test
+    void mapsAndListsWithOtherObjectsKeepTheirTypes() {
+        ProjectDocument document = new ProjectDocument("alice", 1, cards("项目"));
+        Map<String, Object> withDocument = new HashMap<>(Map.of("project", document));
+        List<Object> withDate = new ArrayList<>(List.of(new Date(1700000000000L)));
+
+        byte[] bytes = codec.serialize(withDocument);
+
+        // 交给带类型信息的 JSON 编码，读回的值仍是 ProjectDocument 而不是 Map
+        assertNotEquals(1, bytes[0]);
+        Object project = ((Map<?, ?>) codec.deserialize(bytes)).get("project");
+        assertInstanceOf(ProjectDocument.class, project);
+        assertEquals(json.valueToTree(document), json.valueToTree(project));
+        assertEquals(withDate, codec.deserialize(codec.serialize(withDate)));
+    }
+
+    @Test
+    void unknownTypeIdIsRejected() {
+        byte[] bytes = ByteBuffer.allocate(5).put((byte) 1).put((byte) 0).putShort((short) 999).put((byte) 0).array();
+
+        assertThrows(SerializationException.class, () -> codec.deserialize(bytes));
+    }
+
+    @Test
+    void nullIsStoredAsEmptyValue() {
+        assertEquals(0, codec.serialize(null).length);
+        assertNull(codec.deserialize(new byte[0]));
+        assertNull(codec.deserialize(null));
+    }
+
+    private static Map<String, Object> cards(String name) {
+        Map<String, Object> card = new LinkedHashMap<>();
+        card.put("name", name);
+        card.put("tags", List.of("一", "二"));
+        card.put("years", 3);
+        return Map.of("card1", card);
+    }
+
+    private static PersonalInfo personalInfo() {
+        PersonalInfo info = new PersonalInfo();
+        info.setUsername("alice");
+        info.setVersion(1);
+        PersonalInfo.Field field = new PersonalInfo.Field();
+        field.setLabel("电话");
+        field.setValue("123");
+        info.setFields(List.of(field));
+        info.setProfilePhoto("/api/images/abc");
+        return info;
+    }
+
+    private static EducationDocument education() {
+        EducationDocument education = new EducationDocument();
+        education.setUsername("alice");
+        education.setVersion(1);
+        EducationDocument.EducationItem item = new EducationDocument.EducationItem();
+        item.setSchool("某大学");
+        item.setDegree("学士");
+        education.setEducation(Map.of("edu1", item));
+        return education;
+    }
+
+    private static Skill skill() {
+        Skill skill = new Skill();
+        skill.setUsername("alice");
+        skill.setVersion(1);
+        skill.setContent("<p>Java</p>");
+        return skill;
+    }
+
+    private static PublishRecord publishRecord() {
+        PublishRecord record = new PublishRecord("alice", 1, new Date(1700000000000L));
+        record.setSnapshot(Map.of("skills", Map.of("content", "<p>Java</p>")));
+        return record;
+    }
+}
@@ -0,0 +1,50 @@
+package com.example.flexresume.controller;
+
+import com.example.flexresume.config.AdminAccess;
+import com.example.flexresume.service.CacheService;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.mock.web.MockHttpServletRequest;
+import org.springframework.test.util.ReflectionTestUtils;
+
+import java.util.List;
+import java.util.Map;
+
+import static org.junit.jupiter.api.Assertions.*;
+import static org.mockito.Mockito.*;
+
+/**
+ * 缓存统计仅限管理员
+ */
+class AdminControllerTest {
+
+    private final CacheService cacheService = mock(CacheService.class);
+    private final AdminController controller = new AdminController();
+
+    @BeforeEach
+    void setUp() {
+        AdminAccess adminAccess = new AdminAccess();
+        ReflectionTestUtils.setField(adminAccess, "adminUserIds", List.of("admin"));
+        ReflectionTestUtils.setField(controller, "adminAccess", adminAccess);
+        ReflectionTestUtils.setField(controller, "cacheService", cacheService);
+        when(cacheService.getLocalCacheStats()).thenReturn(Map.of("hitCount", 1L));
+    }
+
+    @Test
+    void adminCanReadCacheStats() {
+        assertEquals(200, controller.getCacheStats(login("admin")).getStatusCode().value());
+    }
+
+    @Test
+    void otherUsersCannotReadCacheStats() {
+        assertEquals(401, controller.getCacheStats(new MockHttpServletRequest()).getStatusCode().value());
+        assertEquals(403, controller.getCacheStats(login("alice")).getStatusCode().value());
+        verify(cacheService, never()).getLocalCacheStats();
+    }
+
+    private static MockHttpServletRequest login(String userId) {
+        MockHttpServletRequest request = new MockHttpServletRequest();
+        request.setAttribute("userId", userId);
+        return request;
+    }
+}
@@ -0,0 +1,34 @@
+package com.example.flexresume.controller;
+
+import org.junit.jupiter.api.Test;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+/**
+ * 发布简历的 gzip 协商：按 Accept-Encoding 的 q 值判断，q=0 表示拒绝
+ */
+class PublishControllerTest {
+
+    @Test
+    void gzipIsAcceptedWhenListedWithPositiveQuality() {
+        assertTrue(PublishController.acceptsGzip("gzip"));
+        assertTrue(PublishController.acceptsGzip("gzip, deflate, br"));
+        assertTrue(PublishController.acceptsGzip("br;q=1.0, GZIP;q=0.5"));
+        assertTrue(PublishController.acceptsGzip("*"));
+    }
+
+    @Test
+    void gzipIsRefusedWithZeroQuality() {
+        assertFalse(PublishController.acceptsGzip("gzip;q=0"));
+        assertFalse(PublishController.acceptsGzip("gzip; q=0.0, identity"));
+        assertFalse(PublishController.acceptsGzip("*, gzip;q=0"));
+        assertFalse(PublishController.acceptsGzip("*;q=0"));
+    }
+
+    @Test
+    void gzipIsNotSentWithoutAcceptEncoding() {
+        assertFalse(PublishController.acceptsGzip(null));
+        assertFalse(PublishController.acceptsGzip("identity"));
+        assertFalse(PublishController.acceptsGzip("br, deflate"));
+    }
+}
@@ -0,0 +1,93 @@
+package com.example.flexresume.controller;
+
+import com.example.flexresume.model.ProjectDocument;
+import com.example.flexresume.service.SectionStore;
+import com.fasterxml.jackson.databind.JsonNode;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.http.ResponseEntity;
+import org.springframework.mock.web.MockHttpServletRequest;
+import org.springframework.test.util.ReflectionTestUtils;
+
+import java.util.ConcurrentModificationException;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.RejectedExecutionException;
+
+import static org.junit.jupiter.api.Assertions.*;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.ArgumentMatchers.anyInt;
+import static org.mockito.ArgumentMatchers.anyString;
+import static org.mockito.Mockito.*;
+
+/**
+ * PATCH 接口的身份验证和错误到状态码的映射
+ */
+class SectionControllerSupportTest {
+
+    @SuppressWarnings("unchecked")
+    private final SectionStore<ProjectDocument> store = mock(SectionStore.class);
+    private final ProjectController controller = new ProjectController();
+    private JsonNode patch;
+
+    @BeforeEach
+    void setUp() throws Exception {
+        ReflectionTestUtils.setField(controller, "projectStore", store);
+        when(store.getType()).thenReturn("projects");
+        when(store.supportsMergePatch()).thenReturn(true);
+        patch = new ObjectMapper().readTree("{\"p1\": {\"name\": \"新名称\"}}");
+    }
+
+    @Test
+    void patchReturnsUpdatedPaths() throws Exception {
+        when(store.patch("alice", 1, patch)).thenReturn(Set.of("projectData.p1.name"));
+
+        ResponseEntity<?> response = controller.patchProject("alice", 1, patch, login("alice"));
+
+        assertEquals(200, response.getStatusCode().value());
+        assertEquals(Map.of("updatedPaths", Set.of("projectData.p1.name")), response.getBody());
+    }
+
+    @Test
+    void generationConflictAfterRetriesIsConflict() throws Exception {
+        when(store.patch("alice", 1, patch)).thenThrow(new ConcurrentModificationException("冲突"));
+
+        assertEquals(409, controller.patchProject("alice", 1, patch, login("alice")).getStatusCode().value());
+    }
+
+    @Test
+    void invalidPatchIsBadRequest() throws Exception {
+        when(store.patch("alice", 1, patch)).thenThrow(new IllegalArgumentException("不支持的字段名: a.b"));
+
+        assertEquals(400, controller.patchProject("alice", 1, patch, login("alice")).getStatusCode().value());
+    }
+
+    @Test
+    void shutdownIsServiceUnavailable() throws Exception {
+        when(store.patch("alice", 1, patch)).thenThrow(new RejectedExecutionException("停止中"));
+
+        assertEquals(503, controller.patchProject("alice", 1, patch, login("alice")).getStatusCode().value());
+    }
+
+    @Test
+    void unsupportedSectionIsMethodNotAllowed() throws Exception {
+        when(store.supportsMergePatch()).thenReturn(false);
+
+        assertEquals(405, controller.patchProject("alice", 1, patch, login("alice")).getStatusCode().value());
+        verify(store, never()).patch(anyString(), anyInt(), any());
+    }
+
+    @Test
+    void otherUsersCannotPatch() throws Exception {
+        assertEquals(401, controller.patchProject("alice", 1, patch, new MockHttpServletRequest()).getStatusCode().value());
+        assertEquals(403, controller.patchProject("alice", 1, patch, login("bob")).getStatusCode().value());
+        verify(store, never()).patch(anyString(), anyInt(), any());
+    }
+
+    private static MockHttpServletRequest login(String userId) {
+        MockHttpServletRequest request = new MockHttpServletRequest();
+        request.setAttribute("userId", userId);
+        return request;
+    }
+}
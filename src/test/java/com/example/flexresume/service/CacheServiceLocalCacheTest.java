@@ -0,0 +1,146 @@
+package com.example.flexresume.service;
+
+import org.junit.jupiter.api.AfterAll;
+import org.junit.jupiter.api.BeforeAll;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.data.redis.core.RedisTemplate;
+import org.springframework.data.redis.core.ValueOperations;
+import org.springframework.test.util.ReflectionTestUtils;
+
+import java.lang.reflect.InvocationTargetException;
+import java.lang.reflect.Proxy;
+import java.util.List;
+import java.util.Map;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+/**
+ * 从 Redis 读取后回填 L1：读取期间该key被写入或失效时，不能让读到的旧数据留在 L1 中；
+ * 从数据库读取后的预热同样不能覆盖读取期间写入的新数据
+ */
+class CacheServiceLocalCacheTest {
+
+    private static final String KEY = "skills:alice:1";
+
+    private static EmbeddedRedis redis;
+    private static CacheService cacheService;
+
+    // 读取 Redis 返回之前执行一次，模拟读取与写入交错
+    private static Runnable duringRead;
+
+    @BeforeAll
+    static void startRedis() throws Exception {
+        redis = EmbeddedRedis.start();
+        cacheService = redis.wire(new CacheService());
+        ReflectionTestUtils.setField(cacheService, "redisTemplate", redis.configure(new RedisTemplate<>() {
+            @Override
+            @SuppressWarnings("unchecked")
+            public ValueOperations<String, Object> opsForValue() {
+                ValueOperations<String, Object> operations = super.opsForValue();
+                return (ValueOperations<String, Object>) Proxy.newProxyInstance(getClass().getClassLoader(),
+                        new Class<?>[]{ValueOperations.class}, (proxy, method, args) -> {
+                            Object result;
+                            try {
+                                result = method.invoke(operations, args);
+                            } catch (InvocationTargetException e) {
+                                throw e.getCause();
+                            }
+                            Runnable hook = duringRead;
+                            duringRead = null;
+                            if (hook != null) {
+                                hook.run();
+                            }
+                            return result;
+                        });
+            }
+        }));
+    }
+
+    @AfterAll
+    static void stopRedis() throws Exception {
+        cacheService.destroy();
+        redis.close();
+    }
+
+    @BeforeEach
+    void setUp() {
+        redis.flushAll();
+        cacheService.evictCache(KEY);
+        // 旧值只在 Redis 中，L1 中没有
+        redis.redisTemplate.opsForValue().set("resume:" + KEY, Map.of("content", "旧"));
+    }
+
+    @Test
+    void writeDuringReadIsNotOverwrittenByStaleValue() {
+        duringRead = () -> cacheService.writeToCache(KEY, Map.of("content", "新"), 10);
+
+        assertEquals(Map.of("content", "旧"), cacheService.getFromCache(KEY));
+
+        assertEquals(Map.of("content", "新"), cacheService.getFromCache(KEY));
+    }
+
+    @Test
+    void evictionDuringReadIsNotUndone() {
+        duringRead = () -> cacheService.evictCache(KEY);
+
+        cacheService.getFromCache(KEY);
+
+        assertNull(cacheService.getFromCache(KEY));
+    }
+
+    @Test
+    void batchReadSkipsKeysWrittenDuringRead() {
+        duringRead = () -> cacheService.writeToCache(KEY, Map.of("content", "新"), 10);
+
+        assertEquals(Map.of("content", "旧"), cacheService.getMultiFromCache(List.of(KEY)).get(0));
+
+        assertEquals(Map.of("content", "新"), cacheService.getMultiFromCache(List.of(KEY)).get(0));
+    }
+
+    @Test
+    void readWithoutConcurrentWritesFillsLocalCache() {
+        cacheService.getFromCache(KEY);
+        redis.redisTemplate.opsForValue().set("resume:" + KEY, Map.of("content", "只改了 Redis"));
+
+        // 没有失效通知时仍从 L1 返回
+        assertEquals(Map.of("content", "旧"), cacheService.getFromCache(KEY));
+    }
+
+    @Test
+    void warmUpDoesNotOverwriteWriteAfterDbRead() {
+        cacheService.evictCache(KEY);
+        long invalidationCount = cacheService.invalidationCount(KEY);
+        // 读取数据库之后、预热之前用户保存了新数据
+        cacheService.writeToCache(KEY, Map.of("content", "新"), 10);
+
+        cacheService.warmUpCache(KEY, Map.of("content", "数据库"), 10, invalidationCount);
+
+        assertEquals(Map.of("content", "新"), redis.redisTemplate.opsForValue().get("resume:" + KEY));
+        assertEquals(Map.of("content", "新"), cacheService.getFromCache(KEY));
+    }
+
+    @Test
+    void warmUpFillsBothLevelsWhenNothingChanged() {
+        cacheService.evictCache(KEY);
+        long invalidationCount = cacheService.invalidationCount(KEY);
+
+        cacheService.warmUpCache(KEY, Map.of("content", "数据库"), 10, invalidationCount);
+
+        assertEquals(Map.of("content", "数据库"), redis.redisTemplate.opsForValue().get("resume:" + KEY));
+        redis.redisTemplate.opsForValue().set("resume:" + KEY, Map.of("content", "只改了 Redis"));
+        assertEquals(Map.of("content", "数据库"), cacheService.getFromCache(KEY));
+    }
+
+    @Test
+    void warmUpSkipsLocalCacheAfterInvalidationDuringDbRead() {
+        cacheService.evictCache(KEY);
+        long invalidationCount = cacheService.invalidationCount(KEY);
+        cacheService.evictCache(KEY);
+
+        cacheService.warmUpCache(KEY, Map.of("content", "数据库"), 10, invalidationCount);
+
+        redis.redisTemplate.opsForValue().set("resume:" + KEY, Map.of("content", "只改了 Redis"));
+        assertEquals(Map.of("content", "只改了 Redis"), cacheService.getFromCache(KEY));
+    }
+}
@@ -0,0 +1,133 @@
+package com.example.flexresume.service;
+
+import com.example.flexresume.model.ProjectDocument;
+import org.junit.jupiter.api.AfterAll;
+import org.junit.jupiter.api.BeforeAll;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+/**
+ * WRITE_PATCH 与 CLEAR_DIRTY_IF_UNCHANGED 脚本：代数检查、补丁路径、整体替换标记和按代数清除脏标记
+ */
+class CacheServicePatchScriptTest {
+
+    private static final String KEY = "projects:alice:1";
+
+    private static EmbeddedRedis redis;
+    private static CacheService cacheService;
+
+    @BeforeAll
+    static void startRedis() throws Exception {
+        redis = EmbeddedRedis.start();
+        cacheService = redis.wire(new CacheService());
+    }
+
+    @AfterAll
+    static void stopRedis() throws Exception {
+        cacheService.destroy();
+        redis.close();
+    }
+
+    @BeforeEach
+    void clearRedis() {
+        redis.flushAll();
+    }
+
+    @Test
+    void patchRecordsPathsAndMarksDirty() {
+        long generation = cacheService.writePatchToCache(KEY, project("新名称"), 10, "",
+                List.of("projectData.p1.name"));
+
+        assertEquals(1, generation);
+        assertTrue(cacheService.isDirty(KEY));
+        assertEquals(Set.of(KEY), cacheService.getUserDirtyKeys("alice", 1));
+        assertEquals(Map.of(KEY, Set.of("projectData.p1.name")), cacheService.getPendingPatchPaths(List.of(KEY)));
+        assertEquals("1", cacheService.getMultiForWriteBack(List.of(KEY)).get(0).generation());
+        assertEquals(1, journalLength());
+    }
+
+    @Test
+    void patchWithStaleGenerationIsRejected() {
+        cacheService.writeToCache(KEY, project("整体写入"), 10);
+
+        long generation = cacheService.writePatchToCache(KEY, project("补丁"), 10, "",
+                List.of("projectData.p1.name"));
+
+        assertEquals(-1, generation);
+        CacheService.VersionedValue current = cacheService.getMultiForWriteBack(List.of(KEY)).get(0);
+        assertEquals("1", current.generation());
+        assertEquals("整体写入", name((ProjectDocument) current.data()));
+        assertTrue(cacheService.getPendingPatchPaths(List.of(KEY)).isEmpty());
+    }
+
+    @Test
+    void patchAfterUnwrittenFullWriteKeepsFullReplace() {
+        cacheService.writeToCache(KEY, project("整体写入"), 10);
+
+        long generation = cacheService.writePatchToCache(KEY, project("补丁"), 10, "1",
+                List.of("projectData.p1.name"));
+
+        assertEquals(2, generation);
+        // 之前的整体写入尚未写回，只按路径更新会丢失它，写回时仍需替换整个文档
+        assertTrue(cacheService.getPendingPatchPaths(List.of(KEY)).isEmpty());
+        assertTrue(cacheService.isDirty(KEY));
+    }
+
+    @Test
+    void fullWriteDiscardsPendingPatchPaths() {
+        cacheService.writePatchToCache(KEY, project("补丁"), 10, "", List.of("projectData.p1.name"));
+
+        cacheService.writeToCache(KEY, project("整体写入"), 10);
+
+        assertTrue(cacheService.getPendingPatchPaths(List.of(KEY)).isEmpty());
+    }
+
+    @Test
+    void clearIfUnchangedRemovesDirtyFlagAndPatchPaths() {
+        cacheService.writePatchToCache(KEY, project("补丁"), 10, "", List.of("projectData.p1.name"));
+
+        int cleared = cacheService.removeDirtyFlagsIfUnchanged(Map.of(KEY, "1"));
+
+        assertEquals(1, cleared);
+        assertFalse(cacheService.isDirty(KEY));
+        assertTrue(cacheService.getUserDirtyKeys("alice", 1).isEmpty());
+        assertTrue(cacheService.getPendingPatchPaths(List.of(KEY)).isEmpty());
+        assertTrue(cacheService.getDirtyKeysExpiringBefore(Long.MAX_VALUE, 10).isEmpty());
+    }
+
+    @Test
+    void clearIfUnchangedKeepsKeysWrittenDuringWriteBack() {
+        cacheService.writePatchToCache(KEY, project("第一次"), 10, "", List.of("projectData.p1.name"));
+        String readForWriteBack = cacheService.getMultiForWriteBack(List.of(KEY)).get(0).generation();
+        cacheService.writePatchToCache(KEY, project("第二次"), 10, readForWriteBack, List.of("projectData.p2"));
+
+        int cleared = cacheService.removeDirtyFlagsIfUnchanged(Map.of(KEY, readForWriteBack));
+
+        assertEquals(0, cleared);
+        assertTrue(cacheService.isDirty(KEY));
+        assertEquals(Set.of("projectData.p1.name", "projectData.p2"),
+                cacheService.getPendingPatchPaths(List.of(KEY)).get(KEY));
+        // 该key的日志记录随本次写回确认，重新追加一条留待下一轮写回
+        assertEquals(2, journalLength());
+    }
+
+    private long journalLength() {
+        Long length = redis.stringRedisTemplate.opsForStream().size(WriteBackJournal.STREAM_KEY);
+        return length != null ? length : 0;
+    }
+
+    private static ProjectDocument project(String name) {
+        return new ProjectDocument("alice", 1, Map.of("p1", Map.of("name", name)));
+    }
+
+    @SuppressWarnings("unchecked")
+    private static String name(ProjectDocument document) {
+        return (String) ((Map<String, Object>) document.getProjectData().get("p1")).get("name");
+    }
+}
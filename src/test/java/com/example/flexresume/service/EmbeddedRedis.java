@@ -0,0 +1,123 @@
+package com.example.flexresume.service;
+
+import com.example.flexresume.config.ResumeValueCodec;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.springframework.data.redis.connection.RedisStandaloneConfiguration;
+import org.springframework.data.redis.connection.lettuce.LettuceConnectionFactory;
+import org.springframework.data.redis.core.RedisCallback;
+import org.springframework.data.redis.core.RedisTemplate;
+import org.springframework.data.redis.core.StringRedisTemplate;
+import org.springframework.data.redis.serializer.RedisSerializer;
+import org.springframework.data.redis.serializer.StringRedisSerializer;
+import org.springframework.http.converter.json.Jackson2ObjectMapperBuilder;
+import org.springframework.test.util.ReflectionTestUtils;
+import redis.embedded.RedisServer;
+
+import java.io.IOException;
+import java.net.ServerSocket;
+
+/**
+ * 测试用的本机 Redis（embedded-redis 内置的 redis-server），以及连接到它的 CacheService
+ * 写入脚本、补丁路径和代数检查都在真实的 Redis 中执行
+ */
+final class EmbeddedRedis implements AutoCloseable {
+
+    final ObjectMapper objectMapper = Jackson2ObjectMapperBuilder.json().build();
+
+    private final RedisServer server;
+    private final LettuceConnectionFactory connectionFactory;
+    final RedisTemplate<String, Object> redisTemplate;
+    final StringRedisTemplate stringRedisTemplate;
+
+    private EmbeddedRedis(RedisServer server, LettuceConnectionFactory connectionFactory) {
+        this.server = server;
+        this.connectionFactory = connectionFactory;
+        redisTemplate = configure(new RedisTemplate<>());
+        stringRedisTemplate = new StringRedisTemplate(connectionFactory);
+    }
+
+    /**
+     * 与 RedisConfig 中的 redisTemplate 相同的序列化配置，可传入覆盖了部分操作的子类
+     */
+    RedisTemplate<String, Object> configure(RedisTemplate<String, Object> template) {
+        template.setConnectionFactory(connectionFactory);
+        template.setKeySerializer(new StringRedisSerializer());
+        template.setHashKeySerializer(new StringRedisSerializer());
+        ResumeValueCodec codec = new ResumeValueCodec(true, 4096);
+        template.setValueSerializer(codec);
+        template.setHashValueSerializer(codec);
+        template.afterPropertiesSet();
+        return template;
+    }
+
+    /**
+     * 与 RedisConfig 中的 bytesRedisTemplate 相同的序列化配置
+     */
+    RedisTemplate<String, byte[]> bytesTemplate() {
+        RedisTemplate<String, byte[]> template = new RedisTemplate<>();
+        template.setConnectionFactory(connectionFactory);
+        template.setKeySerializer(new StringRedisSerializer());
+        template.setHashKeySerializer(new StringRedisSerializer());
+        template.setValueSerializer(RedisSerializer.byteArray());
+        template.setHashValueSerializer(RedisSerializer.byteArray());
+        template.afterPropertiesSet();
+        return template;
+    }
+
+    static EmbeddedRedis start() throws IOException {
+        int port;
+        try (ServerSocket socket = new ServerSocket(0)) {
+            port = socket.getLocalPort();
+        }
+        RedisServer server = RedisServer.newRedisServer()
+                .bind("127.0.0.1")
+                .port(port)
+                .setting("save \"\"")
+                .setting("appendonly no")
+                .build();
+        server.start();
+        LettuceConnectionFactory connectionFactory =
+                new LettuceConnectionFactory(new RedisStandaloneConfiguration("127.0.0.1", port));
+        connectionFactory.afterPropertiesSet();
+        connectionFactory.start();
+        return new EmbeddedRedis(server, connectionFactory);
+    }
+
+    /**
+     * 按 Spring 容器中的方式组装 CacheService（写回日志启用），不需要响应式模板
+     */
+    <S extends CacheService> S wire(S cacheService) {
+        WriteBackJournal journal = new WriteBackJournal("test");
+        ReflectionTestUtils.setField(journal, "stringRedisTemplate", stringRedisTemplate);
+        ReflectionTestUtils.setField(journal, "enabled", true);
+        ReflectionTestUtils.setField(journal, "maxLength", 1000L);
+
+        ReflectionTestUtils.setField(cacheService, "redisTemplate", redisTemplate);
+        ReflectionTestUtils.setField(cacheService, "stringRedisTemplate", stringRedisTemplate);
+        ReflectionTestUtils.setField(cacheService, "connectionFactory", connectionFactory);
+        ReflectionTestUtils.setField(cacheService, "objectMapper", objectMapper);
+        ReflectionTestUtils.setField(cacheService, "meterRegistry", new SimpleMeterRegistry());
+        ReflectionTestUtils.setField(cacheService, "writeBackJournal", journal);
+        ReflectionTestUtils.setField(cacheService, "l1MaxBytes", 1L << 20);
+        ReflectionTestUtils.setField(cacheService, "l1TtlSeconds", 60L);
+        cacheService.init();
+        return cacheService;
+    }
+
+    void flushAll() {
+        stringRedisTemplate.execute((RedisCallback<Object>) connection -> {
+            connection.serverCommands().flushAll();
+            return null;
+        });
+    }
+
+    @Override
+    public void close() throws IOException {
+        try {
+            connectionFactory.destroy();
+        } finally {
+            server.stop();
+        }
+    }
+}
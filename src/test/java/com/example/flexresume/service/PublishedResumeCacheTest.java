@@ -0,0 +1,114 @@
+package com.example.flexresume.service;
+
+import com.example.flexresume.model.PublishRecord;
+import com.example.flexresume.repository.PublishRecordRepository;
+import org.junit.jupiter.api.AfterAll;
+import org.junit.jupiter.api.BeforeAll;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.data.redis.core.RedisTemplate;
+import org.springframework.test.util.ReflectionTestUtils;
+
+import java.nio.charset.StandardCharsets;
+import java.util.Date;
+import java.util.Map;
+import java.util.Optional;
+
+import static org.junit.jupiter.api.Assertions.*;
+import static org.mockito.Mockito.*;
+
+/**
+ * 发布简历缓存未命中时的回填：读取数据库期间重新发布的新版本不能被旧版本覆盖
+ */
+class PublishedResumeCacheTest {
+
+    private static final String USER = "alice";
+
+    private static EmbeddedRedis redis;
+    private static CacheService cacheService;
+    private static RedisTemplate<String, byte[]> bytesRedisTemplate;
+
+    private final PublishRecordRepository repository = mock(PublishRecordRepository.class);
+    private PublishedResumeCache publishedResumeCache;
+
+    @BeforeAll
+    static void startRedis() throws Exception {
+        redis = EmbeddedRedis.start();
+        cacheService = redis.wire(new CacheService());
+        bytesRedisTemplate = redis.bytesTemplate();
+    }
+
+    @AfterAll
+    static void stopRedis() throws Exception {
+        cacheService.destroy();
+        redis.close();
+    }
+
+    @BeforeEach
+    void setUp() {
+        redis.flushAll();
+        publishedResumeCache = new PublishedResumeCache();
+        ReflectionTestUtils.setField(publishedResumeCache, "bytesRedisTemplate", bytesRedisTemplate);
+        ReflectionTestUtils.setField(publishedResumeCache, "cacheService", cacheService);
+        ReflectionTestUtils.setField(publishedResumeCache, "publishRecordRepository", repository);
+        ReflectionTestUtils.setField(publishedResumeCache, "objectMapper", redis.objectMapper);
+        ReflectionTestUtils.setField(publishedResumeCache, "ttlHours", 24L);
+        ReflectionTestUtils.setField(publishedResumeCache, "l1MaxBytes", 1L << 20);
+        ReflectionTestUtils.setField(publishedResumeCache, "l1TtlSeconds", 60L);
+        ReflectionTestUtils.setField(publishedResumeCache, "missingTtlSeconds", 30L);
+        publishedResumeCache.init();
+    }
+
+    @Test
+    void missFillsRedisWithTtl() throws Exception {
+        when(repository.findByUserId(USER)).thenReturn(Optional.of(record(1)));
+
+        PublishedResumeCache.PublishedResume published = publishedResumeCache.get(USER);
+
+        assertEquals(published.etag(), redisEtag());
+        Long ttl = bytesRedisTemplate.getExpire("published:" + USER);
+        assertNotNull(ttl);
+        assertTrue(ttl > 0);
+    }
+
+    @Test
+    void publishDuringDbReadIsNotOverwritten() throws Exception {
+        PublishRecord stale = record(1);
+        PublishRecord fresh = record(2);
+        PublishedResumeCache.PublishedResume[] published = new PublishedResumeCache.PublishedResume[1];
+        when(repository.findByUserId(USER)).thenAnswer(invocation -> {
+            // 读取数据库之后、回填之前重新发布
+            published[0] = publishedResumeCache.refresh(fresh);
+            return Optional.of(stale);
+        });
+
+        PublishedResumeCache.PublishedResume read = publishedResumeCache.get(USER);
+
+        assertNotEquals(published[0].etag(), read.etag());
+        assertEquals(published[0].etag(), redisEtag());
+        assertEquals(published[0].etag(), publishedResumeCache.get(USER).etag());
+        verify(repository, times(1)).findByUserId(USER);
+    }
+
+    @Test
+    void refreshReplacesExistingEntry() throws Exception {
+        when(repository.findByUserId(USER)).thenReturn(Optional.of(record(1)));
+        publishedResumeCache.get(USER);
+
+        PublishedResumeCache.PublishedResume fresh = publishedResumeCache.refresh(record(2));
+
+        assertEquals(fresh.etag(), redisEtag());
+        assertEquals(fresh.etag(), publishedResumeCache.get(USER).etag());
+    }
+
+    private String redisEtag() {
+        byte[] etag = bytesRedisTemplate.<String, byte[]>opsForHash().get("published:" + USER, "etag");
+        return etag != null ? new String(etag, StandardCharsets.UTF_8) : null;
+    }
+
+    private static PublishRecord record(int version) {
+        PublishRecord record = new PublishRecord(USER, version, new Date(1_700_000_000_000L + version));
+        record.setSnapshot(Map.of("version", version));
+        return record;
+    }
+}
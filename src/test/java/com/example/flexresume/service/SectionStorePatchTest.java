@@ -0,0 +1,224 @@
+package com.example.flexresume.service;
+
+import com.example.flexresume.model.ProjectDocument;
+import com.fasterxml.jackson.databind.JsonNode;
+import org.junit.jupiter.api.AfterAll;
+import org.junit.jupiter.api.BeforeAll;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+
+import java.util.Collection;
+import java.util.ConcurrentModificationException;
+import java.util.HashMap;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Optional;
+import java.util.Set;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+/**
+ * SectionStore.patch：RFC 7386 合并语义、记录的补丁路径、代数冲突时的重试，以及字段名校验
+ */
+class SectionStorePatchTest {
+
+    private static final String KEY = "projects:alice:1";
+
+    private static EmbeddedRedis redis;
+    private static ConflictingCacheService cacheService;
+
+    // 数据库中的文档，缓存未命中时读取
+    private ProjectDocument stored;
+    private SectionStore<ProjectDocument> store;
+
+    @BeforeAll
+    static void startRedis() throws Exception {
+        redis = EmbeddedRedis.start();
+        cacheService = redis.wire(new ConflictingCacheService());
+    }
+
+    @AfterAll
+    static void stopRedis() throws Exception {
+        cacheService.destroy();
+        redis.close();
+    }
+
+    @BeforeEach
+    void setUp() {
+        redis.flushAll();
+        cacheService.conflicts.set(0);
+        stored = null;
+        store = new SectionStore<>("projects", ProjectDocument.class, cacheService, redis.objectMapper, 10,
+                (username, version) -> Optional.ofNullable(stored),
+                (username, version) -> new ProjectDocument(username, version, new HashMap<>()),
+                ProjectDocument::setProjectData).withMergePatch("projectData");
+    }
+
+    @Test
+    void nullDeletesCard() throws Exception {
+        save(Map.of("p1", card("名称一", "描述一"), "p2", card("名称二", "描述二")));
+
+        Set<String> paths = store.patch("alice", 1, json("{\"p2\": null}"));
+
+        assertEquals(Set.of("projectData.p2"), paths);
+        assertEquals(Set.of("p1"), cached().getProjectData().keySet());
+    }
+
+    @Test
+    void nullOnMissingFieldChangesNothing() throws Exception {
+        save(Map.of("p1", card("名称一", "描述一")));
+
+        Set<String> paths = store.patch("alice", 1, json("{\"p9\": null, \"p1\": {\"missing\": null}}"));
+
+        assertTrue(paths.isEmpty());
+        assertEquals("1", generation());
+    }
+
+    @Test
+    void nestedObjectsAreMergedAndSiblingsKept() throws Exception {
+        save(Map.of("p1", card("名称一", "描述一")));
+
+        Set<String> paths = store.patch("alice", 1, json("{\"p1\": {\"name\": \"新名称\", \"description\": null}}"));
+
+        assertEquals(Set.of("projectData.p1.name", "projectData.p1.description"), paths);
+        assertEquals(Map.of("name", "新名称"), cached().getProjectData().get("p1"));
+    }
+
+    @Test
+    void newCardAndNonObjectValuesReplaceWholePath() throws Exception {
+        save(Map.of("p1", card("名称一", "描述一")));
+
+        Set<String> paths = store.patch("alice", 1, json("{\"p1\": [1, 2], \"p2\": {\"name\": \"新卡片\", \"tags\": null}}"));
+
+        assertEquals(Set.of("projectData.p1", "projectData.p2"), paths);
+        Map<String, Object> cards = cached().getProjectData();
+        assertEquals(List.of(1, 2), cards.get("p1"));
+        // 新建的对象中 null 字段同样被删除
+        assertEquals(Map.of("name", "新卡片"), cards.get("p2"));
+    }
+
+    @Test
+    void unchangedValuesAreNotWritten() throws Exception {
+        save(Map.of("p1", card("名称一", "描述一")));
+
+        Set<String> paths = store.patch("alice", 1, json("{\"p1\": {\"name\": \"名称一\"}}"));
+
+        assertTrue(paths.isEmpty());
+        assertEquals("1", generation());
+    }
+
+    @Test
+    void missingCacheFallsBackToDatabase() throws Exception {
+        stored = new ProjectDocument("alice", 1, new LinkedHashMap<>(Map.of("p1", card("名称一", "描述一"))));
+
+        Set<String> paths = store.patch("alice", 1, json("{\"p1\": {\"name\": \"新名称\"}}"));
+
+        assertEquals(Set.of("projectData.p1.name"), paths);
+        assertEquals(Map.of("name", "新名称", "description", "描述一"), cached().getProjectData().get("p1"));
+        assertEquals(Map.of(KEY, paths), cacheService.getPendingPatchPaths(List.of(KEY)));
+    }
+
+    @Test
+    void nullCardFieldIsWrittenAsWhole() throws Exception {
+        stored = new ProjectDocument("alice", 1, null);
+
+        Set<String> paths = store.patch("alice", 1, json("{\"p1\": {\"name\": \"新名称\"}}"));
+
+        // 数据库中卡片字段为 null，无法 $set 其子路径
+        assertEquals(Set.of("projectData"), paths);
+        assertEquals(Map.of("p1", Map.of("name", "新名称")), cached().getProjectData());
+    }
+
+    @Test
+    void generationMismatchIsRetriedOnFreshData() throws Exception {
+        save(Map.of("p1", card("名称一", "描述一")));
+        cacheService.conflicts.set(1);
+
+        Set<String> paths = store.patch("alice", 1, json("{\"p1\": {\"name\": \"新名称\"}}"));
+
+        assertEquals(Set.of("projectData.p1.name"), paths);
+        // 重试时读到了冲突期间其他请求写入的卡片，不会被补丁覆盖
+        Map<String, Object> cards = cached().getProjectData();
+        assertEquals(Map.of("name", "新名称", "description", "描述一"), cards.get("p1"));
+        assertEquals(card("并发写入", ""), cards.get("concurrent"));
+    }
+
+    @Test
+    void persistentGenerationMismatchFails() throws Exception {
+        save(Map.of("p1", card("名称一", "描述一")));
+        cacheService.conflicts.set(Integer.MAX_VALUE);
+
+        assertThrows(ConcurrentModificationException.class,
+                () -> store.patch("alice", 1, json("{\"p1\": {\"name\": \"新名称\"}}")));
+        assertNotEquals("新名称", ((Map<?, ?>) cached().getProjectData().get("p1")).get("name"));
+    }
+
+    @Test
+    void invalidFieldNamesAreRejected() throws Exception {
+        save(Map.of("p1", card("名称一", "描述一")));
+
+        for (String patch : List.of("{\"a.b\": 1}", "{\"$set\": {}}", "{\"\": 1}", "{\"p1\": {\"x.y\": 1}}",
+                "{\"p1\": {\"$inc\": 1}}")) {
+            assertThrows(IllegalArgumentException.class, () -> store.patch("alice", 1, json(patch)), patch);
+        }
+        for (String patch : List.of("[]", "null", "\"p1\"")) {
+            assertThrows(IllegalArgumentException.class, () -> store.patch("alice", 1, json(patch)), patch);
+        }
+        assertEquals("1", generation());
+    }
+
+    @Test
+    void sectionWithoutPatchFieldRejectsPatch() {
+        SectionStore<ProjectDocument> plain = new SectionStore<>("projects", ProjectDocument.class, cacheService,
+                redis.objectMapper, 10, (username, version) -> Optional.empty(),
+                (username, version) -> new ProjectDocument(username, version, new HashMap<>()), null);
+
+        assertFalse(plain.supportsMergePatch());
+        assertThrows(UnsupportedOperationException.class, () -> plain.patch("alice", 1, json("{}")));
+    }
+
+    private void save(Map<String, Object> cards) {
+        store.save(new ProjectDocument("alice", 1, new LinkedHashMap<>(cards)));
+    }
+
+    private ProjectDocument cached() {
+        return store.fromCache("alice", 1, cacheService.getMultiForWriteBack(List.of(KEY)).get(0).data());
+    }
+
+    private String generation() {
+        return cacheService.getMultiForWriteBack(List.of(KEY)).get(0).generation();
+    }
+
+    private static Map<String, Object> card(String name, String description) {
+        Map<String, Object> card = new LinkedHashMap<>();
+        card.put("name", name);
+        card.put("description", description);
+        return card;
+    }
+
+    private static JsonNode json(String value) throws Exception {
+        return redis.objectMapper.readTree(value);
+    }
+
+    /**
+     * 在补丁写入前插入一次其他请求的整体写入，使补丁的代数检查失败
+     */
+    static class ConflictingCacheService extends CacheService {
+
+        final AtomicInteger conflicts = new AtomicInteger();
+
+        @Override
+        public long writePatchToCache(String key, Object data, int expireMinutes, String expectedGeneration,
+                                      Collection<String> paths) {
+            if (conflicts.getAndUpdate(remaining -> Math.max(0, remaining - 1)) > 0) {
+                ProjectDocument current = (ProjectDocument) getMultiForWriteBack(List.of(key)).get(0).data();
+                Map<String, Object> cards = new LinkedHashMap<>(current.getProjectData());
+                cards.put("concurrent", card("并发写入", ""));
+                writeToCache(key, new ProjectDocument("alice", 1, cards), expireMinutes);
+            }
+            return super.writePatchToCache(key, data, expireMinutes, expectedGeneration, paths);
+        }
+    }
+}
@@ -0,0 +1,78 @@
+package com.example.flexresume.service;
+
+import com.example.flexresume.model.ProjectDocument;
+import org.bson.Document;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.http.converter.json.Jackson2ObjectMapperBuilder;
+import org.springframework.test.util.ReflectionTestUtils;
+
+import java.util.HashMap;
+import java.util.Map;
+import java.util.Set;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+/**
+ * 补丁路径到 MongoDB 更新操作的转换
+ */
+class WriteBackSchedulerPatchUpdateTest {
+
+    private WriteBackScheduler scheduler;
+
+    @BeforeEach
+    void setUp() {
+        scheduler = new WriteBackScheduler();
+        ReflectionTestUtils.setField(scheduler, "objectMapper", Jackson2ObjectMapperBuilder.json().build());
+    }
+
+    @Test
+    void existingPathsAreSetAndRemovedPathsUnset() {
+        Document update = update(Map.of("p1", Map.of("name", "新名称")), "projectData.p1.name", "projectData.p2");
+
+        assertEquals(new Document("projectData.p1.name", "新名称"), update.get("$set"));
+        assertEquals(new Document("projectData.p2", 1), update.get("$unset"));
+    }
+
+    @Test
+    void nestedPathsCollapseIntoOuterPath() {
+        Document update = update(Map.of("p1", Map.of("name", "新名称")), "projectData.p1", "projectData.p1.name");
+
+        assertEquals(new Document("projectData.p1", Map.of("name", "新名称")), update.get("$set"));
+        assertNull(update.get("$unset"));
+    }
+
+    @Test
+    void nullParentIsSetAsWhole() {
+        Map<String, Object> cards = new HashMap<>();
+        cards.put("p1", null);
+
+        Document update = update(cards, "projectData.p1.name", "projectData.p1.description");
+
+        // 对 null 父节点下的路径 $set 会失败，改为整体 $set 父节点
+        Document set = new Document();
+        set.put("projectData.p1", null);
+        assertEquals(set, update.get("$set"));
+    }
+
+    @Test
+    void nullCardFieldIsSetAsWhole() {
+        Document update = update(null, "projectData.p1.name");
+
+        Document set = new Document();
+        set.put("projectData", null);
+        assertEquals(set, update.get("$set"));
+    }
+
+    @Test
+    void missingParentIsUnsetAsWhole() {
+        Document update = update(Map.of(), "projectData.p1.name");
+
+        assertNull(update.get("$set"));
+        assertEquals(new Document("projectData.p1", 1), update.get("$unset"));
+    }
+
+    private Document update(Map<String, Object> cards, String... paths) {
+        return scheduler.patchUpdate(new ProjectDocument("alice", 1, cards), Set.of(paths)).getUpdateObject();
+    }
+}